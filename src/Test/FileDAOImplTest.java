@@ -5,9 +5,27 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
 import java.util.Scanner;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import Model.Order;
+import Model.DAO.JournaledFileDAOImpl;
+import Model.DAO.OrderFileConverter;
+import Model.DAO.OrderFileParser;
+import Model.DAO.OrderFileWriter;
+import Model.DAO.OrderExporter;
+import Model.DAO.IncrementalExporter;
+import Model.DAO.BinaryFileDAOImpl;
 import Model.DAO.FileDAOImpl;
 import Exceptions.ModelExceptions;
 
@@ -101,6 +119,26 @@ class FileDAOImplTest {
     }
   }
 
+  @Test
+  public void testEditOrdersInOneBatch() throws ModelExceptions {
+    // Create two orders and add them to the file
+    Order order = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
+    Order order2 = new Order(2, "Jane Doe", "MI", "Wood", BigDecimal.valueOf(100));
+    auditDAOImpl.addOrder(TEST_DATE, order);
+    auditDAOImpl.addOrder(TEST_DATE, order2);
+
+    // Edit both, one record growing past its slot, and leave out an order not in the file
+    order.setCustomerName("Jane Smith-Wellington");
+    order2.setCustomerName("Jo");
+    Order missing = new Order(3, "Nobody", "MI", "Wood", BigDecimal.valueOf(100));
+    auditDAOImpl.editOrders(TEST_DATE, Arrays.asList(order, order2, missing));
+
+    List<Order> orders = auditDAOImpl.readOrders(TEST_DATE);
+    assertEquals(2, orders.size());
+    assertTrue(orders.stream().anyMatch(read -> read.getCustomerName().equals("Jane Smith-Wellington")));
+    assertTrue(orders.stream().anyMatch(read -> read.getCustomerName().equals("Jo")));
+  }
+
   @Test
   public void testRemoveOrderOneOrder() throws ModelExceptions, IOException {
     // Create an order and add it to the file
@@ -142,7 +180,278 @@ class FileDAOImplTest {
     }
   }
 
+  @Test
+  public void testEditAfterOrderFileChangedRebuildsIndex() throws ModelExceptions, IOException {
+    // Create two orders so the index knows where both records are
+    Order order = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
+    Order order2 = new Order(2, "Jane Doe", "MI", "Wood", BigDecimal.valueOf(100));
+    auditDAOImpl.addOrder(TEST_DATE, order);
+    auditDAOImpl.addOrder(TEST_DATE, order2);
+
+    // Swap the two lines behind the DAO's back so the index points at the wrong records
+    File testOrderFile = new File(TEST_ORDER_FILE_PATH);
+    List<String> lines = Files.readAllLines(testOrderFile.toPath());
+    Files.write(testOrderFile.toPath(), Arrays.asList(lines.get(1), lines.get(0)));
+
+    // The stale index is detected and rebuilt, so the right record is edited
+    order2.setCustomerName("Jane Smith Lee");
+    auditDAOImpl.editAnOrder(TEST_DATE, order2);
+
+    List<Order> orders = auditDAOImpl.readOrders(TEST_DATE);
+    assertEquals(2, orders.size());
+    assertTrue(orders.stream().anyMatch(o -> o.getCustomerName().equals("John Doe")));
+    assertTrue(orders.stream().anyMatch(o -> o.getCustomerName().equals("Jane Smith Lee")));
+  }
+
+  @Test
+  public void testIndexChangesAreAppended() throws ModelExceptions {
+    File indexFile = new File(new File("src\\main\\java\\Orders", "Index"), "Orders_" + dateToString(TEST_DATE) + ".idx");
+    indexFile.delete();
+    Order order = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
+    auditDAOImpl.addOrder(TEST_DATE, order);
+    auditDAOImpl.addOrder(TEST_DATE, new Order(2, "Jane Doe", "MI", "Wood", BigDecimal.valueOf(100)));
+    order.setCustomerName("Jack Doe");
+    auditDAOImpl.editAnOrder(TEST_DATE, order);
+    auditDAOImpl.shutdown();
+
+    // A 20 byte header and one 16 byte entry per change
+    assertEquals(20 + 3 * 16, indexFile.length());
+
+    // The header still matches the orders file, so a new DAO loads the index and adds to it
+    FileDAOImpl reopened = new FileDAOImpl();
+    order.setCustomerName("Jill Doe");
+    reopened.editAnOrder(TEST_DATE, order);
+    reopened.shutdown();
+    assertEquals(20 + 4 * 16, indexFile.length());
+    assertEquals("Jill Doe", reopened.readOrders(TEST_DATE).get(0).getCustomerName());
+    indexFile.delete();
+  }
+
+  @Test
+  public void testReadAllOrders() throws ModelExceptions {
+    // Create two orders in the test order file
+    Order order = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
+    Order order2 = new Order(2, "Jane Doe", "MI", "Wood", BigDecimal.valueOf(100));
+    auditDAOImpl.addOrder(TEST_DATE, order);
+    auditDAOImpl.addOrder(TEST_DATE, order2);
+
+    // Load every order file and check the stored values were kept
+    Map<LocalDate, List<Order>> allOrders = auditDAOImpl.readAllOrders();
+    List<Order> orders = allOrders.get(TEST_DATE);
+    assertEquals(2, orders.size());
+    assertEquals("Jane Doe", orders.get(1).getCustomerName());
+    assertEquals(order.getTotal(), orders.get(0).getTotal());
+  }
+
+  @Test
+  public void testConcurrentAddsAreGroupCommitted() throws Exception {
+    auditDAOImpl.setOrderFileWriter(new OrderFileWriter(OrderFileWriter.FsyncPolicy.EVERY_COMMIT, 0, 64 * 1024, 5));
+
+    // Add forty orders from eight threads at once so the writer batches them
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> adds = new ArrayList<>();
+    for (int i = 1; i <= 40; i++) {
+      Order order = new Order(i, "Customer " + i, "FL", "Tile", BigDecimal.valueOf(100));
+      adds.add(executor.submit(() -> {
+        auditDAOImpl.addOrder(TEST_DATE, order);
+        return null;
+      }));
+    }
+    for (Future<?> add : adds) {
+      add.get();
+    }
+    executor.shutdown();
+
+    // Every order was written, and the offsets handed back let the index find them
+    assertEquals(40, auditDAOImpl.readOrders(TEST_DATE).size());
+    auditDAOImpl.removeOrder(TEST_DATE, 7);
+    List<Order> orders = auditDAOImpl.readOrders(TEST_DATE);
+    assertEquals(39, orders.size());
+    assertFalse(orders.stream().anyMatch(o -> o.getOrderNumber() == 7));
+    assertTrue(auditDAOImpl.getOrderFileWriter().getStats().contains("40 records"));
+    auditDAOImpl.shutdown();
+  }
+
+  @Test
+  public void testCloseCommitsLingeringBatch() throws Exception {
+    File file = File.createTempFile("Orders_", ".txt");
+    file.deleteOnExit();
+    OrderFileWriter writer = new OrderFileWriter(OrderFileWriter.FsyncPolicy.EVERY_COMMIT, 0, 64 * 1024, 500);
+    byte[] record = "1,Jane Doe\n".getBytes();
+
+    // Close while the committer lingers for more records behind the first one
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Long> append = executor.submit(() -> writer.append(file, record));
+    Thread.sleep(100);
+    writer.close();
+    executor.shutdown();
+
+    assertEquals(0L, (long) append.get(5, TimeUnit.SECONDS));
+    assertEquals(record.length, file.length());
+    assertThrows(IOException.class, () -> writer.append(file, record));
+  }
+
+  @Test
+  public void testParserDecodesRecords() {
+    OrderFileParser parser = parser("1,John Doe,FL,6.00,Tile,150.00,3.50,4.15,525.00,622.50,68.78,1216.28\n"
+            + "#2,Jim Doe,FL,6.00,Tile,150.00,3.50,4.15,525.00,622.50,68.78,1216.28\n"
+            + "3,Jane Doe,CA,25.00,Wood,-2.5,5.15,4.75,0,0,0,0   \r\n");
+
+    assertTrue(parser.next());
+    assertEquals(1, parser.orderNumber());
+    assertEquals("John Doe", parser.text(OrderFileParser.CUSTOMER_NAME));
+    assertEquals(600, parser.unscaled(OrderFileParser.TAX_RATE));
+    assertEquals(2, parser.scale(OrderFileParser.TAX_RATE));
+    assertEquals(new BigDecimal("1216.28"), parser.decimal(OrderFileParser.TOTAL));
+
+    // Removed records are skipped and padding is not part of the last column
+    assertTrue(parser.next());
+    assertEquals(3, parser.orderNumber());
+    assertEquals(new BigDecimal("-2.5"), parser.decimal(OrderFileParser.AREA));
+    assertEquals(new BigDecimal("0"), parser.decimal(OrderFileParser.TOTAL));
+    assertFalse(parser.next());
+  }
+
+  @Test
+  public void testParserRejectsMalformedNumbers() {
+    OrderFileParser parser = parser("4294967297,John Doe,FL,6.0.0,Tile,99999999999999999999.00,.,"
+            + "4.15,525.00,622.50,68.78,1216.28\n");
+    assertTrue(parser.next());
+
+    // A second decimal point is not read as more digits
+    assertThrows(NumberFormatException.class, () -> parser.unscaled(OrderFileParser.TAX_RATE));
+    assertThrows(NumberFormatException.class, () -> parser.decimal(OrderFileParser.TAX_RATE));
+    assertThrows(NumberFormatException.class, () -> parser.unscaled(OrderFileParser.COST_PER_SQUARE_FOOT));
+
+    // Digits that do not fit a long are not wrapped around, and decimals still decode them
+    assertThrows(NumberFormatException.class, () -> parser.unscaled(OrderFileParser.AREA));
+    assertEquals(new BigDecimal("99999999999999999999.00"), parser.decimal(OrderFileParser.AREA));
+    assertThrows(NumberFormatException.class, parser::orderNumber);
+  }
+
+  @Test
+  public void testJournaledEditAndRemove() throws ModelExceptions, IOException {
+    JournaledFileDAOImpl journaledDAOImpl = new JournaledFileDAOImpl();
+
+    // Create two orders, edit the first one and remove the second one through the journal
+    Order order = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
+    Order order2 = new Order(2, "Jane Doe", "MI", "Wood", BigDecimal.valueOf(100));
+    journaledDAOImpl.addOrder(TEST_DATE, order);
+    journaledDAOImpl.addOrder(TEST_DATE, order2);
+    order.setCustomerName("Jane Smith");
+    journaledDAOImpl.editAnOrder(TEST_DATE, order);
+    journaledDAOImpl.removeOrder(TEST_DATE, order2.getOrderNumber());
+
+    // Reads merge the journal before it has been compacted
+    List<Order> orders = journaledDAOImpl.readOrders(TEST_DATE);
+    assertEquals(1, orders.size());
+    assertEquals("Jane Smith", orders.get(0).getCustomerName());
+
+    // Compaction folds the journal back into the order file
+    journaledDAOImpl.compact(TEST_DATE);
+    File testOrderFile = new File(TEST_ORDER_FILE_PATH);
+    assertTrue(testOrderFile.exists());
+
+    try (Scanner scanner = new Scanner(testOrderFile)) {
+      assertTrue(scanner.hasNextLine());
+      assertTrue(scanner.nextLine().contains("Jane Smith"));
+      assertFalse(scanner.hasNextLine());
+    }
+    journaledDAOImpl.shutdown();
+  }
+
+  @Test
+  public void testBinaryEditRemoveAndConvert() throws ModelExceptions, IOException {
+    BinaryFileDAOImpl binaryDAOImpl = new BinaryFileDAOImpl();
+    binaryDAOImpl.removeOrder(TEST_DATE, 1); // clears the binary file of an earlier run
+    binaryDAOImpl.removeOrder(TEST_DATE, 2);
+
+    // Create two orders, edit the first one in place and flag the second one as removed
+    Order order = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
+    Order order2 = new Order(2, "Jane Doe", "MI", "Wood", BigDecimal.valueOf(100));
+    binaryDAOImpl.addOrder(TEST_DATE, order);
+    binaryDAOImpl.addOrder(TEST_DATE, order2);
+    order.setCustomerName("Jane Smith");
+    binaryDAOImpl.editAnOrder(TEST_DATE, order);
+    binaryDAOImpl.removeOrder(TEST_DATE, order2.getOrderNumber());
+
+    List<Order> orders = binaryDAOImpl.readOrders(TEST_DATE);
+    assertEquals(1, orders.size());
+    assertEquals("Jane Smith", orders.get(0).getCustomerName());
+    assertEquals(order.getTotal(), orders.get(0).getTotal());
+
+    // Converting back to text writes the same line the text DAO would have written
+    new OrderFileConverter(auditDAOImpl, binaryDAOImpl).toText(TEST_DATE);
+    try (Scanner scanner = new Scanner(new File(TEST_ORDER_FILE_PATH))) {
+      String line = scanner.nextLine();
+      assertTrue(line.startsWith("1,Jane Smith,FL,"));
+      assertTrue(line.endsWith("," + order.getTotal()));
+      assertFalse(scanner.hasNextLine());
+    }
+    binaryDAOImpl.removeOrder(TEST_DATE, 1);
+  }
+
   // Must run as administrator!
+  @Test
+  public void testParallelExportKeepsDateOrder() throws ModelExceptions, IOException {
+    // Create one order on each test date
+    Order order1 = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
+    Order order2 = new Order(2, "Jane Doe", "OH", "Wood", BigDecimal.valueOf(200));
+    auditDAOImpl.addOrder(TEST_DATE, order1);
+    auditDAOImpl.addOrder(TEST_DATE_TWO, order2);
+
+    // Export both files into a temporary file, the earlier date first
+    File ordersFile = new File(TEST_ORDER_FILE_PATH);
+    File ordersFileTwo = new File(TEST_ORDER_FILE_PATH.replace(dateToString(TEST_DATE), dateToString(TEST_DATE_TWO)));
+    File exportFile = File.createTempFile("DataExport", ".txt");
+    long[] offsets = new OrderExporter().export(Arrays.asList(ordersFileTwo, ordersFile), exportFile);
+
+    List<String> lines = Files.readAllLines(exportFile.toPath());
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).startsWith("2,Jane Doe,OH,"));
+    assertTrue(lines.get(0).endsWith(",10-30-2024"));
+    assertTrue(lines.get(1).startsWith("1,John Doe,FL,"));
+    assertTrue(lines.get(1).endsWith(",09-30-2025"));
+    assertEquals(exportFile.length(), offsets[2]);
+
+    exportFile.delete();
+    ordersFileTwo.delete();
+  }
+
+  @Test
+  public void testIncrementalExportOnlyRewritesChangedDates() throws ModelExceptions, IOException {
+    // Create one order on each test date and export them in full once
+    Order order1 = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
+    Order order2 = new Order(2, "Jane Doe", "OH", "Wood", BigDecimal.valueOf(200));
+    auditDAOImpl.addOrder(TEST_DATE, order1);
+    auditDAOImpl.addOrder(TEST_DATE_TWO, order2);
+
+    File ordersFile = new File(TEST_ORDER_FILE_PATH);
+    File ordersFileTwo = new File(TEST_ORDER_FILE_PATH.replace(dateToString(TEST_DATE), dateToString(TEST_DATE_TWO)));
+    List<File> orderFiles = Arrays.asList(ordersFileTwo, ordersFile);
+    File exportDirectory = Files.createTempDirectory("Backup").toFile();
+    File exportFile = new File(exportDirectory, "DataExport.txt");
+    IncrementalExporter exporter = new IncrementalExporter();
+    assertEquals(2, exporter.export(orderFiles, exportFile));
+
+    // Nothing changed, so nothing is exported again
+    assertEquals(0, exporter.export(orderFiles, exportFile));
+
+    // Only the later date changed, and the result matches a full export
+    auditDAOImpl.addOrder(TEST_DATE, new Order(3, "Jane Smith", "MI", "Carpet", BigDecimal.valueOf(150)));
+    assertEquals(1, exporter.export(orderFiles, exportFile));
+    File fullExport = new File(exportDirectory, "FullExport.txt");
+    new OrderExporter().export(orderFiles, fullExport);
+    assertEquals(Files.readAllLines(fullExport.toPath()), Files.readAllLines(exportFile.toPath()));
+    assertEquals(3, Files.readAllLines(exportFile.toPath()).size());
+
+    for (File file : exportDirectory.listFiles()) {
+      file.delete();
+    }
+    exportDirectory.delete();
+    ordersFileTwo.delete();
+  }
+
   @Test
   public void testExport() throws ModelExceptions, IOException {
     // Create two orders and add them to the file
@@ -178,6 +487,11 @@ class FileDAOImplTest {
 
   // The Tax and Product Methods are tested in the TaxesAndProductDAOTest file
 
+  // Utility method to parse order lines without an order file
+  private static OrderFileParser parser(String lines) {
+    return new OrderFileParser(ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8)));
+  }
+
   // Utility method to format the date
   private static String dateToString(LocalDate date) {
     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMddyyyy");
@@ -1,18 +1,42 @@
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import Exceptions.ModelExceptions;
+import Model.DAO.DateCache;
 import Model.DAO.FileDAOImpl;
 import Model.DAO.OrdersDAOImpl;
+import Model.DAO.OrderNumberAllocator;
+import Model.DAO.OrderSnapshot;
+import Model.DAO.OrderTable;
+import Model.DAO.TaxesDAO;
 import Model.Order;
+import Model.Tax;
+import Service.RepricingJob;
+import Service.RepricingReport;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class OrderDAOTest {
   FileDAOImpl auditDAOImpl = new FileDAOImpl();
@@ -22,11 +46,11 @@ public class OrderDAOTest {
     OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
     LocalDate date = LocalDate.of(2024, 9, 25);
 
-    // Creating a mock order and adding it to the orderStorage
+    // Creating a mock order and adding it to the order storage
     Order order1 = new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(100));
     List<Order> ordersList = new ArrayList<>();
     ordersList.add(order1);
-    OrdersDAOImpl.orderStorage.put(date, ordersList);
+    ordersDAOImpl.loadOrders(Collections.singletonMap(date, ordersList));
 
     // Test displayOrders method
     String result = ordersDAOImpl.displayOrders(date);
@@ -44,7 +68,7 @@ public class OrderDAOTest {
     Order result = ordersDAOImpl.addOrder(date, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(150));
 
     // Verify that the order is stored correctly
-    List<Order> ordersForDate = OrdersDAOImpl.orderStorage.get(date);
+    List<Order> ordersForDate = OrdersDAOImpl.getOrdersForDate(date);
     assertEquals(1, ordersForDate.size());
     assertEquals(result, ordersForDate.get(0));
     assertEquals("Jane Doe", ordersForDate.get(0).getCustomerName());
@@ -59,7 +83,7 @@ public class OrderDAOTest {
     Order order = new Order(1, "John Doe", "FL", "Carpet", BigDecimal.valueOf(200));
     List<Order> ordersList = new ArrayList<>();
     ordersList.add(order);
-    OrdersDAOImpl.orderStorage.put(date, ordersList);
+    ordersDAOImpl.loadOrders(Collections.singletonMap(date, ordersList));
 
     // Edit the order with new values
     String edits = " ,CA, ,300";
@@ -81,14 +105,14 @@ public class OrderDAOTest {
     Order order = new Order(1, "John Doe", "TX", "Tile", BigDecimal.valueOf(120));
     List<Order> ordersList = new ArrayList<>();
     ordersList.add(order);
-    OrdersDAOImpl.orderStorage.put(date, ordersList);
+    ordersDAOImpl.loadOrders(Collections.singletonMap(date, ordersList));
 
     // Remove the order
     Order removedOrder = ordersDAOImpl.removeOrder(date, 1);
 
     // Verify that the order was removed
     assertNotNull(removedOrder);
-    assertTrue(OrdersDAOImpl.orderStorage.get(date).isEmpty());
+    assertTrue(OrdersDAOImpl.getOrdersForDate(date).isEmpty());
   }
 
   @Test
@@ -100,7 +124,7 @@ public class OrderDAOTest {
     Order order = new Order(1, "John Doe", "FL", "Vinyl", BigDecimal.valueOf(150));
     List<Order> ordersList = new ArrayList<>();
     ordersList.add(order);
-    OrdersDAOImpl.orderStorage.put(date, ordersList);
+    ordersDAOImpl.loadOrders(Collections.singletonMap(date, ordersList));
 
     // Retrieve the order
     Order retrievedOrder = ordersDAOImpl.getOrder(date, 1);
@@ -109,4 +133,499 @@ public class OrderDAOTest {
     assertNotNull(retrievedOrder);
     assertEquals(order, retrievedOrder);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testLoadOrders() throws IOException {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl(freshOrderNumbers());
+    LocalDate date = LocalDate.of(2024, 9, 25);
+
+    // Loading an order as if it was read from an order file
+    Order order = new Order(41, "John Doe", "FL", "Tile", BigDecimal.valueOf(150));
+    List<Order> ordersList = new ArrayList<>();
+    ordersList.add(order);
+    Map<LocalDate, List<Order>> loaded = new HashMap<>();
+    loaded.put(date, ordersList);
+    ordersDAOImpl.loadOrders(loaded);
+
+    // Verify the order is stored and numbering continues after the highest order number
+    assertEquals(order, ordersDAOImpl.getOrder(date, 41));
+    Order added = ordersDAOImpl.addOrder(date, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(150));
+    assertEquals(42, added.getOrderNumber());
+  }
+
+  @Test
+  public void testOrderNumbersKeptPerDAO() throws IOException {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl(freshOrderNumbers());
+    LocalDate date = LocalDate.of(2024, 9, 26);
+    ordersDAOImpl.loadOrders(new HashMap<>());
+    assertEquals(1, ordersDAOImpl.addOrder(date, "John Doe", "FL", "Tile", BigDecimal.valueOf(150)).getOrderNumber());
+
+    // Another DAO with its own allocator does not take over the numbering of the first
+    OrdersDAOImpl other = new OrdersDAOImpl(freshOrderNumbers());
+    assertEquals(2, ordersDAOImpl.addOrder(date, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(150)).getOrderNumber());
+    assertEquals(1, other.addOrder(date, "Jim Doe", "TX", "Tile", BigDecimal.valueOf(150)).getOrderNumber());
+    ordersDAOImpl.loadOrders(new HashMap<>());
+  }
+
+  @Test
+  public void testConcurrentAddsAndRemoves() throws Exception {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl(freshOrderNumbers());
+    LocalDate date = LocalDate.of(2024, 11, 5);
+    ordersDAOImpl.loadOrders(new HashMap<>());
+
+    // Add 2000 orders from eight threads, removing every other one right away
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> tasks = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      tasks.add(executor.submit(() -> {
+        for (int i = 0; i < 250; i++) {
+          Order order = ordersDAOImpl.addOrder(date, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(150));
+          if (order.getOrderNumber() % 2 == 0) {
+            assertEquals(order, ordersDAOImpl.removeOrder(date, order.getOrderNumber()));
+          }
+        }
+      }));
+    }
+    for (Future<?> task : tasks) {
+      task.get();
+    }
+    executor.shutdown();
+
+    // Every order got its own number and exactly the odd ones are left, in order
+    List<Order> ordersForDate = OrdersDAOImpl.getOrdersForDate(date);
+    assertEquals(1000, ordersForDate.size());
+    for (int i = 0; i < ordersForDate.size(); i++) {
+      assertEquals(2 * i + 1, ordersForDate.get(i).getOrderNumber());
+    }
+  }
+
+  @Test
+  public void testLookupByOrderNumberAlone() throws ModelExceptions {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
+    LocalDate date = LocalDate.of(2024, 9, 25);
+    LocalDate dateTwo = LocalDate.of(2025, 3, 14);
+    ordersDAOImpl.loadOrders(new HashMap<>());
+
+    // Add orders on two dates and find them by their number only
+    Order order = ordersDAOImpl.addOrder(date, "John Doe", "FL", "Tile", BigDecimal.valueOf(150));
+    Order order2 = ordersDAOImpl.addOrder(dateTwo, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(200));
+    assertEquals(order, ordersDAOImpl.getOrder(order.getOrderNumber()));
+    assertEquals(dateTwo, ordersDAOImpl.getOrderDate(order2.getOrderNumber()));
+
+    // Edit without the date, then remove and check the index forgot the order
+    Order edited = ordersDAOImpl.editAnOrder(order2.getOrderNumber(), "Jane Smith, , , ");
+    assertEquals("Jane Smith", edited.getCustomerName());
+    ordersDAOImpl.removeOrder(dateTwo, order2.getOrderNumber());
+    assertNull(ordersDAOImpl.getOrder(order2.getOrderNumber()));
+    assertThrows(ModelExceptions.class, () -> ordersDAOImpl.editAnOrder(order2.getOrderNumber(), "Jane Doe, , , "));
+  }
+
+  @Test
+  public void testOrdersBetweenDates() {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
+    Map<LocalDate, List<Order>> loaded = new HashMap<>();
+    loaded.put(LocalDate.of(2024, 9, 30), new ArrayList<>(Collections.singletonList(
+            new Order(3, "John Doe", "FL", "Tile", BigDecimal.valueOf(150)))));
+    loaded.put(LocalDate.of(2024, 10, 2), new ArrayList<>(Arrays.asList(
+            new Order(5, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(200)),
+            new Order(4, "Jim Doe", "TX", "Carpet", BigDecimal.valueOf(120)))));
+    loaded.put(LocalDate.of(2024, 10, 31), new ArrayList<>(Collections.singletonList(
+            new Order(1, "Joan Doe", "KY", "Laminate", BigDecimal.valueOf(100)))));
+    loaded.put(LocalDate.of(2024, 11, 1), new ArrayList<>(Collections.singletonList(
+            new Order(2, "Jack Doe", "WA", "Tile", BigDecimal.valueOf(300)))));
+    ordersDAOImpl.loadOrders(loaded);
+
+    // Orders come back by date, then by order number, with both ends of the range included
+    List<Integer> week = ordersDAOImpl.ordersBetween(LocalDate.of(2024, 9, 30), LocalDate.of(2024, 10, 6))
+            .map(Order::getOrderNumber).collect(Collectors.toList());
+    assertEquals(Arrays.asList(3, 4, 5), week);
+    List<Integer> october = ordersDAOImpl.ordersInMonth(YearMonth.of(2024, 10))
+            .map(Order::getOrderNumber).collect(Collectors.toList());
+    assertEquals(Arrays.asList(4, 5, 1), october);
+
+    // Every date gets a heading in front of its orders
+    List<String> lines = ordersDAOImpl.displayOrdersBetween(LocalDate.of(2024, 10, 31), LocalDate.of(2024, 11, 30))
+            .collect(Collectors.toList());
+    assertEquals(4, lines.size());
+    assertTrue(lines.get(0).contains("10/31/2024"));
+    assertTrue(lines.get(2).contains("11/01/2024"));
+    assertEquals(0, ordersDAOImpl.ordersBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)).count());
+    assertThrows(IllegalArgumentException.class,
+            () -> ordersDAOImpl.ordersBetween(LocalDate.of(2024, 11, 1), LocalDate.of(2024, 10, 1)));
+  }
+
+  @Test
+  public void testFindOrdersByCustomerStateAndProduct() throws ModelExceptions, IOException {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl(freshOrderNumbers());
+    LocalDate date = LocalDate.of(2024, 9, 25);
+    LocalDate dateTwo = LocalDate.of(2024, 9, 26);
+    Map<LocalDate, List<Order>> loaded = new HashMap<>();
+    loaded.put(date, new ArrayList<>(Arrays.asList(
+            new Order(1, "John Doe", "CA", "Tile", BigDecimal.valueOf(150)),
+            new Order(2, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(200)))));
+    loaded.put(dateTwo, new ArrayList<>(Arrays.asList(
+            new Order(3, "John Doe", "TX", "Tile", BigDecimal.valueOf(120)))));
+    ordersDAOImpl.loadOrders(loaded);
+    Order added = ordersDAOImpl.addOrder(dateTwo, "John Doe", "CA", "Tile", BigDecimal.valueOf(100));
+
+    // Criteria are intersected and the orders come back by date and order number
+    assertEquals(Arrays.asList(1, 3, added.getOrderNumber()), orderNumbers(ordersDAOImpl.findOrders("John Doe", null, null)));
+    assertEquals(Arrays.asList(1, added.getOrderNumber()), orderNumbers(ordersDAOImpl.findOrders("John Doe", "CA", "Tile")));
+    assertEquals(Arrays.asList(1, 2, added.getOrderNumber()), orderNumbers(ordersDAOImpl.findOrders(null, "CA", null)));
+    assertEquals(4, ordersDAOImpl.findOrders(null, null, null).size());
+    assertTrue(ordersDAOImpl.findOrders("John Doe", "NY", null).isEmpty());
+
+    // Edits and removals move orders between the indexes
+    ordersDAOImpl.editAnOrder(dateTwo, 3, " ,CA, , ");
+    ordersDAOImpl.removeOrder(date, 1);
+    assertEquals(Arrays.asList(3, added.getOrderNumber()), orderNumbers(ordersDAOImpl.findOrders("John Doe", "CA", null)));
+    assertTrue(ordersDAOImpl.findOrders(null, "TX", null).isEmpty());
+
+    // Archived orders are still found
+    ordersDAOImpl.archiveOrdersBefore(dateTwo);
+    assertEquals(Arrays.asList(2), orderNumbers(ordersDAOImpl.findOrders(null, null, "Wood")));
+  }
+
+  @Test
+  public void testRepriceOrdersAfterTaxRateChange() throws ModelExceptions {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
+    LocalDate date = LocalDate.of(2024, 9, 25);
+    LocalDate dateTwo = LocalDate.of(2024, 9, 26);
+    Map<LocalDate, List<Order>> loaded = new HashMap<>();
+    loaded.put(date, new ArrayList<>(Arrays.asList(
+            new Order(1, "John Doe", "IL", "Tile", BigDecimal.valueOf(150)),
+            new Order(2, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(200)))));
+    loaded.put(dateTwo, new ArrayList<>(Arrays.asList(
+            new Order(3, "John Doe", "IL", "Carpet", BigDecimal.valueOf(120)))));
+    ordersDAOImpl.loadOrders(loaded);
+    BigDecimal oldTotal = ordersDAOImpl.getOrder(date, 1).getTotal();
+    BigDecimal caTotal = ordersDAOImpl.getOrder(date, 2).getTotal();
+
+    Tax illinois = TaxesDAO.getTax("IL");
+    List<LocalDate> persisted = Collections.synchronizedList(new ArrayList<>());
+    RepricingJob job = new RepricingJob(ordersDAOImpl, (persistedDate, write) -> persisted.add(persistedDate));
+    try {
+      TaxesDAO.addState("IL", "Illinois", new BigDecimal("7.00"));
+      RepricingReport report = job.run(Collections.singleton("IL"), Collections.emptySet());
+
+      // Only the IL orders change, each written with the other changes of its date
+      assertEquals(Arrays.asList(1, 3), report.getChanges().stream()
+              .map(RepricingReport.Change::getOrderNumber).collect(Collectors.toList()));
+      assertEquals(oldTotal, report.getChanges().get(0).getOldTotal());
+      assertEquals(new Order(1, "John Doe", "IL", "Tile", BigDecimal.valueOf(150)).getTotal(),
+              ordersDAOImpl.getOrder(date, 1).getTotal());
+      assertEquals(new BigDecimal("7.00"), ordersDAOImpl.getOrder(dateTwo, 3).getTaxRate());
+      assertEquals(caTotal, ordersDAOImpl.getOrder(date, 2).getTotal());
+      assertEquals(2, persisted.size());
+      assertTrue(persisted.containsAll(Arrays.asList(date, dateTwo)));
+      assertTrue(report.toString().contains(oldTotal + " -> " + report.getChanges().get(0).getNewTotal()));
+
+      // Repricing again finds nothing left to change
+      persisted.clear();
+      assertTrue(new RepricingJob(ordersDAOImpl, (persistedDate, write) -> persisted.add(persistedDate))
+              .run(Collections.singleton("IL"), Collections.emptySet()).getChanges().isEmpty());
+      assertTrue(persisted.isEmpty());
+    } finally {
+      TaxesDAO.addState("IL", illinois.getStateName(), illinois.getTaxRate());
+    }
+  }
+
+  @Test
+  public void testRepriceOrdersWithRepeatedOrderNumbers() throws ModelExceptions {
+    // Order files of earlier runs numbered every run from 1, so two dates share #1
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
+    LocalDate txDate = LocalDate.of(2020, 1, 1);
+    LocalDate caDate = LocalDate.of(2020, 1, 2);
+    Order current = new Order(1, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(100));
+    Order stale = new Order(1, "Jane Doe", "CA", new BigDecimal("1.00"), "Wood", current.getArea(),
+            current.getCostPerSquareFoot(), current.getLaborCostPerSquareFoot(), current.getMaterialCost(),
+            current.getLaborCost(), new BigDecimal("1.00"), new BigDecimal("999.90"));
+    Order texas = new Order(1, "Bob", "TX", "Wood", BigDecimal.valueOf(100));
+    Map<LocalDate, List<Order>> loaded = new HashMap<>();
+    loaded.put(caDate, new ArrayList<>(Collections.singletonList(stale)));
+    loaded.put(txDate, new ArrayList<>(Collections.singletonList(texas)));
+    ordersDAOImpl.loadOrders(loaded);
+
+    List<LocalDate> persisted = Collections.synchronizedList(new ArrayList<>());
+    RepricingReport report = new RepricingJob(ordersDAOImpl, (persistedDate, write) -> persisted.add(persistedDate))
+            .run(Collections.singleton("CA"), Collections.emptySet());
+
+    // The CA order of its own date is repriced and the TX order with its number is left alone
+    assertEquals(1, report.getChanges().size());
+    assertEquals(caDate, report.getChanges().get(0).getDate());
+    assertEquals("CA", report.getChanges().get(0).getState());
+    assertEquals(current.getTaxRate(), ordersDAOImpl.getOrder(caDate, 1).getTaxRate());
+    assertEquals(current.getTotal(), ordersDAOImpl.getOrder(caDate, 1).getTotal());
+    assertEquals(texas.getTotal(), ordersDAOImpl.getOrder(txDate, 1).getTotal());
+    assertEquals(Collections.singletonList(caDate), persisted);
+    assertEquals(Collections.singleton(caDate), ordersDAOImpl.findOrdersByDate(null, "CA", null).keySet());
+  }
+
+  @Test
+  public void testSearchMisspelledCustomerNames() throws ModelExceptions {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
+    LocalDate date = LocalDate.of(2024, 9, 25);
+    Map<LocalDate, List<Order>> loaded = new HashMap<>();
+    loaded.put(date, new ArrayList<>(Arrays.asList(
+            new Order(1, "May Lee", "CA", "Tile", BigDecimal.valueOf(150)),
+            new Order(2, "John Doe", "TX", "Wood", BigDecimal.valueOf(200)),
+            new Order(3, "Maya Leeds", "FL", "Tile", BigDecimal.valueOf(120)),
+            new Order(4, "May Lee", "CA", "Wood", BigDecimal.valueOf(100)))));
+    ordersDAOImpl.loadOrders(loaded);
+
+    // The closest name comes first with all of its orders, names too far off not at all
+    assertEquals(Arrays.asList(1, 4), orderNumbers(ordersDAOImpl.searchCustomerNames("Mai Le", 10)));
+    assertEquals(Arrays.asList(1, 4, 3), orderNumbers(ordersDAOImpl.searchCustomerNames("May Leed", 10)));
+    assertEquals(Arrays.asList(1, 4), orderNumbers(ordersDAOImpl.searchCustomerNames("may lee", 2)));
+    assertTrue(ordersDAOImpl.searchCustomerNames("Zoe Quinn", 10).isEmpty());
+
+    // Names follow edits and leave with their last order
+    ordersDAOImpl.editAnOrder(date, 2, "Jon Doh, , , ");
+    assertEquals(Arrays.asList(2), orderNumbers(ordersDAOImpl.searchCustomerNames("John Doh", 10)));
+    ordersDAOImpl.removeOrder(date, 3);
+    assertEquals(Arrays.asList(1, 4), orderNumbers(ordersDAOImpl.searchCustomerNames("Maya Leeds", 10)));
+  }
+
+  @Test
+  public void testSnapshotsIgnoreLaterChanges() throws Exception {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl(freshOrderNumbers());
+    LocalDate date = LocalDate.of(2024, 9, 25);
+    LocalDate dateTwo = LocalDate.of(2024, 9, 26);
+    ordersDAOImpl.loadOrders(new HashMap<>());
+    Order first = ordersDAOImpl.addOrder(date, "John Doe", "CA", "Tile", BigDecimal.valueOf(100));
+    Order second = ordersDAOImpl.addOrder(dateTwo, "Jane Doe", "TX", "Wood", BigDecimal.valueOf(200));
+
+    // Later additions, edits and removals leave the snapshot and the orders read from it alone
+    OrderSnapshot snapshot = ordersDAOImpl.snapshot(date, dateTwo);
+    ordersDAOImpl.addOrder(date, "Jim Doe", "FL", "Tile", BigDecimal.valueOf(150));
+    Order edited = ordersDAOImpl.editAnOrder(date, first.getOrderNumber(), "Joan Doe, , , 300");
+    ordersDAOImpl.removeOrder(dateTwo, second.getOrderNumber());
+    assertEquals(Arrays.asList(first, second), snapshot.orders().collect(Collectors.toList()));
+    assertEquals("John Doe", first.getCustomerName());
+    assertEquals("Joan Doe", edited.getCustomerName());
+    assertEquals(2, snapshot.dateCount());
+    assertTrue(snapshot.orders(dateTwo).contains(second));
+
+    // Readers never see an edit half applied, however many run at the same time
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    Future<?> writer = executor.submit(() -> {
+      for (int i = 100; i < 600; i++) {
+        ordersDAOImpl.editAnOrder(date, first.getOrderNumber(), "Area " + i + ", , , " + i);
+      }
+      return null;
+    });
+    Future<?> reader = executor.submit(() -> {
+      while (!writer.isDone()) {
+        for (Order order : ordersDAOImpl.snapshot(date, date).orders(date)) {
+          if (order.getCustomerName().startsWith("Area ")) {
+            BigDecimal area = new BigDecimal(order.getCustomerName().substring(5));
+            assertEquals(0, area.compareTo(order.getArea()));
+            assertEquals(order.getArea().multiply(order.getCostPerSquareFoot()).setScale(2, RoundingMode.HALF_UP),
+                    order.getMaterialCost());
+          }
+        }
+        ordersDAOImpl.displayOrdersBetween(date, dateTwo).count();
+      }
+    });
+    writer.get();
+    reader.get();
+    executor.shutdown();
+  }
+
+  private static List<Integer> orderNumbers(List<Order> orders) {
+    return orders.stream().map(Order::getOrderNumber).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testOrderTable() {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
+    LocalDate date = LocalDate.of(2024, 9, 25);
+    LocalDate dateTwo = LocalDate.of(2024, 9, 26);
+    Order edited = new Order(3, "Jim Doe", "TX", "Carpet", BigDecimal.valueOf(120));
+    edited.setArea(BigDecimal.valueOf(300.0));
+    edited.set();
+    Map<LocalDate, List<Order>> loaded = new HashMap<>();
+    loaded.put(date, new ArrayList<>(Arrays.asList(
+            new Order(1, "John Doe", "FL", "Tile", BigDecimal.valueOf(150)),
+            new Order(2, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(200)))));
+    loaded.put(dateTwo, new ArrayList<>(Arrays.asList(edited,
+            new Order(4, "Joan Doe", "CA", "Tile", BigDecimal.valueOf(100)),
+            new Order(5, "Jack Doe", "MN", "Tile", BigDecimal.valueOf(100)))));
+    ordersDAOImpl.loadOrders(loaded);
+
+    // Tax rates such as Minnesota's 6.875 have three decimal places
+    OrderTable table = ordersDAOImpl.orderTable(date, dateTwo);
+    assertEquals(5, table.size());
+    assertEquals(dateTwo, table.date(2));
+
+    // Rows convert back to the very same order text, scales included
+    List<Order> expected = new ArrayList<>(OrdersDAOImpl.getOrdersForDate(date));
+    expected.addAll(OrdersDAOImpl.getOrdersForDate(dateTwo));
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).toString(), table.rows().get(i).toString());
+    }
+
+    // Column sums and filters agree with adding up the orders one by one
+    BigDecimal total = BigDecimal.ZERO;
+    BigDecimal californiaTile = BigDecimal.ZERO;
+    for (Order order : expected) {
+      total = total.add(order.getTotal());
+      if (order.getState().equals("CA") && order.getProductType().equals("Tile")) {
+        californiaTile = californiaTile.add(order.getTotal());
+      }
+    }
+    assertEquals(total.setScale(2), table.sum(OrderTable.Column.TOTAL));
+    int[] rows = table.select("CA", "Tile", null, null);
+    assertEquals(1, rows.length);
+    assertEquals(californiaTile.setScale(2), table.sum(OrderTable.Column.TOTAL, rows));
+    assertEquals(2, table.select("CA", null, null, null).length);
+    assertEquals(3, table.select(null, null, dateTwo, null).length);
+    assertEquals(new BigDecimal("6.875"), table.sum(OrderTable.Column.TAX_RATE, table.select("MN", null, null, null)));
+    assertEquals(0, table.select("NY", null, null, null).length);
+  }
+
+  @Test
+  public void testArchivedDatesOffHeap() throws ModelExceptions {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
+    LocalDate oldDate = LocalDate.of(2023, 1, 10);
+    LocalDate recentDate = LocalDate.of(2024, 9, 25);
+    Order edited = new Order(7, "Jim Doe", "TX", "Carpet", BigDecimal.valueOf(120));
+    edited.setArea(BigDecimal.valueOf(300.0));
+    edited.set();
+    Map<LocalDate, List<Order>> loaded = new HashMap<>();
+    loaded.put(oldDate, new ArrayList<>(Arrays.asList(edited,
+            new Order(6, "John Doe", "FL", "Tile", BigDecimal.valueOf(150)))));
+    loaded.put(recentDate, new ArrayList<>(Collections.singletonList(
+            new Order(8, "Jane Doe", "CA", "Wood", BigDecimal.valueOf(200)))));
+    ordersDAOImpl.loadOrders(loaded);
+    String before = ordersDAOImpl.displayOrders(oldDate);
+
+    // Archived orders decode to the very same text and are still found by number
+    assertEquals(1, ordersDAOImpl.archiveOrdersBefore(LocalDate.of(2024, 1, 1)));
+    assertEquals(before, ordersDAOImpl.displayOrders(oldDate));
+    assertTrue(OrdersDAOImpl.containsDate(oldDate));
+    assertEquals(2, OrdersDAOImpl.getDateCount());
+    assertEquals(oldDate, ordersDAOImpl.getOrderDate(7));
+    assertEquals("Jim Doe", ordersDAOImpl.getOrder(oldDate, 7).getCustomerName());
+    assertNull(ordersDAOImpl.getOrder(oldDate, 8));
+    assertEquals(3, ordersDAOImpl.ordersBetween(oldDate, recentDate).count());
+
+    // Changing an archived order moves its date back onto the heap
+    assertEquals("Jack Doe", ordersDAOImpl.editAnOrder(7, "Jack Doe, , , ").getCustomerName());
+    assertEquals("Jack Doe", ordersDAOImpl.getOrder(oldDate, 7).getCustomerName());
+    assertNotNull(ordersDAOImpl.removeOrder(oldDate, 6));
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(oldDate).size());
+
+    // Archived again, the removed order is gone from the number index as well
+    ordersDAOImpl.archiveOrdersBefore(LocalDate.of(2024, 1, 1));
+    assertNull(ordersDAOImpl.getOrderDate(6));
+    assertEquals(oldDate, ordersDAOImpl.getOrderDate(7));
+  }
+
+  @Test
+  public void testLazyDateCache() throws Exception {
+    OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl(freshOrderNumbers());
+    LocalDate[] dates = {LocalDate.of(2020, 1, 10), LocalDate.of(2020, 1, 11), LocalDate.of(2020, 1, 12)};
+    for (int i = 0; i < dates.length; i++) {
+      auditDAOImpl.addOrder(dates[i], new Order(900 + i, "John Doe", "FL", "Tile", BigDecimal.valueOf(150)));
+    }
+
+    try {
+      ordersDAOImpl.setCacheMaxDates(2);
+      ordersDAOImpl.loadOrdersLazily(auditDAOImpl);
+      DateCache cache = ordersDAOImpl.getDateCache();
+
+      // Dates are known up front but only read from their file on first use
+      assertTrue(OrdersDAOImpl.containsDate(dates[2]));
+      assertEquals(0, cache.getResidentDates());
+      assertEquals("John Doe", ordersDAOImpl.getOrder(dates[0], 900).getCustomerName());
+      ordersDAOImpl.getOrder(dates[0], 900);
+      assertEquals(1, cache.getMisses());
+      assertEquals(1, cache.getHits());
+
+      // A third date evicts the least recently used one, which is read back when needed
+      ordersDAOImpl.getOrder(dates[1], 901);
+      ordersDAOImpl.getOrder(dates[2], 902);
+      assertEquals(2, cache.getResidentDates());
+      assertEquals(1, cache.getEvictions());
+      assertEquals(dates[0], ordersDAOImpl.getOrderDate(900));
+      assertNotNull(ordersDAOImpl.getOrder(900));
+      assertEquals(4, cache.getMisses());
+
+      // Unwritten changes and pins keep a date in memory, even over the bound
+      ordersDAOImpl.pinDate(dates[0]);
+      ordersDAOImpl.editAnOrder(dates[1], 901, "Jane Doe, , , ");
+      long misses = cache.getMisses();
+      assertEquals("Jane Doe", ordersDAOImpl.getOrder(dates[1], 901).getCustomerName());
+      assertNotNull(ordersDAOImpl.getOrder(dates[2], 902));
+      assertNotNull(ordersDAOImpl.getOrder(dates[0], 900));
+      assertEquals(misses + 1, cache.getMisses());
+      assertEquals(2, cache.getResidentDates());
+
+      // Once released, they are evicted like any other date
+      ordersDAOImpl.unpinDate(dates[0]);
+      ordersDAOImpl.markPersisted(dates[1]);
+      ordersDAOImpl.getOrder(dates[2], 902);
+      assertEquals(2, cache.getResidentDates());
+      assertEquals(misses + 2, cache.getMisses());
+      assertTrue(cache.getStats().contains("evictions"));
+
+      // Evicted dates stay indexed
+      List<Integer> found = orderNumbers(ordersDAOImpl.findOrders("John Doe", "FL", null));
+      assertTrue(found.containsAll(Arrays.asList(900, 902)));
+      assertFalse(found.contains(901));
+
+      // Repricing a date without changing a value leaves nothing to write, so it can still be evicted
+      ordersDAOImpl.getOrder(dates[0], 900);
+      assertEquals(1, ordersDAOImpl.repriceOrders(dates[0], Collections.singleton(900)).size());
+      ordersDAOImpl.getOrder(dates[1], 901);
+      ordersDAOImpl.getOrder(dates[2], 902);
+      assertEquals(2, cache.getResidentDates());
+      misses = cache.getMisses();
+      ordersDAOImpl.getOrder(dates[0], 900);
+      assertEquals(misses + 1, cache.getMisses());
+
+      // Orders of dates not read yet since loading are still found by their number alone
+      ordersDAOImpl.loadOrdersLazily(auditDAOImpl);
+      assertEquals(0, ordersDAOImpl.getDateCache().getResidentDates());
+      assertEquals(dates[2], ordersDAOImpl.getOrderDate(902));
+      assertEquals(901, ordersDAOImpl.getOrder(901).getOrderNumber());
+      assertNull(ordersDAOImpl.getOrderDate(999_999));
+    } finally {
+      ordersDAOImpl.setCacheMaxDates(0);
+      ordersDAOImpl.loadOrders(new HashMap<>());
+      for (LocalDate date : dates) {
+        new File("src\\main\\java\\Orders\\Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt").delete();
+      }
+    }
+  }
+
+  @Test
+  public void testOrderNumbersSurviveRestart() throws IOException {
+    File highWaterMark = File.createTempFile("OrderNumbers", ".dat");
+
+    // Two allocators on the same file, as after a restart or in a second process
+    OrderNumberAllocator first = new OrderNumberAllocator(highWaterMark, 4);
+    assertEquals(1, first.next());
+    assertEquals(2, first.next());
+    OrderNumberAllocator second = new OrderNumberAllocator(highWaterMark, 4);
+    assertEquals(5, second.next());
+    assertEquals(3, first.next());
+    assertEquals(4, first.next());
+    assertEquals(9, first.next());
+
+    // Numbers already used by loaded orders are skipped
+    second.advancePast(20);
+    assertEquals(21, second.next());
+    highWaterMark.delete();
+  }
+
+  /**
+   * Returns an allocator on a new high-water mark file, so order numbering starts at 1.
+   */
+  private static OrderNumberAllocator freshOrderNumbers() throws IOException {
+    File highWaterMark = File.createTempFile("OrderNumbers", ".dat");
+    highWaterMark.deleteOnExit();
+    return new OrderNumberAllocator(highWaterMark);
+  }
+}
@@ -0,0 +1,312 @@
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import Model.DAO.FileDAOImpl;
+import Model.DAO.ProductsDAO;
+import Model.DAO.TaxesDAO;
+import Model.Order;
+import Model.PricingEngine;
+import Model.Product;
+import Model.Quote;
+import Model.QuoteBatch;
+import Model.QuoteCache;
+import Model.RateMatrix;
+import Model.Tax;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PricingEngineTest {
+  private static final int ROUNDS = 200_000;
+  FileDAOImpl auditDAOImpl = new FileDAOImpl();
+
+  /**
+   * The BigDecimal formulas Order.set() priced orders with before the PricingEngine,
+   * labor charged at the cost per square foot and the tax rate not divided by 100.
+   */
+  private static BigDecimal[] bigDecimalCosts(BigDecimal area, BigDecimal catalogCost, BigDecimal taxRate) {
+    BigDecimal costPerSquareFoot = catalogCost.setScale(2, RoundingMode.HALF_UP);
+    BigDecimal laborCostPerSquareFoot = catalogCost.setScale(2, RoundingMode.HALF_UP);
+    BigDecimal materialCost = area.multiply(costPerSquareFoot).setScale(2, RoundingMode.HALF_UP);
+    BigDecimal laborCost = area.multiply(laborCostPerSquareFoot).setScale(2, RoundingMode.HALF_UP);
+    BigDecimal tax = (materialCost.add(laborCost)).multiply(taxRate).setScale(2, RoundingMode.HALF_UP);
+    BigDecimal total = (materialCost.add(laborCost)).add(tax).setScale(2, RoundingMode.HALF_UP);
+    return new BigDecimal[] {materialCost, laborCost, tax, total};
+  }
+
+  /**
+   * Prices like PricingEngine.price(Order), returning whether the fixed-point
+   * arithmetic was used.
+   */
+  private static boolean engineCosts(BigDecimal area, Product product, Tax tax, BigDecimal[] costs) {
+    long[] quote = new long[PricingEngine.QUOTE_SIZE];
+    if (PricingEngine.quote(area, product, tax, quote)) {
+      for (int i = 0; i < quote.length; i++) {
+        costs[i] = BigDecimal.valueOf(quote[i], 2);
+      }
+      return true;
+    }
+    System.arraycopy(PricingEngine.priceExactly(area, product, tax), 0, costs, 0, costs.length);
+    return false;
+  }
+
+  private static void assertSameCosts(BigDecimal area, BigDecimal catalogCost, BigDecimal taxRate) {
+    BigDecimal costPerSquareFoot = catalogCost.setScale(2, RoundingMode.HALF_UP);
+    BigDecimal[] expected = bigDecimalCosts(area, catalogCost, taxRate);
+    BigDecimal[] actual = new BigDecimal[PricingEngine.QUOTE_SIZE];
+    engineCosts(area, new Product("Test", costPerSquareFoot, costPerSquareFoot), new Tax("TS", "Test", taxRate), actual);
+    for (int i = 0; i < expected.length; i++) {
+      // equals compares the scale too, so the values print the same
+      String inputs = area + " sq ft at " + catalogCost + " taxed " + taxRate;
+      assertEquals(expected[i], actual[i], inputs);
+      assertEquals(expected[i].toString(), actual[i].toString(), inputs);
+    }
+  }
+
+  private static BigDecimal randomDecimal(Random random, long bound, int minScale, int maxScale) {
+    long unscaled = (long) (random.nextDouble() * bound);
+    if (random.nextInt(8) == 0) {
+      unscaled = -unscaled;
+    }
+    return BigDecimal.valueOf(unscaled, minScale + random.nextInt(maxScale - minScale + 1));
+  }
+
+  @Test
+  public void testRandomInputsMatchBigDecimal() {
+    Random random = new Random(20260318L);
+    long[] areaBounds = {1_000L, 10_000_000L, 1_000_000_000_000L, 100_000_000_000_000_000L};
+    int fixedPoint = 0;
+    for (int i = 0; i < ROUNDS; i++) {
+      BigDecimal area = randomDecimal(random, areaBounds[random.nextInt(areaBounds.length)], -3, 6);
+      BigDecimal catalogCost = randomDecimal(random, 100_000L, 0, 4);
+      BigDecimal taxRate = randomDecimal(random, 10_000L, 0, 4);
+
+      BigDecimal costPerSquareFoot = catalogCost.setScale(2, RoundingMode.HALF_UP);
+      BigDecimal[] expected = bigDecimalCosts(area, catalogCost, taxRate);
+      BigDecimal[] actual = new BigDecimal[PricingEngine.QUOTE_SIZE];
+      if (engineCosts(area, new Product("Test", costPerSquareFoot, costPerSquareFoot),
+              new Tax("TS", "Test", taxRate), actual)) {
+        fixedPoint++;
+      }
+      for (int j = 0; j < expected.length; j++) {
+        assertEquals(expected[j], actual[j], area + " sq ft at " + catalogCost + " taxed " + taxRate);
+      }
+    }
+    // Only the largest areas may overflow into the BigDecimal fallback
+    assertTrue(fixedPoint > ROUNDS / 2, fixedPoint + " of " + ROUNDS);
+  }
+
+  @Test
+  public void testHalfCentsRoundAwayFromZero() {
+    // 0.125 * 1.00 and its negative fall exactly halfway between two cents
+    assertSameCosts(new BigDecimal("0.125"), new BigDecimal("1.00"), new BigDecimal("0.2"));
+    assertSameCosts(new BigDecimal("-0.125"), new BigDecimal("1.00"), new BigDecimal("0.2"));
+    assertSameCosts(new BigDecimal("0.124999"), new BigDecimal("1.00"), new BigDecimal("6.25"));
+    assertSameCosts(new BigDecimal("0.005"), new BigDecimal("1"), new BigDecimal("0.5"));
+    assertSameCosts(new BigDecimal("-0.005"), new BigDecimal("1"), new BigDecimal("0.5"));
+    assertSameCosts(new BigDecimal("0.000000000000000005"), new BigDecimal("1000000"), new BigDecimal("1"));
+    // A catalog cost with a fraction of a cent is rounded before it is charged
+    assertSameCosts(new BigDecimal("100.00"), new BigDecimal("3.955"), new BigDecimal("6.25"));
+    assertSameCosts(new BigDecimal("100.00"), new BigDecimal("3.9549"), new BigDecimal("6.25"));
+  }
+
+  @Test
+  public void testScalesAndMagnitudesOutsideFixedPointFallBack() {
+    long[] quote = new long[PricingEngine.QUOTE_SIZE];
+    Product product = new Product("Test", new BigDecimal("5.15"), new BigDecimal("5.15"));
+    Tax tax = new Tax("TS", "Test", new BigDecimal("6.25"));
+
+    assertTrue(PricingEngine.quote(new BigDecimal("1E+3"), product, tax, quote));
+    assertFalse(PricingEngine.quote(new BigDecimal("1E+30"), product, tax, quote));
+    assertFalse(PricingEngine.quote(new BigDecimal("0.0000000000000000001"), product, tax, quote));
+    assertFalse(PricingEngine.quote(BigDecimal.valueOf(Long.MAX_VALUE / 100), product, tax, quote));
+    assertFalse(PricingEngine.quote(new BigDecimal("100"), new Product("Test", new BigDecimal("5.155"),
+            new BigDecimal("5.15")), tax, quote));
+    assertFalse(PricingEngine.quote(new BigDecimal("100"), product,
+            new Tax("TS", "Test", new BigDecimal("1E-20")), quote));
+
+    // Whichever way they are priced, the costs are the BigDecimal ones
+    assertSameCosts(new BigDecimal("1E+3"), new BigDecimal("5.15"), new BigDecimal("6.25"));
+    assertSameCosts(new BigDecimal("1E+30"), new BigDecimal("5.15"), new BigDecimal("6.25"));
+    assertSameCosts(new BigDecimal("0.0000000000000000001"), new BigDecimal("5.15"), new BigDecimal("6.25"));
+    assertSameCosts(BigDecimal.valueOf(Long.MAX_VALUE / 100), new BigDecimal("5.15"), new BigDecimal("6.25"));
+    assertSameCosts(new BigDecimal("100"), new BigDecimal("5.15"), new BigDecimal("1E-20"));
+    assertSameCosts(new BigDecimal("123456789.5"), new BigDecimal("99999.99"), new BigDecimal("99.9999"));
+  }
+
+  @Test
+  public void testOrdersPricedAsBefore() {
+    assertEquals(15, ProductsDAO.productLibrary.size());
+    for (String productType : ProductsDAO.productLibrary.keySet()) {
+      for (String state : TaxesDAO.taxLibrary.keySet()) {
+        BigDecimal catalogCost = ProductsDAO.getProduct(productType).getCostPerSquareFoot();
+        BigDecimal taxRate = TaxesDAO.getTax(state).getTaxRate();
+
+        Order order = new Order(1, "John Doe", state, productType, new BigDecimal("123.456"));
+        BigDecimal[] expected = bigDecimalCosts(new BigDecimal("123.46"), catalogCost, taxRate);
+        assertEquals(expected[0], order.getMaterialCost());
+        assertEquals(expected[1], order.getLaborCost());
+        assertEquals(expected[2], order.getTax());
+        assertEquals(expected[3], order.getTotal());
+        assertSame(TaxesDAO.getTax(state), order.getStateTax());
+        assertSame(PricingEngine.pricedProduct(ProductsDAO.getProduct(productType)), order.getProduct());
+
+        // An edited area keeps the scale of the number typed in
+        BigDecimal editedArea = BigDecimal.valueOf(Double.valueOf("300.0"));
+        order.setArea(editedArea);
+        order.set();
+        expected = bigDecimalCosts(editedArea, catalogCost, taxRate);
+        assertEquals(expected[0], order.getMaterialCost());
+        assertEquals(expected[1], order.getLaborCost());
+        assertEquals(expected[2], order.getTax());
+        assertEquals(expected[3], order.getTotal());
+      }
+    }
+  }
+
+  @Test
+  public void testRateMatrixCompiledAgainWhenCatalogChanges() {
+    RateMatrix rates = RateMatrix.current();
+    assertSame(rates, RateMatrix.current());
+    assertEquals(-1, rates.cell("Carpet of Gold", "IL"));
+    assertEquals(-1, rates.cell("Bamboo", "AC"));
+    assertNull(rates.product(-1));
+
+    long[] expected = new long[PricingEngine.QUOTE_SIZE];
+    long[] actual = new long[PricingEngine.QUOTE_SIZE];
+    BigDecimal area = new BigDecimal("187.35");
+    for (String productType : ProductsDAO.productLibrary.keySet()) {
+      for (String state : TaxesDAO.taxLibrary.keySet()) {
+        int cell = rates.cell(productType, state);
+        assertEquals(cell, rates.cell(rates.productCode(productType), rates.stateCode(state)));
+        assertSame(PricingEngine.pricedProduct(ProductsDAO.getProduct(productType)), rates.product(cell));
+        assertSame(TaxesDAO.getTax(state), rates.state(cell));
+
+        assertTrue(PricingEngine.quote(area, rates.product(cell), rates.state(cell), expected));
+        assertTrue(rates.quote(cell, area, actual));
+        assertArrayEquals(expected, actual);
+        assertTrue(rates.quote(cell, 18735, 2, actual));
+        assertArrayEquals(expected, actual);
+      }
+    }
+
+    // Adding a product again publishes a new matrix and leaves the old one as it was
+    Product bamboo = ProductsDAO.getProduct("Bamboo");
+    int cell = rates.cell("Bamboo", "IL");
+    ProductsDAO.addProduct("Bamboo", bamboo.getCostPerSquareFoot(), bamboo.getLaborCostPerSquareFoot());
+    RateMatrix recompiled = RateMatrix.current();
+    assertNotSame(rates, recompiled);
+    assertTrue(recompiled.version() > rates.version());
+    assertEquals(RateMatrix.catalogVersion(), recompiled.version());
+    assertSame(rates.product(cell), recompiled.product(recompiled.cell("Bamboo", "IL")));
+    assertTrue(rates.quote(cell, area, actual));
+    assertTrue(PricingEngine.quote(area, rates.product(cell), rates.state(cell), expected));
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  public void testBatchQuotesMatchOrders() {
+    RateMatrix rates = RateMatrix.current();
+    List<String> productTypes = new ArrayList<>(ProductsDAO.productLibrary.keySet());
+    List<String> states = new ArrayList<>(TaxesDAO.taxLibrary.keySet());
+    Random random = new Random(20260402L);
+    long[] areaBounds = {10_000L, 100_000_000_000L, 100_000_000_000_000_000L};
+
+    QuoteBatch batch = new QuoteBatch(rates, 5_000);
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      String productType = productTypes.get(random.nextInt(productTypes.size()));
+      String state = states.get(random.nextInt(states.size()));
+      BigDecimal area = randomDecimal(random, areaBounds[random.nextInt(areaBounds.length)], 0, 4);
+      if (i % 1_000 == 0) {
+        area = new BigDecimal("1E+25");
+      }
+      orders.add(new Order(i, "John Doe", state, productType, area));
+      assertEquals(i, batch.add(rates.cell(productType, state), area));
+    }
+    batch.price();
+
+    int fixedPoint = 0;
+    for (int row = 0; row < batch.size(); row++) {
+      Order order = orders.get(row);
+      Quote quote = batch.quote(row);
+      assertSame(order.getProduct(), rates.product(rates.cell(quote.getProductType(), quote.getState())));
+      assertEquals(order.getArea().toString(), quote.getArea().toString());
+      assertEquals(order.getMaterialCost().toString(), quote.getMaterialCost().toString(), order.toString());
+      assertEquals(order.getLaborCost().toString(), quote.getLaborCost().toString(), order.toString());
+      assertEquals(order.getTax().toString(), quote.getTax().toString(), order.toString());
+      assertEquals(order.getTotal().toString(), quote.getTotal().toString(), order.toString());
+      if (batch.isFixedPoint(row)) {
+        fixedPoint++;
+        assertEquals(order.getTotal(), BigDecimal.valueOf(batch.cents(row, PricingEngine.TOTAL), 2));
+      }
+    }
+    assertTrue(fixedPoint > batch.size() / 2, fixedPoint + " of " + batch.size());
+    assertFalse(batch.isFixedPoint(0));
+
+    batch.clear();
+    assertEquals(0, batch.add(rates.cell("Bamboo", "IL"), 12_345L));
+    batch.price();
+    assertTrue(batch.isFixedPoint(0));
+    assertEquals(new Order(1, "John Doe", "IL", "Bamboo", new BigDecimal("123.45")).getTotal(),
+            batch.quote(0).getTotal());
+    assertThrows(IllegalArgumentException.class, () -> batch.add(-1, 100L));
+  }
+
+  @Test
+  public void testQuoteCacheHitsEvictsAndInvalidates() {
+    QuoteCache cache = new QuoteCache(32);
+    RateMatrix rates = RateMatrix.current();
+    int cell = rates.cell("Bamboo", "IL");
+
+    Quote quote = cache.quote(rates, cell, new BigDecimal("150"));
+    Order order = new Order(1, "John Doe", "IL", "Bamboo", new BigDecimal("150"));
+    assertEquals(order.getArea(), quote.getArea());
+    assertEquals(order.getTotal(), quote.getTotal());
+    assertSame(order.getProduct(), quote.getProduct());
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    // The same area typed with another scale is the same quote
+    assertSame(quote, cache.quote(rates, cell, new BigDecimal("150.00")));
+    assertSame(quote, cache.quote(rates, cell, new BigDecimal("149.995")));
+    assertEquals(2, cache.getHits());
+    Order quoted = new Order(2, "Jane Doe", cache.quote(rates, cell, new BigDecimal("150")));
+    assertEquals(order.getTotal(), quoted.getTotal());
+    assertEquals(order.getTax(), quoted.getTax());
+    assertSame(order.getStateTax(), quoted.getStateTax());
+
+    // Two segments' worth of distinct areas push the oldest ones out
+    for (int i = 0; i < 100; i++) {
+      cache.quote(rates, cell, BigDecimal.valueOf(1_000 + i));
+    }
+    assertTrue(cache.getEvictions() > 0);
+    assertTrue(cache.getSize() <= 32, cache.getStats());
+
+    // A catalog reload empties the cache and quotes of the old matrix are not kept
+    Product bamboo = ProductsDAO.getProduct("Bamboo");
+    ProductsDAO.addProduct("Bamboo", bamboo.getCostPerSquareFoot(), bamboo.getLaborCostPerSquareFoot());
+    RateMatrix reloaded = RateMatrix.current();
+    long misses = cache.getMisses();
+    Quote requoted = cache.quote(reloaded, reloaded.cell("Bamboo", "IL"), new BigDecimal("150"));
+    assertNotSame(quote, requoted);
+    assertEquals(quote.getTotal(), requoted.getTotal());
+    assertEquals(misses + 1, cache.getMisses());
+    assertEquals(2, cache.getInvalidations());
+    assertEquals(1, cache.getSize());
+    assertNull(cache.get(rates, cell, new BigDecimal("150")));
+    cache.put(rates, cell, new BigDecimal("150"), quote);
+    assertSame(requoted, cache.get(reloaded, reloaded.cell("Bamboo", "IL"), new BigDecimal("150")));
+  }
+}
@@ -0,0 +1,116 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import Exceptions.ModelExceptions;
+import Model.DAO.FileDAOImpl;
+import Model.DAO.ProductsDAO;
+import Model.DAO.TaxesDAO;
+import Model.Order;
+import Model.PricingEngine;
+import Model.QuoteBatch;
+import Model.QuoteRequest;
+import Model.RateMatrix;
+
+/**
+ * Compares pricing a batch of quotes with a {@link QuoteBatch} to pricing every one
+ * of them as an order through {@code Order.set()}. Run from the project directory, so
+ * the product and tax files are found, with {@code main} or the JMH runner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuoteBenchmark {
+  @Param({"100", "10000"})
+  int batchSize;
+
+  private List<QuoteRequest> requests;
+  private RateMatrix rates;
+  private int[] cells;
+  private long[] hundredths;
+  private QuoteBatch batch;
+
+  @Setup
+  public void setUp() throws ModelExceptions {
+    new FileDAOImpl().reloadCatalog();
+    rates = RateMatrix.current();
+    List<String> productTypes = new ArrayList<>(ProductsDAO.productLibrary.keySet());
+    List<String> states = new ArrayList<>(TaxesDAO.taxLibrary.keySet());
+
+    Random random = new Random(42);
+    requests = new ArrayList<>(batchSize);
+    cells = new int[batchSize];
+    hundredths = new long[batchSize];
+    for (int i = 0; i < batchSize; i++) {
+      String productType = productTypes.get(random.nextInt(productTypes.size()));
+      String state = states.get(random.nextInt(states.size()));
+      BigDecimal area = BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2);
+      requests.add(new QuoteRequest(productType, state, area));
+      cells[i] = rates.cell(productType, state);
+      hundredths[i] = area.unscaledValue().longValue();
+    }
+    batch = new QuoteBatch(rates, batchSize);
+  }
+
+  /** Every request priced as an order, the way the service prices one it adds. */
+  @Benchmark
+  public void orders(Blackhole blackhole) {
+    for (int i = 0; i < requests.size(); i++) {
+      QuoteRequest request = requests.get(i);
+      blackhole.consume(new Order(i, "Quote", request.getState(), request.getProductType(), request.getArea()));
+    }
+  }
+
+  /** The requests priced as the service's quote call does, ending with a Quote each. */
+  @Benchmark
+  public void batchQuotes(Blackhole blackhole) {
+    QuoteBatch quotes = new QuoteBatch(rates, requests.size());
+    for (QuoteRequest request : requests) {
+      quotes.add(rates.cell(request.getProductType(), request.getState()), request.getArea());
+    }
+    quotes.price();
+    for (int row = 0; row < quotes.size(); row++) {
+      blackhole.consume(quotes.quote(row));
+    }
+  }
+
+  /** The primitive columns alone, cells and areas already resolved, totals in cents. */
+  @Benchmark
+  public long batchCents() {
+    batch.clear();
+    for (int i = 0; i < cells.length; i++) {
+      batch.add(cells[i], hundredths[i]);
+    }
+    batch.price();
+    long sum = 0;
+    for (int row = 0; row < batch.size(); row++) {
+      sum += batch.cents(row, PricingEngine.TOTAL);
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(QuoteBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -5,11 +5,14 @@ import java.math.BigDecimal;
 import Model.DAO.FileDAOImpl;
 import Model.DAO.ProductsDAO;
 import Model.DAO.TaxesDAO;
+import Model.Order;
 import Model.Product;
 import Model.Tax;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class TaxesAndProductDAOTest {
   FileDAOImpl auditDAOImpl = new FileDAOImpl();
@@ -40,4 +43,34 @@ public class TaxesAndProductDAOTest {
     // checks to see if it will return false if trying to get a product that is not in the library.
     assertFalse(TaxesDAO.taxLibrary.containsKey("AC"));
   }
+
+  @Test
+  public void testOrdersShareCatalogEntries() {
+    Order order = new Order(1, "John Doe", "IL", "Bamboo", BigDecimal.valueOf(100));
+    Order order2 = new Order(2, "Jane Doe", "IL", "Bamboo", BigDecimal.valueOf(250));
+
+    // Orders priced alike reference one entry, the library entry where the values match
+    assertSame(TaxesDAO.getTax("IL"), order.getStateTax());
+    assertSame(order.getStateTax(), order2.getStateTax());
+    assertSame(order.getProduct(), order2.getProduct());
+    assertEquals(order.getProduct().getCostPerSquareFoot(), order.getCostPerSquareFoot());
+
+    // Orders read back at old prices share an entry of their own
+    Order old = new Order(3, "Jim Doe", "IL", new BigDecimal("6.00"), "Bamboo", new BigDecimal("100.00"),
+            new BigDecimal("3.50"), new BigDecimal("4.00"), new BigDecimal("350.00"), new BigDecimal("400.00"),
+            new BigDecimal("45.00"), new BigDecimal("795.00"));
+    Order old2 = new Order(4, "Joan Doe", "IL", new BigDecimal("6.00"), "Bamboo", new BigDecimal("200.00"),
+            new BigDecimal("3.50"), new BigDecimal("4.00"), new BigDecimal("700.00"), new BigDecimal("800.00"),
+            new BigDecimal("90.00"), new BigDecimal("1590.00"));
+    assertNotSame(order.getStateTax(), old.getStateTax());
+    assertSame(old.getStateTax(), old2.getStateTax());
+    assertSame(old.getProduct(), old2.getProduct());
+    assertEquals("Illinois", old.getStateTax().getStateName());
+    assertEquals(new BigDecimal("4.00"), old.getLaborCostPerSquareFoot());
+
+    // Changing one order's values moves it to another entry without touching the others
+    old.setTaxRate(BigDecimal.valueOf(6.25));
+    assertSame(TaxesDAO.getTax("IL"), old.getStateTax());
+    assertEquals(new BigDecimal("6.00"), old2.getTaxRate());
+  }
 }
\ No newline at end of file
@@ -2,16 +2,29 @@ import Exceptions.ModelExceptions;
 import Exceptions.ServiceExceptions;
 import Model.DAO.FileDAOImpl;
 import Model.DAO.OrdersDAOImpl;
+import Model.DAO.OrderNumberAllocator;
 import Model.Order;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import Service.FlooringMasteryServiceImpl;
+import Service.PersistencePipeline;
 import View.FlooringMasteryViewImpl;
 import View.UserIO.UserIOImpl;
 
@@ -21,7 +34,7 @@ import static org.mockito.Mockito.*;
 // TESTS MUST BE RUN ONE AT A TIME!
 public class ViewAndServiceLayerTest {
   FileDAOImpl auditDAOImpl = new FileDAOImpl();
-  OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl();
+  OrdersDAOImpl ordersDAOImpl = new OrdersDAOImpl(freshOrderNumbers());
   private FlooringMasteryServiceImpl service = new FlooringMasteryServiceImpl(ordersDAOImpl, auditDAOImpl);
   private UserIOImpl mockUserIOImpl = Mockito.mock(UserIOImpl.class);
   private FlooringMasteryViewImpl view = new FlooringMasteryViewImpl(mockUserIOImpl);
@@ -43,11 +56,14 @@ public class ViewAndServiceLayerTest {
             "* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\n" +
                     "* <<Flooring Program>>\n" +
                     "* 1. Display Orders\n" +
-                    "* 2. Add an Order\n" +
-                    "* 3. Edit an Order\n" +
-                    "* 4. Remove an Order\n" +
-                    "* 5. Export All Data\n" +
-                    "* 6. Quit\n" +
+                    "* 2. Display Orders Between Two Dates\n" +
+                    "* 3. Display Orders of a Month\n" +
+                    "* 4. Add an Order\n" +
+                    "* 5. Edit an Order\n" +
+                    "* 6. Remove an Order\n" +
+                    "* 7. Export All Data\n" +
+                    "* 8. Search Orders by Customer Name\n" +
+                    "* 9. Quit\n" +
                     "* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *"))
             .thenReturn(1); // Assuming this is the display option
 
@@ -62,7 +78,7 @@ public class ViewAndServiceLayerTest {
 
     // Assertions to verify the expected behavior
     assertEquals(this.ordersDAOImpl.getOrder(date, 1).toString(), order);
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
   }
 
   // Scenario where user adds an order, removes it, then looks to display orders with the same date
@@ -72,8 +88,8 @@ public class ViewAndServiceLayerTest {
     LocalDate date = LocalDate.parse("02/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
     this.ordersDAOImpl.addOrder(date, "Jane Doe", "IL", "Bamboo", BigDecimal.valueOf(100));
     this.ordersDAOImpl.removeOrder(date, 1);
-    assertEquals(0, OrdersDAOImpl.orderStorage.get(date).size());
-    assertEquals(1, OrdersDAOImpl.orderStorage.size());
+    assertEquals(0, OrdersDAOImpl.getOrdersForDate(date).size());
+    assertEquals(1, OrdersDAOImpl.getDateCount());
 
     when(mockUserIOImpl.readString("Please Enter An Existing Order Date [MM/DD/YYYY]:"))
             .thenReturn("02/25/2025");
@@ -90,7 +106,7 @@ public class ViewAndServiceLayerTest {
 
   @Test
   public void testAddOrder() throws ServiceExceptions {
-    assertEquals(0, OrdersDAOImpl.orderStorage.size());
+    assertEquals(0, OrdersDAOImpl.getDateCount());
     LocalDate date = LocalDate.parse("02/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
 
     // ** testing getFutureDate private method ** --------------------------------------------------
@@ -134,15 +150,15 @@ public class ViewAndServiceLayerTest {
     Order order = service.addOrder(result);
 
     assertEquals(ordersDAOImpl.getOrder(date, 1), order);
-    assertEquals(1, OrdersDAOImpl.orderStorage.size());
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getDateCount());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
   }
 
   @Test
   public void testAddOrderWithDiffDate() throws ServiceExceptions {
     LocalDate date = LocalDate.parse("02/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
     this.ordersDAOImpl.addOrder(date, "Jane Doe", "IL", "Bamboo", BigDecimal.valueOf(100));
-    assertEquals(1, OrdersDAOImpl.orderStorage.size());
+    assertEquals(1, OrdersDAOImpl.getDateCount());
 
     LocalDate dateTwo = LocalDate.parse("12/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
 
@@ -172,8 +188,8 @@ public class ViewAndServiceLayerTest {
     Order order = service.addOrder(result);
 
     assertEquals(ordersDAOImpl.getOrder(dateTwo, 2), order);
-    assertEquals(2, OrdersDAOImpl.orderStorage.size());
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(dateTwo).size());
+    assertEquals(2, OrdersDAOImpl.getDateCount());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(dateTwo).size());
   }
 
   // Scenario user types 'y'
@@ -181,7 +197,7 @@ public class ViewAndServiceLayerTest {
   public void testEditOrderY() throws ServiceExceptions {
     LocalDate date = LocalDate.parse("02/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
     this.ordersDAOImpl.addOrder(date, "Jane Doe", "IL", "Bamboo", BigDecimal.valueOf(100));
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
 
     // Mocking the input for existing order retrieval
     when(mockUserIOImpl.readString(contains("Please Enter An Existing Order Date [MM/DD/YYYY]")))
@@ -218,7 +234,7 @@ public class ViewAndServiceLayerTest {
 
     // Validate the order retrieval and size remains unchanged
     assertEquals(ordersDAOImpl.getOrder(date, 1), order);
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
   }
 
   // Scenario user types 'n'
@@ -226,7 +242,7 @@ public class ViewAndServiceLayerTest {
   public void testEditOrderN() throws ServiceExceptions {
     LocalDate date = LocalDate.parse("02/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
     this.ordersDAOImpl.addOrder(date, "Jane Doe", "IL", "Bamboo", BigDecimal.valueOf(100));
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
 
     // Mocking the input for existing order retrieval
     when(mockUserIOImpl.readString(contains("Please Enter An Existing Order Date [MM/DD/YYYY]")))
@@ -256,7 +272,7 @@ public class ViewAndServiceLayerTest {
     assertEquals("Bamboo", ordersDAOImpl.getOrder(date, 1).getProductType());
     assertEquals(new BigDecimal("100.00"), ordersDAOImpl.getOrder(date, 1).getArea());
 
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
   }
 
   // Scenario user does not update all four fields
@@ -264,7 +280,7 @@ public class ViewAndServiceLayerTest {
   public void testEditOrderTwoFields() throws ServiceExceptions {
     LocalDate date = LocalDate.parse("02/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
     this.ordersDAOImpl.addOrder(date, "Jane Doe", "IL", "Bamboo", BigDecimal.valueOf(100));
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
 
     // Mocking the input for existing order retrieval
     when(mockUserIOImpl.readString(contains("Please Enter An Existing Order Date [MM/DD/YYYY]")))
@@ -305,7 +321,7 @@ public class ViewAndServiceLayerTest {
     assertTrue(order.getArea().compareTo(BigDecimal.valueOf(100)) == 0);
 
     assertEquals(ordersDAOImpl.getOrder(date, 1), order);
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
   }
 
   // Scenario user types 'y'
@@ -314,8 +330,8 @@ public class ViewAndServiceLayerTest {
     LocalDate date = LocalDate.parse("02/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
     this.ordersDAOImpl.addOrder(date, "Jane Doe", "IL", "Bamboo", BigDecimal.valueOf(100));
     this.ordersDAOImpl.addOrder(date, "Anna Fisher", "NE", "Rubber", BigDecimal.valueOf(505));
-    this.auditDAOImpl.addOrder(date, OrdersDAOImpl.orderStorage.get(date).get(0));
-    assertEquals(2, OrdersDAOImpl.orderStorage.get(date).size());
+    this.auditDAOImpl.addOrder(date, OrdersDAOImpl.getOrdersForDate(date).get(0));
+    assertEquals(2, OrdersDAOImpl.getOrdersForDate(date).size());
 
     when(mockUserIOImpl.readString(anyString())).thenReturn("02/25/2025"); // Simulate date input
     when(mockUserIOImpl.readInt(anyString())).thenReturn(1); // Simulate order number input
@@ -335,10 +351,10 @@ public class ViewAndServiceLayerTest {
     service.removeOrder(result);
 
     // After removing "Jane Doe", ensure only "Anna Fisher" remains
-    assertEquals(1, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
 
     // Verify the details of the remaining order ("Anna Fisher")
-    Order remainingOrder = OrdersDAOImpl.orderStorage.get(date).get(0);
+    Order remainingOrder = OrdersDAOImpl.getOrdersForDate(date).get(0);
     assertEquals("Anna Fisher", remainingOrder.getCustomerName());
     assertEquals("NE", remainingOrder.getState());
     assertEquals("Rubber", remainingOrder.getProductType());
@@ -351,7 +367,7 @@ public class ViewAndServiceLayerTest {
     LocalDate date = LocalDate.parse("02/25/2025", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
     this.ordersDAOImpl.addOrder(date, "Jane Doe", "IL", "Bamboo", BigDecimal.valueOf(100));
     this.ordersDAOImpl.addOrder(date, "Anna Fisher", "NE", "Rubber", BigDecimal.valueOf(505));
-    assertEquals(2, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(2, OrdersDAOImpl.getOrdersForDate(date).size());
 
     when(mockUserIOImpl.readString("Please Enter An Existing Order Date [MM/DD/YYYY]: "))
             .thenReturn("02/25/2025");
@@ -371,9 +387,126 @@ public class ViewAndServiceLayerTest {
     }
 
     assertEquals(null, result);
-    assertEquals(2, OrdersDAOImpl.orderStorage.get(date).size());
+    assertEquals(2, OrdersDAOImpl.getOrdersForDate(date).size());
+  }
+
+  @Test
+  public void testDisplayOrdersForRangeAndMonth() {
+    when(mockUserIOImpl.readString(anyString())).thenReturn("");
+    when(mockUserIOImpl.readString("Enter First Date [MM/DD/YYYY]: "))
+            .thenReturn("13/01/2025") // Invalid input
+            .thenReturn("02/24/2025");
+    when(mockUserIOImpl.readString("Enter Last Date [MM/DD/YYYY]: ")).thenReturn("03/02/2025");
+    when(mockUserIOImpl.readString("Enter Month [MM/YYYY]: ")).thenReturn("02/2025");
+
+    JSONObject range = view.displayOrdersForRange();
+    assertEquals("02/24/2025", range.getString("from"));
+    assertEquals("03/02/2025", range.getString("to"));
+    assertEquals("02/2025", view.displayOrdersForMonth().getString("month"));
+  }
+
+  @Test
+  public void testAsyncAddAndRemoveOrder() throws ServiceExceptions, ModelExceptions {
+    LocalDate date = LocalDate.parse("12/25/2030", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+    FlooringMasteryServiceImpl asyncService = new FlooringMasteryServiceImpl(ordersDAOImpl, auditDAOImpl, 4);
+
+    JSONObject orderInfo = new JSONObject();
+    orderInfo.put("date", "12/25/2030");
+    orderInfo.put("name", "Jane Doe");
+    orderInfo.put("state", "TX");
+    orderInfo.put("product type", "Wood");
+    orderInfo.put("area", "200");
+
+    // The order is in memory right away and in the order file once its write completes
+    CompletableFuture<Order> added = asyncService.addOrderAsync(orderInfo);
+    assertEquals(1, OrdersDAOImpl.getOrdersForDate(date).size());
+    Order order = added.join();
+    assertEquals(order, ordersDAOImpl.getOrder(date, order.getOrderNumber()));
+    assertEquals(1, auditDAOImpl.readOrders(date).size());
+
+    JSONObject removeInfo = new JSONObject();
+    removeInfo.put("date", "12/25/2030");
+    removeInfo.put("order number", order.getOrderNumber());
+    CompletableFuture<Void> removed = asyncService.removeOrderAsync(removeInfo);
+
+    // Shutting down writes the removal that is still pending
+    asyncService.shutdown();
+    assertTrue(removed.isDone());
+    assertEquals(0, auditDAOImpl.readOrders(date).size());
+    new File("src\\main\\java\\Orders\\Orders_12252030.txt").delete();
+  }
+
+  @Test
+  public void testFailedWriteLeavesDateEvictable() throws ModelExceptions {
+    LocalDate[] dates = {LocalDate.of(2021, 1, 10), LocalDate.of(2021, 1, 11)};
+    for (int i = 0; i < dates.length; i++) {
+      auditDAOImpl.addOrder(dates[i], new Order(950 + i, "John Doe", "FL", "Tile", BigDecimal.valueOf(150)));
+    }
+    FileDAOImpl failingDAO = new FileDAOImpl() {
+      @Override
+      public void addOrder(LocalDate date, Order order) throws ModelExceptions {
+        throw new ModelExceptions("Unable to write the order file");
+      }
+    };
+    FlooringMasteryServiceImpl failingService = new FlooringMasteryServiceImpl(ordersDAOImpl, failingDAO);
+
+    JSONObject orderInfo = new JSONObject();
+    orderInfo.put("date", "01/10/2021");
+    orderInfo.put("name", "Jane Doe");
+    orderInfo.put("state", "TX");
+    orderInfo.put("product type", "Wood");
+    orderInfo.put("area", "200");
+
+    try {
+      ordersDAOImpl.setCacheMaxDates(1);
+      ordersDAOImpl.loadOrdersLazily(failingDAO);
+      assertThrows(ServiceExceptions.class, () -> failingService.addOrder(orderInfo));
+
+      // The change that could not be written does not keep its date in memory for good
+      ordersDAOImpl.getOrder(dates[1], 951);
+      assertEquals(1, ordersDAOImpl.getDateCache().getResidentDates());
+      assertEquals(1, OrdersDAOImpl.getOrdersForDate(dates[0]).size());
+    } finally {
+      ordersDAOImpl.setCacheMaxDates(0);
+      ordersDAOImpl.loadOrders(new HashMap<>());
+      for (LocalDate date : dates) {
+        new File("src\\main\\java\\Orders\\Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt").delete();
+      }
+    }
+  }
+
+  @Test
+  public void testClosedPipelineCompletesEveryWrite() throws Exception {
+    PersistencePipeline pipeline = new PersistencePipeline(auditDAOImpl, 4);
+    ExecutorService submitters = Executors.newFixedThreadPool(4);
+    List<Future<CompletableFuture<Void>>> handles = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      handles.add(submitters.submit(() -> pipeline.submit(fileDAO -> { })));
+    }
+    pipeline.close();
+    submitters.shutdown();
+
+    // Writes racing the close are either applied or rejected, none is left waiting
+    for (Future<CompletableFuture<Void>> handle : handles) {
+      try {
+        handle.get().get(5, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+    }
   }
 
   // Export functionality has been tested in the AuditDAOTest file
   // All actual logic is done in the AuditDAOImpl class, the service layer simply call that class
-}
\ No newline at end of file
+
+  // Order numbers are persisted, so each run numbers its orders from 1 in a new file
+  private static OrderNumberAllocator freshOrderNumbers() {
+    try {
+      File highWaterMark = File.createTempFile("OrderNumbers", ".dat");
+      highWaterMark.deleteOnExit();
+      return new OrderNumberAllocator(highWaterMark);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package App;
 
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import Controller.FlooringMasteryController;
@@ -20,8 +19,10 @@ public class App {
   * objects, service layer, and controller, then runs the program.
   */
   public static void main(String[] args) {
-    ApplicationContext ctx =
+    ClassPathXmlApplicationContext ctx =
             new ClassPathXmlApplicationContext("applicationContext.xml");
+    // Closing the context on exit lets the file DAO commit and close its order files
+    ctx.registerShutdownHook();
     FlooringMasteryController controller =
             ctx.getBean("controller", FlooringMasteryController.class);
     controller.runProgram();
@@ -5,6 +5,8 @@ import org.springframework.stereotype.Component;
 import org.json.JSONObject;
 
 import java.util.InputMismatchException;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 import Exceptions.ServiceExceptions;
 import Service.FlooringMasteryServiceImpl;
@@ -61,14 +63,32 @@ public class FlooringMasteryController {
           String result = service.displayOrders(date);
           view.userIOImpl.print(result);
           break;
-        case 2: // Add an order
+        case 2: // Display the orders of every date in a range, such as a week
+          JSONObject range = view.displayOrdersForRange();
+          if (range.getString("from").isEmpty() || range.getString("to").isEmpty()) {
+            break;
+          }
+          try {
+            printOrders(service.displayOrdersBetween(range));
+          } catch (ServiceExceptions e) {
+            view.userIOImpl.print(String.valueOf(e));
+          }
+          break;
+        case 3: // Display the orders of every date of a month
+          JSONObject month = view.displayOrdersForMonth();
+          if (month.getString("month").isEmpty()) {
+            break;
+          }
+          printOrders(service.displayOrdersInMonth(month));
+          break;
+        case 4: // Add an order
           try {
             view.userIOImpl.print(service.addOrder(view.addOrder()).toString());
           } catch (ServiceExceptions e) {
             view.userIOImpl.print(String.valueOf(e));
           }
           break;
-        case 3: // Edit an existing order
+        case 5: // Edit an existing order
           try {
             JSONObject orderInfo = view.editOrder(); // if JSON object is empty that means user typed 'n'
             if (orderInfo.length() != 0) {
@@ -78,7 +98,7 @@ public class FlooringMasteryController {
             view.userIOImpl.print(String.valueOf(e));
           }
           break;
-        case 4: // Remove an order
+        case 6: // Remove an order
           JSONObject orderInfo = view.removeOrder();
           boolean shouldRemove = view.displayOrder(service.getOrder(orderInfo));
           if (shouldRemove) { // checks to see if the user typed 'y' before editing the database & files
@@ -89,7 +109,7 @@ public class FlooringMasteryController {
             }
           }
           break;
-        case 5: // Export all existing order files to one file titled 'DataExport'
+        case 7: // Export all existing order files to one file titled 'DataExport'
           try {
             service.exportAllData();
             view.userIOImpl.print(" * Check the 'DataExport.txt' file in the 'Backup' folder for the complete order list *");
@@ -97,13 +117,33 @@ public class FlooringMasteryController {
             view.userIOImpl.print(String.valueOf(e));
           }
           break;
-        case 6: // Quit program
+        case 8: // Search orders by a customer name that is only partly known or misspelled
+          String found = service.searchCustomerNames(view.searchOrders());
+          view.userIOImpl.print(found.isEmpty() ? "    * No customer has a name like that. *" : found);
+          break;
+        case 9: // Quit program
           view.userIOImpl.print("\n *** Thank You for Your Business! ***");
           return;
         default:
-          view.userIOImpl.print("Invalid Input - If You Want To Quit Press 6");
+          view.userIOImpl.print("Invalid Input - If You Want To Quit Press 9");
           break;
       }
     }
   }
+
+  /**
+   * Prints the headings and orders of a range of dates line by line as they are read,
+   * or a note if the range has no orders.
+   */
+  private void printOrders(Stream<String> lines) {
+    try (Stream<String> orders = lines) {
+      Iterator<String> line = orders.iterator();
+      if (!line.hasNext()) {
+        view.userIOImpl.print("    * No orders were placed on those dates. *");
+      }
+      while (line.hasNext()) {
+        view.userIOImpl.print(line.next());
+      }
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,384 @@
+package Model.DAO;
+
+import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.io.BufferedWriter;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.io.File;
+
+import Exceptions.ModelExceptions;
+import Model.Order;
+
+/**
+ * The {@code BinaryFileDAOImpl} class is a {@link FileDAO} that stores orders in a
+ * compact fixed-width binary format instead of the comma separated text files.
+ *
+ * Each date has an 'Orders_MMddyyyy.dat' file of {@link BinaryOrderFormat} records and
+ * an 'Orders_MMddyyyy.heap' file holding the customer names, both in the 'Binary'
+ * folder. State abbreviations and product types are stored as codes from two shared
+ * {@link CodeDictionary} files. Because every record has the same size, an edit
+ * overwrites its record in place and a removal only sets the removed flag; neither
+ * has to read or rewrite the rest of the file. Catalog loading is inherited from
+ * {@link FileDAOImpl}, and {@link OrderFileConverter} translates between the two formats.
+ */
+public class BinaryFileDAOImpl extends FileDAOImpl {
+  private static final DateTimeFormatter EXPORT_DATE_FORMAT = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+
+  final CodeDictionary states;
+  final CodeDictionary products;
+  private final Map<LocalDate, Map<Integer, Integer>> slots = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a {@code BinaryFileDAOImpl}, loading the product and tax libraries and
+   * the state and product code dictionaries.
+   */
+  public BinaryFileDAOImpl() {
+    super();
+    try {
+      states = new CodeDictionary(new File(binaryDirectory(), "States.dict"));
+      products = new CodeDictionary(new File(binaryDirectory(), "Products.dict"));
+    } catch (IOException e) {
+      throw new RuntimeException("Binary order dictionaries could not be read!");
+    }
+  }
+
+  /**
+   * Appends the order as a new record to the binary file of the specified date.
+   *
+   * @param date the date of the order
+   * @param order the order to be added
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while writing to
+   * the file
+   */
+  @Override
+  public void addOrder(LocalDate date, Order order) throws ModelExceptions {
+    try {
+      Map<Integer, Integer> slotsForDate = slotsFor(date);
+      synchronized (slotsForDate) {
+        try (FileChannel data = FileChannel.open(dataFile(date).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+          int slot = (int) (data.size() / BinaryOrderFormat.RECORD_SIZE);
+          writeRecord(data, slot, date, order, null);
+          slotsForDate.put(order.getOrderNumber(), slot);
+        }
+      }
+    } catch (IOException e) {
+      throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".dat could not be written");
+    }
+  }
+
+  /**
+   * Overwrites the record of the order in the binary file of the specified date.
+   *
+   * @param date the date of the order to be edited
+   * @param order the updated order information
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading or
+   * writing to the file
+   */
+  @Override
+  public void editAnOrder(LocalDate date, Order order) throws ModelExceptions {
+    editOrders(date, Collections.singletonList(order));
+  }
+
+  /**
+   * Overwrites the records of several orders in the binary file of the specified date
+   * while the file is opened once.
+   *
+   * @param date the date of the orders to be edited
+   * @param orders the updated orders, all of that date
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading or
+   * writing to the file
+   */
+  @Override
+  public void editOrders(LocalDate date, List<Order> orders) throws ModelExceptions {
+    try {
+      Map<Integer, Integer> slotsForDate = slotsFor(date);
+      synchronized (slotsForDate) {
+        if (orders.stream().noneMatch(order -> slotsForDate.containsKey(order.getOrderNumber()))) {
+          return;
+        }
+
+        try (FileChannel data = FileChannel.open(dataFile(date).toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+          ByteBuffer previous = ByteBuffer.allocate(BinaryOrderFormat.RECORD_SIZE);
+          for (Order order : orders) {
+            Integer slot = slotsForDate.get(order.getOrderNumber());
+            if (slot == null) {
+              continue;
+            }
+            previous.clear();
+            readFully(data, previous, (long) slot * BinaryOrderFormat.RECORD_SIZE);
+            writeRecord(data, slot, date, order, previous);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".dat could not be written");
+    }
+  }
+
+  /**
+   * Sets the removed flag on the record of the order in the binary file of the
+   * specified date.
+   *
+   * @param date the date of the order to be removed
+   * @param orderNum the order number of the order to be removed
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while writing to
+   * the file
+   */
+  @Override
+  public void removeOrder(LocalDate date, int orderNum) throws ModelExceptions {
+    try {
+      Map<Integer, Integer> slotsForDate = slotsFor(date);
+      synchronized (slotsForDate) {
+        Integer slot = slotsForDate.remove(orderNum);
+        if (slot == null) {
+          return;
+        }
+
+        try (FileChannel data = FileChannel.open(dataFile(date).toPath(), StandardOpenOption.WRITE)) {
+          ByteBuffer flags = ByteBuffer.wrap(new byte[] {BinaryOrderFormat.REMOVED});
+          data.write(flags, (long) slot * BinaryOrderFormat.RECORD_SIZE + BinaryOrderFormat.FLAGS);
+        }
+      }
+    } catch (IOException e) {
+      throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".dat could not be written");
+    }
+  }
+
+  /**
+   * Reads every order that has not been removed from the binary file of the specified date.
+   *
+   * @param date the date of the orders to be read
+   * @return the orders for the date in file order, or an empty list if no file exists
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading
+   * the file
+   */
+  @Override
+  public List<Order> readOrders(LocalDate date) throws ModelExceptions {
+    List<Order> orders = new ArrayList<>();
+    File data = dataFile(date);
+    if (!data.exists()) {
+      return orders;
+    }
+
+    try {
+      ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(data.toPath()));
+      byte[] heap = readHeap(date);
+
+      int end = records.limit() - records.limit() % BinaryOrderFormat.RECORD_SIZE;
+      for (int position = 0; position < end; position += BinaryOrderFormat.RECORD_SIZE) {
+        if (!BinaryOrderFormat.isRemoved(records, position)) {
+          orders.add(BinaryOrderFormat.decode(records, position, heap, states, products));
+        }
+      }
+    } catch (IOException e) {
+      throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".dat could not be read");
+    }
+    return orders;
+  }
+
+  /**
+   * Reads every binary order file in parallel.
+   *
+   * @return the orders of every date that has a binary order file
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading
+   * any of the files
+   */
+  @Override
+  public Map<LocalDate, List<Order>> readAllOrders() throws ModelExceptions {
+    return new OrderFileLoader(this).load(dataFiles());
+  }
+
+  /**
+   * Returns the dates that have a binary order file.
+   *
+   * @return the stored dates in date order
+   */
+  @Override
+  public List<LocalDate> storedDates() {
+    List<LocalDate> dates = new ArrayList<>();
+    for (File data : dataFiles()) {
+      dates.add(LocalDate.parse(data.getName().substring(7, 15), DATE_FORMAT));
+    }
+    return dates;
+  }
+
+  /**
+   * Exports all order data from the binary order files into the 'DataExport' file, in
+   * the same text layout as the text order files.
+   *
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading or
+   * writing to the file
+   */
+  @Override
+  public void export() throws ModelExceptions {
+    try (BufferedWriter exportWriter = Files.newBufferedWriter(exportFile().toPath(), StandardCharsets.UTF_8)) {
+      for (File data : dataFiles()) {
+        LocalDate date = LocalDate.parse(data.getName().substring(7, 15), DATE_FORMAT);
+        String dateSuffix = "," + date.format(EXPORT_DATE_FORMAT);
+
+        for (Order order : readOrders(date)) {
+          exportWriter.write(formatOrder(order));
+          exportWriter.write(dateSuffix);
+          exportWriter.newLine();
+        }
+      }
+    } catch (IOException e) {
+      throw new ModelExceptions("Order files path changed");
+    }
+  }
+
+  /**
+   * Returns the binary record file for the specified date.
+   *
+   * @param date the date of the orders
+   * @return the 'Orders_MMddyyyy.dat' file for the date
+   */
+  File dataFile(LocalDate date) {
+    return new File(binaryDirectory(), "Orders_" + dateToString(date) + ".dat");
+  }
+
+  /**
+   * Returns the customer name heap for the specified date.
+   *
+   * @param date the date of the orders
+   * @return the 'Orders_MMddyyyy.heap' file for the date
+   */
+  File heapFile(LocalDate date) {
+    return new File(binaryDirectory(), "Orders_" + dateToString(date) + ".heap");
+  }
+
+  /**
+   * Reads the whole customer name heap of the specified date.
+   *
+   * @param date the date of the orders
+   * @return the heap contents, or an empty array if the heap does not exist
+   * @throws IOException if the heap cannot be read
+   */
+  byte[] readHeap(LocalDate date) throws IOException {
+    File heap = heapFile(date);
+    return heap.exists() ? Files.readAllBytes(heap.toPath()) : new byte[0];
+  }
+
+  /**
+   * Drops the cached record slots of a date after its files were replaced, such as by
+   * the {@link OrderFileConverter}.
+   *
+   * @param date the date whose files were replaced
+   */
+  void forget(LocalDate date) {
+    slots.remove(date);
+  }
+
+  /**
+   * Encodes an order into its record slot. The customer name is appended to the heap
+   * unless it is unchanged from the previous record in the slot.
+   *
+   * @param previous the record currently in the slot, or null for a new slot
+   */
+  private void writeRecord(FileChannel data, int slot, LocalDate date, Order order, ByteBuffer previous)
+          throws IOException {
+    byte[] name = order.getCustomerName().getBytes(StandardCharsets.UTF_8);
+    int nameOffset = -1;
+
+    if (previous != null) {
+      int previousOffset = previous.getInt(BinaryOrderFormat.NAME_OFFSET);
+      int previousLength = previous.getShort(BinaryOrderFormat.NAME_LENGTH) & 0xFFFF;
+      if (previousLength == name.length) {
+        byte[] heap = readHeap(date);
+        if (Arrays.equals(Arrays.copyOfRange(heap, previousOffset, previousOffset + previousLength), name)) {
+          nameOffset = previousOffset;
+        }
+      }
+    }
+
+    if (nameOffset < 0) {
+      try (FileChannel heap = FileChannel.open(heapFile(date).toPath(),
+              StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        long heapSize = heap.size();
+        if (heapSize + name.length > Integer.MAX_VALUE) {
+          throw new IOException("Customer name heap for Orders_" + dateToString(date) + " is full");
+        }
+        nameOffset = (int) heapSize;
+        writeFully(heap, ByteBuffer.wrap(name), heapSize);
+      }
+    }
+
+    ByteBuffer record = ByteBuffer.allocate(BinaryOrderFormat.RECORD_SIZE);
+    BinaryOrderFormat.encode(order, states.code(order.getState()), products.code(order.getProductType()),
+            nameOffset, name.length, record);
+    record.flip();
+    writeFully(data, record, (long) slot * BinaryOrderFormat.RECORD_SIZE);
+  }
+
+  /**
+   * Returns the order number to slot map of a date, scanning the order numbers and
+   * flags of its binary file on first use.
+   */
+  private Map<Integer, Integer> slotsFor(LocalDate date) throws IOException {
+    Map<Integer, Integer> slotsForDate = slots.get(date);
+    if (slotsForDate != null) {
+      return slotsForDate;
+    }
+
+    slotsForDate = new HashMap<>();
+    File data = dataFile(date);
+    if (data.exists()) {
+      ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(data.toPath()));
+      int count = records.limit() / BinaryOrderFormat.RECORD_SIZE;
+      for (int slot = 0; slot < count; slot++) {
+        int position = slot * BinaryOrderFormat.RECORD_SIZE;
+        if (!BinaryOrderFormat.isRemoved(records, position)) {
+          slotsForDate.put(BinaryOrderFormat.orderNumber(records, position), slot);
+        }
+      }
+    } else {
+      binaryDirectory().mkdirs();
+    }
+
+    Map<Integer, Integer> existing = slots.putIfAbsent(date, slotsForDate);
+    return existing != null ? existing : slotsForDate;
+  }
+
+  /**
+   * Returns the binary order files of every date, in date order.
+   */
+  List<File> dataFiles() {
+    List<File> dataFiles = new ArrayList<>();
+    File[] files = binaryDirectory().listFiles();
+
+    if (files != null) {
+      for (File file : files) {
+        if (file.isFile() && file.getName().matches("Orders_\\d{8}\\.dat")) {
+          dataFiles.add(file);
+        }
+      }
+    }
+    dataFiles.sort(Comparator.comparing(file -> LocalDate.parse(file.getName().substring(7, 15), DATE_FORMAT)));
+    return dataFiles;
+  }
+
+  private static File binaryDirectory() {
+    return new File(ORDERS_DIRECTORY, "Binary");
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+    while (bytes.hasRemaining() && channel.read(bytes, position + bytes.position()) >= 0) {
+      // keep reading until the record is complete
+    }
+  }
+}
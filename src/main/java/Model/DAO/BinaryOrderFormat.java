@@ -0,0 +1,139 @@
+package Model.DAO;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.math.BigDecimal;
+import java.io.IOException;
+
+import Model.Order;
+
+/**
+ * The {@code BinaryOrderFormat} class defines the fixed-width record layout of the
+ * binary 'Orders_MMddyyyy.dat' files and encodes and decodes single records.
+ *
+ * Every record is {@link #RECORD_SIZE} bytes:
+ *
+ *     offset  size  field
+ *          0     1  flags (bit 0 set when the record was removed)
+ *          1     4  order number
+ *          5     2  state code, from the states {@link CodeDictionary}
+ *          7     2  product code, from the products {@link CodeDictionary}
+ *          9     4  offset of the customer name in the '.heap' string file
+ *         13     2  length of the customer name in bytes
+ *         15     4  scales of the eight decimal columns, 4 bits each
+ *         19    64  tax rate, area, cost and labor cost per square foot, material
+ *                   cost, labor cost, tax and total as unscaled longs
+ *
+ * Keeping the scale of every decimal column means a record converts back to exactly
+ * the text it was converted from, so "6.0" stays "6.0" rather than becoming "6.00".
+ */
+public final class BinaryOrderFormat {
+  public static final int RECORD_SIZE = 83;
+  public static final byte REMOVED = 1;
+
+  static final int FLAGS = 0;
+  static final int ORDER_NUMBER = 1;
+  static final int STATE_CODE = 5;
+  static final int PRODUCT_CODE = 7;
+  static final int NAME_OFFSET = 9;
+  static final int NAME_LENGTH = 13;
+  static final int SCALES = 15;
+  static final int DECIMALS = 19;
+  static final int DECIMAL_COLUMNS = 8;
+
+  private BinaryOrderFormat() {
+  }
+
+  /**
+   * Writes an order as one record at the current position of a buffer.
+   *
+   * @param order the order to be encoded
+   * @param stateCode the code of the order's state
+   * @param productCode the code of the order's product type
+   * @param nameOffset the offset of the customer name in the string heap
+   * @param nameLength the length of the customer name in bytes
+   * @param out the buffer receiving the record
+   * @throws IOException if a decimal column does not fit the fixed-width layout
+   */
+  public static void encode(Order order, short stateCode, short productCode, int nameOffset,
+                            int nameLength, ByteBuffer out) throws IOException {
+    BigDecimal[] decimals = decimals(order);
+    int scales = 0;
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      int scale = decimals[i].scale();
+      if (scale < 0 || scale > 15 || decimals[i].unscaledValue().bitLength() > 63) {
+        throw new IOException("Order " + order.getOrderNumber() + " has a value the binary format cannot hold");
+      }
+      scales |= scale << (4 * i);
+    }
+    if (nameLength > 0xFFFF) {
+      throw new IOException("Order " + order.getOrderNumber() + " has a customer name that is too long");
+    }
+
+    out.put((byte) 0);
+    out.putInt(order.getOrderNumber());
+    out.putShort(stateCode);
+    out.putShort(productCode);
+    out.putInt(nameOffset);
+    out.putShort((short) nameLength);
+    out.putInt(scales);
+    for (BigDecimal decimal : decimals) {
+      out.putLong(decimal.unscaledValue().longValue());
+    }
+  }
+
+  /**
+   * Reads the record starting at an absolute position of a buffer.
+   *
+   * @param in the buffer holding the record
+   * @param position the offset of the record in the buffer
+   * @param heap the string heap of the file
+   * @param states the dictionary of state codes
+   * @param products the dictionary of product codes
+   * @return the decoded order
+   */
+  public static Order decode(ByteBuffer in, int position, byte[] heap,
+                             CodeDictionary states, CodeDictionary products) {
+    int scales = in.getInt(position + SCALES);
+    BigDecimal[] decimals = new BigDecimal[DECIMAL_COLUMNS];
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      decimals[i] = BigDecimal.valueOf(in.getLong(position + DECIMALS + 8 * i), (scales >>> (4 * i)) & 0xF);
+    }
+
+    String customerName = new String(heap, in.getInt(position + NAME_OFFSET),
+            in.getShort(position + NAME_LENGTH) & 0xFFFF, StandardCharsets.UTF_8);
+
+    return new Order(in.getInt(position + ORDER_NUMBER), customerName,
+            states.name(in.getShort(position + STATE_CODE)), decimals[0],
+            products.name(in.getShort(position + PRODUCT_CODE)), decimals[1], decimals[2],
+            decimals[3], decimals[4], decimals[5], decimals[6], decimals[7]);
+  }
+
+  /**
+   * Returns whether the record at an absolute position of a buffer was removed.
+   *
+   * @param in the buffer holding the record
+   * @param position the offset of the record in the buffer
+   * @return true if the record carries the removed flag
+   */
+  public static boolean isRemoved(ByteBuffer in, int position) {
+    return (in.get(position + FLAGS) & REMOVED) != 0;
+  }
+
+  /**
+   * Returns the order number of the record at an absolute position of a buffer.
+   *
+   * @param in the buffer holding the record
+   * @param position the offset of the record in the buffer
+   * @return the order number of the record
+   */
+  public static int orderNumber(ByteBuffer in, int position) {
+    return in.getInt(position + ORDER_NUMBER);
+  }
+
+  private static BigDecimal[] decimals(Order order) {
+    return new BigDecimal[] {order.getTaxRate(), order.getArea(), order.getCostPerSquareFoot(),
+            order.getLaborCostPerSquareFoot(), order.getMaterialCost(), order.getLaborCost(),
+            order.getTax(), order.getTotal()};
+  }
+}
@@ -0,0 +1,78 @@
+package Model.DAO;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.io.File;
+
+/**
+ * The {@code CodeDictionary} class assigns small integer codes to the names of a
+ * catalog column, such as the state abbreviations or product types of the binary
+ * order files.
+ *
+ * Codes are the line numbers of an append-only text file, so a code never changes
+ * once it has been written to an order file, and new names are simply appended.
+ */
+public class CodeDictionary {
+  private final File file;
+  private final List<String> names = new ArrayList<>();
+  private final Map<String, Short> codes = new HashMap<>();
+
+  /**
+   * Constructs a {@code CodeDictionary} backed by the specified file, loading the
+   * codes already assigned in it.
+   *
+   * @param file the dictionary file
+   * @throws IOException if the dictionary file exists but cannot be read
+   */
+  public CodeDictionary(File file) throws IOException {
+    this.file = file;
+    if (file.exists()) {
+      for (String name : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+        codes.put(name, (short) names.size());
+        names.add(name);
+      }
+    }
+  }
+
+  /**
+   * Returns the code of a name, assigning and persisting a new code the first time
+   * the name is seen.
+   *
+   * @param name the name to be encoded
+   * @return the code of the name
+   * @throws IOException if a new code cannot be written to the dictionary file
+   */
+  public synchronized short code(String name) throws IOException {
+    Short code = codes.get(name);
+    if (code != null) {
+      return code;
+    }
+    if (names.size() > Short.MAX_VALUE) {
+      throw new IOException("Dictionary " + file.getName() + " is full");
+    }
+
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), (name + "\n").getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    code = (short) names.size();
+    codes.put(name, code);
+    names.add(name);
+    return code;
+  }
+
+  /**
+   * Returns the name of a code.
+   *
+   * @param code the code to be decoded
+   * @return the name the code was assigned to
+   */
+  public synchronized String name(short code) {
+    return names.get(code);
+  }
+}
@@ -0,0 +1,282 @@
+package Model.DAO;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+
+import Exceptions.ModelExceptions;
+import Model.Order;
+
+/**
+ * The {@code DateCache} class decides which dates of an {@link OrderStore} stay in
+ * memory when the store loads dates lazily, and reads the dates it is missing from the
+ * order files through a {@link FileDAO}.
+ *
+ * The cache is bounded by a number of dates, by an estimate of the heap the orders of
+ * those dates take up, or both. When a bound is exceeded the least recently used dates
+ * are evicted, except dates that
+ *
+ *     have changes that have not been written to the order files yet (dirty),
+ *     are pinned by a caller that is going to come back to them, or
+ *     are today or later, where new orders are added.
+ *
+ * An evicted date is simply read again from its orders file the next time it is used.
+ * Hits, misses, load times and evictions are counted and reported by {@link #getStats()}.
+ */
+public class DateCache {
+  /**
+   * Rough heap footprint of one {@code Order}: the object, eight {@code BigDecimal}s
+   * and three strings.
+   */
+  public static final long ESTIMATED_ORDER_BYTES = 640;
+
+  private final FileDAO fileDAO;
+  private final int maxDates;
+  private final long maxBytes;
+  private final NavigableSet<Long> knownDays = new ConcurrentSkipListSet<>();
+  private final ConcurrentMap<Long, Long> resident = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Long, Integer> pendingWrites = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Long, Integer> pins = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Long, List<Order>> loading = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loadNanos = new LongAdder();
+  private final AtomicLong maxLoadNanos = new AtomicLong();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructs a {@code DateCache} reading missing dates through the specified file data
+   * access object.
+   *
+   * @param fileDAO the data access object the dates are read from
+   * @param maxDates the number of dates kept in memory, or 0 for no limit
+   * @param maxBytes the estimated bytes of orders kept in memory, or 0 for no limit
+   */
+  public DateCache(FileDAO fileDAO, int maxDates, long maxBytes) {
+    this.fileDAO = fileDAO;
+    this.maxDates = maxDates;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Forgets everything the cache knows and records the dates stored in the order files.
+   */
+  void reset(Collection<LocalDate> storedDates) {
+    knownDays.clear();
+    resident.clear();
+    pendingWrites.clear();
+    pins.clear();
+    for (LocalDate date : storedDates) {
+      knownDays.add(date.toEpochDay());
+    }
+  }
+
+  /**
+   * Returns whether a date is stored, in memory or in the order files.
+   */
+  boolean isKnown(long day) {
+    return knownDays.contains(day);
+  }
+
+  /**
+   * Returns the stored dates from one epoch day up to and including another.
+   */
+  NavigableSet<Long> knownDays(long from, long to) {
+    return knownDays.subSet(from, true, to, true);
+  }
+
+  int knownCount() {
+    return knownDays.size();
+  }
+
+  /**
+   * Reads the orders of a date from the order files. Threads missing the same date at
+   * the same time read it once.
+   *
+   * @throws IllegalStateException if the orders file cannot be read
+   */
+  List<Order> load(LocalDate date) {
+    List<Order> orders = loading.computeIfAbsent(date.toEpochDay(), day -> {
+      long start = System.nanoTime();
+      List<Order> read;
+      try {
+        read = fileDAO.readOrders(date);
+      } catch (ModelExceptions e) {
+        throw new IllegalStateException(e.getMessage(), e);
+      }
+      long nanos = System.nanoTime() - start;
+      misses.increment();
+      loadNanos.add(nanos);
+      maxLoadNanos.accumulateAndGet(nanos, Math::max);
+      return read;
+    });
+    loading.remove(date.toEpochDay(), orders);
+    return orders;
+  }
+
+  /**
+   * Records that a date was put in memory.
+   */
+  void admitted(long day) {
+    knownDays.add(day);
+    resident.put(day, clock.incrementAndGet());
+  }
+
+  /**
+   * Records a use of a date that is in memory.
+   */
+  void hit(long day) {
+    hits.increment();
+    resident.replace(day, clock.incrementAndGet());
+  }
+
+  /**
+   * Records that a date left memory without being evicted, such as for the archive.
+   */
+  void forget(long day) {
+    resident.remove(day);
+  }
+
+  /**
+   * Records a change of a date that still has to be written to its orders file. Dirty
+   * dates are counted apart from the dates in memory, so a date moved to the archive
+   * and back stays dirty.
+   */
+  void markDirty(long day) {
+    pendingWrites.merge(day, 1, Integer::sum);
+  }
+
+  /**
+   * Records that a change of a date was written to its orders file.
+   */
+  void markPersisted(long day) {
+    pendingWrites.computeIfPresent(day, (key, pending) -> pending <= 1 ? null : pending - 1);
+  }
+
+  void pin(long day) {
+    pins.merge(day, 1, Integer::sum);
+  }
+
+  void unpin(long day) {
+    pins.computeIfPresent(day, (key, count) -> count <= 1 ? null : count - 1);
+  }
+
+  /**
+   * Returns whether the dates in memory exceed a bound.
+   *
+   * @param ordersOfDay the number of orders of a date in memory
+   */
+  boolean overBound(ToIntFunction<Long> ordersOfDay) {
+    if (maxDates > 0 && resident.size() > maxDates) {
+      return true;
+    }
+    return maxBytes > 0 && estimatedBytes(ordersOfDay) > maxBytes;
+  }
+
+  /**
+   * Picks the dates to evict, least recently used first, until the remaining dates fit
+   * the bounds or only dates that may not be evicted are left.
+   *
+   * @param ordersOfDay the number of orders of a date in memory
+   * @param today the epoch day of today; it and later days are never evicted
+   * @return the epoch days to be evicted
+   */
+  List<Long> victims(ToIntFunction<Long> ordersOfDay, long today) {
+    List<Long> candidates = new ArrayList<>();
+    for (Long day : resident.keySet()) {
+      if (day < today && !pendingWrites.containsKey(day) && !pins.containsKey(day)) {
+        candidates.add(day);
+      }
+    }
+    candidates.sort((a, b) -> Long.compare(resident.getOrDefault(a, 0L), resident.getOrDefault(b, 0L)));
+
+    List<Long> victims = new ArrayList<>();
+    int dates = resident.size();
+    long bytes = estimatedBytes(ordersOfDay);
+    for (Long day : candidates) {
+      if ((maxDates <= 0 || dates <= maxDates) && (maxBytes <= 0 || bytes <= maxBytes)) {
+        break;
+      }
+      victims.add(day);
+      dates--;
+      bytes -= ordersOfDay.applyAsInt(day) * ESTIMATED_ORDER_BYTES;
+    }
+    return victims;
+  }
+
+  /**
+   * Records that a date was evicted from memory.
+   */
+  void evicted(long day) {
+    resident.remove(day);
+    evictions.increment();
+  }
+
+  private long estimatedBytes(ToIntFunction<Long> ordersOfDay) {
+    long bytes = 0;
+    for (Long day : resident.keySet()) {
+      bytes += ordersOfDay.applyAsInt(day) * ESTIMATED_ORDER_BYTES;
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the number of uses of a date that was already in memory.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of dates that had to be read from their orders file.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of dates evicted to stay within the bounds.
+   *
+   * @return the number of evictions
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the number of dates in memory.
+   *
+   * @return the number of resident dates
+   */
+  public int getResidentDates() {
+    return resident.size();
+  }
+
+  /**
+   * Returns the hit rate, load time and eviction figures gathered so far.
+   *
+   * @return a one line summary of the cache's statistics
+   */
+  public String getStats() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    long lookups = hitCount + missCount;
+    return String.format("Date cache: %d of %d dates in memory, %d hits, %d misses (%.1f%% hit rate), "
+                    + "avg load %.3f ms, max load %.3f ms, %d evictions", resident.size(), knownDays.size(),
+            hitCount, missCount, lookups == 0 ? 0 : 100.0 * hitCount / lookups,
+            missCount == 0 ? 0 : loadNanos.sum() / 1e6 / missCount, maxLoadNanos.get() / 1e6, evictions.sum());
+  }
+}
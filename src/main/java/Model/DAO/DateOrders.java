@@ -0,0 +1,175 @@
+package Model.DAO;
+
+import java.util.function.UnaryOperator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import Model.Order;
+
+/**
+ * The orders of one date in an {@link OrderStore}, kept copy-on-write.
+ *
+ * The orders are an array sorted by order number that is never changed once it is
+ * published. Every change builds a new array and publishes it through a volatile field,
+ * so a reader takes the current version with a single read and sees either all or
+ * nothing of any change, without locking and without ever being disturbed by a writer.
+ * Writers of the same date take turns on the object's monitor, which callers may also
+ * hold to make further work, such as updating indexes, part of the same change.
+ *
+ * A change copies the orders of the date, which are few compared to all orders.
+ */
+final class DateOrders {
+  private static final Order[] NONE = new Order[0];
+
+  private volatile Order[] orders;
+
+  DateOrders() {
+    orders = NONE;
+  }
+
+  DateOrders(Collection<Order> orders) {
+    Order[] sorted = orders.toArray(NONE);
+    Arrays.sort(sorted, (a, b) -> Integer.compare(a.getOrderNumber(), b.getOrderNumber()));
+    int distinct = 0;
+    for (Order order : sorted) {
+      // The order stored last wins, as it would when putting them one by one
+      if (distinct > 0 && sorted[distinct - 1].getOrderNumber() == order.getOrderNumber()) {
+        distinct--;
+      }
+      sorted[distinct++] = order;
+    }
+    this.orders = Arrays.copyOf(sorted, distinct);
+  }
+
+  Order get(int orderNum) {
+    Order[] current = orders;
+    int at = find(current, orderNum);
+    return at >= 0 ? current[at] : null;
+  }
+
+  int size() {
+    return orders.length;
+  }
+
+  /**
+   * Returns the current version of the orders, sorted by order number. Later changes
+   * publish a new version and never show in this one.
+   */
+  List<Order> snapshot() {
+    return Collections.unmodifiableList(Arrays.asList(orders));
+  }
+
+  /**
+   * Stores an order, replacing the order with the same number.
+   *
+   * @return the replaced order, or null if there was none
+   */
+  synchronized Order put(Order order) {
+    Order[] current = orders;
+    int at = find(current, order.getOrderNumber());
+    if (at >= 0) {
+      Order[] next = current.clone();
+      next[at] = order;
+      orders = next;
+      return current[at];
+    }
+
+    int insert = -at - 1;
+    Order[] next = new Order[current.length + 1];
+    System.arraycopy(current, 0, next, 0, insert);
+    next[insert] = order;
+    System.arraycopy(current, insert, next, insert + 1, current.length - insert);
+    orders = next;
+    return null;
+  }
+
+  /**
+   * Replaces an order with the result of an edit. The edit may change the order it is
+   * given, as readers never see that order.
+   *
+   * @param orderNum the order number of the order to be edited
+   * @param edit the edit, given a copy of the stored order
+   * @return the edited order, or null if there is no such order
+   */
+  synchronized Order edit(int orderNum, UnaryOperator<Order> edit) {
+    Order current = get(orderNum);
+    if (current == null) {
+      return null;
+    }
+    Order edited = edit.apply(copyOf(current));
+    if (edited == null) {
+      remove(orderNum);
+    } else {
+      put(edited);
+    }
+    return edited;
+  }
+
+  /**
+   * Replaces several orders with the results of an edit as one change, copying the
+   * orders of the date once instead of once per order. The edit must keep the order
+   * number of the order it is given.
+   *
+   * @param orderNums the order numbers of the orders to be edited
+   * @param edit the edit, given a copy of each stored order
+   * @return the edited orders, leaving out the order numbers the date does not have
+   */
+  synchronized List<Order> editAll(Collection<Integer> orderNums, UnaryOperator<Order> edit) {
+    Order[] next = orders.clone();
+    List<Order> edited = new ArrayList<>(orderNums.size());
+    for (int orderNum : orderNums) {
+      int at = find(next, orderNum);
+      if (at >= 0) {
+        next[at] = edit.apply(copyOf(next[at]));
+        edited.add(next[at]);
+      }
+    }
+    orders = next;
+    return edited;
+  }
+
+  /**
+   * Removes an order.
+   *
+   * @return the removed order, or null if there was none
+   */
+  synchronized Order remove(int orderNum) {
+    Order[] current = orders;
+    int at = find(current, orderNum);
+    if (at < 0) {
+      return null;
+    }
+    Order[] next = new Order[current.length - 1];
+    System.arraycopy(current, 0, next, 0, at);
+    System.arraycopy(current, at + 1, next, at, current.length - at - 1);
+    orders = next;
+    return current[at];
+  }
+
+  private static int find(Order[] orders, int orderNum) {
+    int low = 0;
+    int high = orders.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midNum = orders[mid].getOrderNumber();
+      if (midNum < orderNum) {
+        low = mid + 1;
+      } else if (midNum > orderNum) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private static Order copyOf(Order order) {
+    return new Order(order.getOrderNumber(), order.getCustomerName(), order.getState(),
+            order.getTaxRate(), order.getProductType(), order.getArea(),
+            order.getCostPerSquareFoot(), order.getLaborCostPerSquareFoot(),
+            order.getMaterialCost(), order.getLaborCost(), order.getTax(), order.getTotal());
+  }
+}
@@ -1,6 +1,8 @@
 package Model.DAO;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 import Exceptions.ModelExceptions;
 import Model.Order;
@@ -36,6 +38,16 @@ public interface FileDAO {
    */
   public void editAnOrder(LocalDate date, Order order) throws ModelExceptions;
 
+  /**
+   * Edits several existing orders in the orders file for the specified date at once.
+   *
+   * @param date the date of the orders to be edited
+   * @param orders the updated orders, all of that date
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading or
+   * writing to the file
+   */
+  public void editOrders(LocalDate date, List<Order> orders) throws ModelExceptions;
+
   /**
    * Removes an order with the specified order number from the orders file for the specified date.
    *
@@ -46,6 +58,32 @@ public interface FileDAO {
    */
   public void removeOrder(LocalDate date, int orderNum) throws ModelExceptions;
 
+  /**
+   * Reads every order stored for the specified date.
+   *
+   * @param date the date of the orders to be read
+   * @return the orders for the date, or an empty list if none are stored
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading
+   * the file
+   */
+  public List<Order> readOrders(LocalDate date) throws ModelExceptions;
+
+  /**
+   * Reads the orders of every date that has been stored.
+   *
+   * @return the stored orders keyed by date
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading
+   * the files
+   */
+  public Map<LocalDate, List<Order>> readAllOrders() throws ModelExceptions;
+
+  /**
+   * Returns the dates that have stored orders, without reading any of them.
+   *
+   * @return the stored dates in date order
+   */
+  public List<LocalDate> storedDates();
+
   /**
    * Exports all order data from the orders files into a single backup file.
    *
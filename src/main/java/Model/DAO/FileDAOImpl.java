@@ -3,17 +3,25 @@ package Model.DAO;
 import org.springframework.stereotype.Component;
 
 import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
 import java.io.FileNotFoundException;
 import java.io.BufferedReader;
+import java.nio.ByteBuffer;
 import java.math.BigDecimal;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Collections;
 import java.util.ArrayList;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.util.Scanner;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.io.File;
 
 import Exceptions.ModelExceptions;
@@ -31,6 +39,16 @@ import Model.Order;
  */
 @Component
 public class FileDAOImpl implements FileDAO {
+  static final String ORDERS_DIRECTORY = "src\\main\\java\\Orders";
+  static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMddyyyy");
+  private static final String PRODUCTS_FILE = "src\\main\\java\\DataFiles\\Products.txt";
+  private static final String TAXES_FILE = "src\\main\\java\\DataFiles\\Taxes.txt";
+  private static final double COMPACTION_RATIO = 0.5;
+
+  private final Map<LocalDate, OrderFileIndex> indexes = new HashMap<>();
+  private OrderFileWriter orderFileWriter;
+  private boolean incrementalExport;
+
   private Scanner reader;
   private PrintWriter writer;
 
@@ -40,13 +58,23 @@ public class FileDAOImpl implements FileDAO {
    */
   public FileDAOImpl() {
     try {
-      getProductInfo("src\\main\\java\\DataFiles\\Products.txt");
-      getTaxInfo("src\\main\\java\\DataFiles\\Taxes.txt");
+      reloadCatalog();
     } catch (ModelExceptions e) {
       throw new RuntimeException("File Paths for Products anf Taxes is invalid!");
     }
   }
 
+  /**
+   * Reads the 'Products.txt' and 'Taxes.txt' files again, replacing the library entry
+   * of every product and state they list.
+   *
+   * @throws ModelExceptions if either file is not found
+   */
+  public void reloadCatalog() throws ModelExceptions {
+    getProductInfo(PRODUCTS_FILE);
+    getTaxInfo(TAXES_FILE);
+  }
+
   /**
    * Adds a new order to the corresponding orders file for the specified date.
    *
@@ -57,23 +85,19 @@ public class FileDAOImpl implements FileDAO {
   @Override
   public void addOrder(LocalDate date, Order order) throws ModelExceptions {
     try {
-      File file = new File("src\\main\\java\\Orders\\Orders_" + dateToString(date) + ".txt");
+      File file = orderFile(date);
 
       if (!file.exists()) {
         file.createNewFile();
       }
 
-      writer = new PrintWriter(new FileWriter(file, true));
-
-      String formatted = order.getOrderNumber() + "," + order.getCustomerName() + "," +
-              order.getState() + "," + order.getTaxRate() + "," +
-              order.getProductType() + "," + order.getArea() + "," +
-              order.getCostPerSquareFoot() + "," + order.getLaborCostPerSquareFoot() + "," +
-              order.getMaterialCost() + "," + order.getLaborCost() + "," +
-              order.getTax() + "," + order.getTotal();
-
-      writer.println(formatted);
-      writer.close();
+      // The record is committed together with any other appends waiting at the same time
+      OrderFileIndex index = indexFor(date);
+      byte[] record = formatOrder(order).getBytes(StandardCharsets.UTF_8);
+      long offset = getOrderFileWriter().append(file, withLineSeparator(record));
+      synchronized (index) {
+        index.put(order.getOrderNumber(), offset, record.length);
+      }
     } catch (IOException e) {
       throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".txt does not exist");
     }
@@ -89,44 +113,72 @@ public class FileDAOImpl implements FileDAO {
    */
   @Override
   public void editAnOrder(LocalDate date, Order order) throws ModelExceptions {
+    editOrders(date, Collections.singletonList(order));
+  }
+
+  /**
+   * Edits several existing orders in the orders file for the specified date while the
+   * file is opened and locked once, checking whether it needs compacting only after
+   * the last of them, such as when a catalog change reprices many orders of a date.
+   *
+   * @param date the date of the orders to be edited
+   * @param orders the updated orders, all of that date
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading or
+   * writing to the file
+   */
+  @Override
+  public void editOrders(LocalDate date, List<Order> orders) throws ModelExceptions {
     try {
-      File file = new File("src\\main\\java\\Orders\\Orders_" + dateToString(date) + ".txt");
-      reader = new Scanner(new BufferedReader(new FileReader(file)));
-      List<String> remainingLines = new ArrayList<>();
-
-      while (reader.hasNext()) {
-        String currLine = reader.nextLine();
-        // Split the line into fields using comma as the delimiter
-        String[] fields = currLine.split(",");
-
-        // Check if the current line's order number matches the order to be edited
-        if (Integer.valueOf(fields[0]) == order.getOrderNumber()) {
-          String formatted = order.getOrderNumber() + "," + order.getCustomerName() + "," +
-                  order.getState() + "," + order.getTaxRate() + "," +
-                  order.getProductType() + "," + order.getArea() + "," +
-                  order.getCostPerSquareFoot() + "," + order.getLaborCostPerSquareFoot() + "," +
-                  order.getMaterialCost() + "," + order.getLaborCost() + "," +
-                  order.getTax() + "," + order.getTotal();
-          remainingLines.add(formatted); // Add the formatted string to the list of remaining lines
-        } else {
-          // If the order number does not match, keep the original line
-          remainingLines.add(currLine);
+      File file = orderFile(date);
+      OrderFileIndex index = indexFor(date);
+
+      synchronized (index) {
+        synchronized (getOrderFileWriter().lockFor(file)) {
+          try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                  StandardOpenOption.READ)) {
+            for (Order order : orders) {
+              patchRecord(channel, index, order);
+            }
+          }
+          compactIfNeeded(file, index);
         }
       }
-      reader.close();
-      writer = new PrintWriter(new FileWriter(file));
-
-      // Write all lines (updated and unchanged) back to the file
-      for (String line : remainingLines) {
-        writer.println(line);
-      }
-
-      writer.close();
     } catch (IOException e) {
       throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".txt does not exist");
     }
   }
 
+  /**
+   * Writes the record of an order over its slot, or moves it to the end of the file if
+   * it no longer fits there. Orders that are not in the file are left out.
+   */
+  private void patchRecord(FileChannel channel, OrderFileIndex index, Order order) throws IOException {
+    int orderNum = order.getOrderNumber();
+    long offset = locate(channel, index, orderNum);
+    if (offset < 0) {
+      return;
+    }
+
+    int slotLength = index.slotLength(orderNum);
+    byte[] record = formatOrder(order).getBytes(StandardCharsets.UTF_8);
+
+    if (record.length <= slotLength) {
+      // Patch the record in place, padding it out to the length of its slot
+      ByteBuffer patch = ByteBuffer.allocate(slotLength);
+      patch.put(record);
+      while (patch.hasRemaining()) {
+        patch.put((byte) ' ');
+      }
+      patch.flip();
+      writeFully(channel, patch, offset);
+      index.put(orderNum, offset, slotLength);
+    } else {
+      // The record grew, so the old slot is removed and the record moves to the end
+      tombstone(channel, offset, slotLength);
+      index.put(orderNum, appendRecord(channel, record), record.length);
+    }
+  }
+
   /**
    * Removes an order with the specified order number from the orders file for the specified date.
    *
@@ -138,81 +190,325 @@ public class FileDAOImpl implements FileDAO {
   @Override
   public void removeOrder(LocalDate date, int orderNum) throws ModelExceptions {
     try {
-      File file = new File("src\\main\\java\\Orders\\Orders_" + dateToString(date) + ".txt");
-      reader = new Scanner(new BufferedReader(new FileReader(file)));
+      File file = orderFile(date);
+      OrderFileIndex index = indexFor(date);
+
+      synchronized (index) {
+        synchronized (getOrderFileWriter().lockFor(file)) {
+          try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                  StandardOpenOption.READ)) {
+            long offset = locate(channel, index, orderNum);
+            if (offset < 0) {
+              return;
+            }
+
+            tombstone(channel, offset, index.slotLength(orderNum));
+            index.remove(orderNum);
+          }
+          compactIfNeeded(file, index);
+        }
+      }
+    } catch (IOException e) {
+      throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".txt does not exist");
+    }
+  }
 
-      List<String> remainingLines = new ArrayList<>();
+  /**
+   * Returns the writer that appends new orders, creating one that leaves flushing to
+   * the operating system if none was configured.
+   *
+   * @return the group commit writer of the orders files
+   */
+  public synchronized OrderFileWriter getOrderFileWriter() {
+    if (orderFileWriter == null) {
+      orderFileWriter = new OrderFileWriter();
+    }
+    return orderFileWriter;
+  }
 
-      // Read the file and collect all lines except the one containing the order number
-      while (reader.hasNext()) {
-        String currLine = reader.nextLine();
-        String[] fields = currLine.split(",");
+  /**
+   * Sets the writer that appends new orders, such as one with a stricter
+   * {@link OrderFileWriter.FsyncPolicy}.
+   *
+   * @param orderFileWriter the group commit writer of the orders files
+   */
+  public synchronized void setOrderFileWriter(OrderFileWriter orderFileWriter) {
+    this.orderFileWriter = orderFileWriter;
+  }
 
-        if (Integer.valueOf(fields[0]) != orderNum) {
-          remainingLines.add(currLine);
+  /**
+   * Sets whether {@link #export()} keeps a manifest next to the export and only
+   * exports the dates that changed since the previous export.
+   *
+   * @param incrementalExport true to export incrementally
+   */
+  public void setIncrementalExport(boolean incrementalExport) {
+    this.incrementalExport = incrementalExport;
+  }
+
+  /**
+   * Commits the orders still waiting in the writer and closes its open files and the
+   * open index files.
+   *
+   * @throws ModelExceptions if the remaining orders cannot be written
+   */
+  public synchronized void shutdown() throws ModelExceptions {
+    if (orderFileWriter != null) {
+      orderFileWriter.close();
+      orderFileWriter = null;
+    }
+    synchronized (indexes) {
+      try {
+        for (OrderFileIndex index : indexes.values()) {
+          synchronized (index) {
+            index.close();
+          }
         }
+      } catch (IOException e) {
+        throw new ModelExceptions("Order index files could not be closed");
+      } finally {
+        indexes.clear();
       }
-      reader.close();
-      writer = new PrintWriter(new FileWriter(file));
+    }
+  }
 
-      // Write all lines (updated and unchanged) back to the file
-      for (String line : remainingLines) {
-        writer.println(line);
+  /**
+   * Returns the offset index of the orders file for the specified date, opening it on
+   * first use.
+   *
+   * @param date the date of the orders file
+   * @return the index of the orders file
+   * @throws IOException if the index can neither be loaded nor rebuilt
+   */
+  private OrderFileIndex indexFor(LocalDate date) throws IOException {
+    synchronized (indexes) {
+      OrderFileIndex index = indexes.get(date);
+      if (index == null) {
+        File indexFile = new File(new File(ORDERS_DIRECTORY, "Index"), "Orders_" + dateToString(date) + ".idx");
+        index = OrderFileIndex.open(orderFile(date), indexFile);
+        indexes.put(date, index);
       }
+      return index;
+    }
+  }
 
-      writer.close();
-    } catch (IOException e) {
-      throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".txt does not exist");
+  /**
+   * Finds the offset of the record of an order with one seek, checking that the record
+   * found there really belongs to the order. If the index points anywhere else, the
+   * orders file was changed behind its back and the index is rebuilt.
+   *
+   * @param channel an open channel on the orders file
+   * @param index the index of the orders file
+   * @param orderNum the order number to be located
+   * @return the offset of the record, or -1 if the order is not in the file
+   * @throws IOException if an I/O error occurs while reading the file
+   */
+  private long locate(FileChannel channel, OrderFileIndex index, int orderNum) throws IOException {
+    long offset = index.offset(orderNum);
+    if (offset >= 0 && recordAt(channel, offset, index.slotLength(orderNum)) == orderNum) {
+      return offset;
     }
+
+    index.rebuild();
+    return index.offset(orderNum);
   }
 
   /**
-   * Exports all order data from the orders files into the 'DataExport' file.
+   * Reads the order number of the record stored at an offset.
    *
-   * @throws ModelExceptions when it detects an IOExceptions if an I/O error occurs while reading or
-   * writing to the file
+   * @return the order number, or -1 if no record starts at the offset
+   */
+  private static int recordAt(FileChannel channel, long offset, int slotLength) throws IOException {
+    ByteBuffer slot = ByteBuffer.allocate(Math.min(slotLength, 16));
+    while (slot.hasRemaining() && channel.read(slot, offset + slot.position()) >= 0) {
+      // keep reading until the order number column has been read
+    }
+    slot.flip();
+
+    int orderNum = 0;
+    int digits = 0;
+    while (slot.hasRemaining()) {
+      byte b = slot.get();
+      if (b == ',' && digits > 0) {
+        return orderNum;
+      }
+      if (b < '0' || b > '9') {
+        return -1;
+      }
+      orderNum = orderNum * 10 + (b - '0');
+      digits++;
+    }
+    return -1;
+  }
+
+  /**
+   * Appends a record and its line separator to the end of an orders file.
+   *
+   * @return the offset the record was written at
+   */
+  private static long appendRecord(FileChannel channel, byte[] record) throws IOException {
+    long offset = channel.size();
+    writeFully(channel, ByteBuffer.wrap(withLineSeparator(record)), offset);
+    return offset;
+  }
+
+  private static byte[] withLineSeparator(byte[] record) {
+    byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    byte[] line = new byte[record.length + lineSeparator.length];
+    System.arraycopy(record, 0, line, 0, record.length);
+    System.arraycopy(lineSeparator, 0, line, record.length, lineSeparator.length);
+    return line;
+  }
+
+  /**
+   * Marks the record in a slot as removed by overwriting it with a '#' line of the
+   * same length.
+   */
+  private static void tombstone(FileChannel channel, long offset, int slotLength) throws IOException {
+    ByteBuffer tombstone = ByteBuffer.allocate(slotLength);
+    tombstone.put(OrderFileParser.TOMBSTONE);
+    while (tombstone.hasRemaining()) {
+      tombstone.put((byte) ' ');
+    }
+    tombstone.flip();
+    writeFully(channel, tombstone, offset);
+  }
+
+  /**
+   * Rewrites an orders file without its removed records and padding once at least
+   * {@link #COMPACTION_RATIO} of it is dead, then rebuilds its index.
+   */
+  private static void compactIfNeeded(File file, OrderFileIndex index) throws IOException {
+    if (index.deadRatio() < COMPACTION_RATIO) {
+      return;
+    }
+
+    OrderFileParser parser = OrderFileParser.read(file);
+    byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer compacted = ByteBuffer.allocate(parser.buffer().limit());
+
+    while (parser.next()) {
+      ByteBuffer record = parser.buffer().duplicate();
+      record.limit(parser.recordOffset() + parser.recordLength()).position(parser.recordOffset());
+      compacted.put(record).put(lineSeparator);
+    }
+    compacted.flip();
+
+    try (FileChannel channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      writeFully(channel, compacted);
+    }
+    index.rebuild();
+  }
+
+  static void writeFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+    while (bytes.hasRemaining()) {
+      position += channel.write(bytes, position);
+    }
+  }
+
+  static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
+
+  /**
+   * Reads every order stored in the orders file for the specified date.
+   *
+   * @param date the date of the orders to be read
+   * @return the orders for the date in file order, or an empty list if no file exists
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading
+   * the file
    */
   @Override
-  public void export() throws ModelExceptions {
-    try {
-      String userHome = System.getProperty("user.home");
-      File ordersDir = new File(userHome, "Documents/Backup");
+  public List<Order> readOrders(LocalDate date) throws ModelExceptions {
+    List<Order> orders = new ArrayList<>();
+    File file = orderFile(date);
 
-      if (!ordersDir.exists()) {
-        boolean dirCreated = ordersDir.mkdir();
-        if (!dirCreated) {
-          throw new ModelExceptions("Application unable to create Backup directory");
-        }
-      }
+    if (!file.exists()) {
+      return orders;
+    }
 
-      String fileName = new File(ordersDir, "DataExport.txt").getPath();
-      writer = new PrintWriter(new FileWriter(fileName));
-      File[] files = new File("src\\main\\java\\Orders").listFiles();
+    try {
+      OrderFileParser parser = OrderFileParser.open(file);
+      while (parser.next()) {
+        orders.add(parser.toOrder());
+      }
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      throw new ModelExceptions("File: " + "Orders_" + dateToString(date) + ".txt could not be read");
+    }
+    return orders;
+  }
 
-      for (File filename : files) {
-        if (filename.isFile()) {
-          reader = new Scanner(new BufferedReader(new FileReader(filename)));
+  /**
+   * Reads every 'Orders_MMddyyyy.txt' file in the orders folder in parallel.
+   *
+   * @return the orders of every date that has an orders file
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading
+   * any of the files
+   */
+  @Override
+  public Map<LocalDate, List<Order>> readAllOrders() throws ModelExceptions {
+    return new OrderFileLoader(this).load(orderFiles());
+  }
 
-          // Formatting date for each file
-          String datePart = filename.toString().replaceAll("\\D", "").substring(0, 8);
-          // Format it with dashes (MM-dd-yyyy)
-          String formattedDate = datePart.substring(0, 2) + "-" +  // Month
-                                 datePart.substring(2, 4) + "-" +  // Day
-                                 datePart.substring(4, 8);         // Year
+  /**
+   * Returns the dates that have an 'Orders_MMddyyyy.txt' file in the orders folder.
+   *
+   * @return the stored dates in date order
+   */
+  @Override
+  public List<LocalDate> storedDates() {
+    List<LocalDate> dates = new ArrayList<>();
+    for (File file : orderFiles()) {
+      dates.add(LocalDate.parse(file.getName().substring(7, 15), DATE_FORMAT));
+    }
+    return dates;
+  }
 
-          while (reader.hasNext()) {
-            String currLine = reader.nextLine() + "," + formattedDate;
-            writer.println(currLine);
-          }
-          reader.close();
-        }
+  /**
+   * Exports all order data from the orders files into the 'DataExport' file, one
+   * date after the other in date order. In incremental mode only the dates that
+   * changed since the last export are exported again.
+   *
+   * @throws ModelExceptions when it detects an IOExceptions if an I/O error occurs while reading or
+   * writing to the file
+   */
+  @Override
+  public void export() throws ModelExceptions {
+    File exportFile = exportFile();
+    try {
+      if (incrementalExport) {
+        new IncrementalExporter().export(orderFiles(), exportFile);
+      } else {
+        new OrderExporter().export(orderFiles(), exportFile);
       }
-      writer.close();
     } catch (IOException e) {
       throw new ModelExceptions("Order files path changed");
     }
   }
 
+  /**
+   * Returns every 'Orders_MMddyyyy.txt' file in the orders folder, sorted by date.
+   *
+   * @return the orders files in date order
+   */
+  protected List<File> orderFiles() {
+    List<File> orderFiles = new ArrayList<>();
+    File[] files = new File(ORDERS_DIRECTORY).listFiles();
+
+    if (files != null) {
+      for (File file : files) {
+        if (file.isFile() && file.getName().matches("Orders_\\d{8}\\.txt")) {
+          orderFiles.add(file);
+        }
+      }
+    }
+    orderFiles.sort(Comparator.comparing(file -> LocalDate.parse(file.getName().substring(7, 15), DATE_FORMAT)));
+    return orderFiles;
+  }
+
   /**
    * Reads product information from the specified product data file and adds it to the system.
    *
@@ -261,14 +557,75 @@ public class FileDAOImpl implements FileDAO {
     reader.close();
   }
 
+  /**
+   * Returns the 'DataExport.txt' file in the 'Backup' folder, creating the folder if
+   * it does not exist yet.
+   *
+   * @return the export file
+   * @throws ModelExceptions if the 'Backup' folder cannot be created
+   */
+  protected File exportFile() throws ModelExceptions {
+    String userHome = System.getProperty("user.home");
+    File ordersDir = new File(userHome, "Documents/Backup");
+
+    if (!ordersDir.exists()) {
+      boolean dirCreated = ordersDir.mkdir();
+      if (!dirCreated) {
+        throw new ModelExceptions("Application unable to create Backup directory");
+      }
+    }
+    return new File(ordersDir, "DataExport.txt");
+  }
+
+  /**
+   * Returns the orders file that holds the orders for the specified date.
+   *
+   * @param date the date of the orders
+   * @return the 'Orders_MMddyyyy.txt' file for the date
+   */
+  protected File orderFile(LocalDate date) {
+    return new File(ORDERS_DIRECTORY, "Orders_" + dateToString(date) + ".txt");
+  }
+
+  /**
+   * Formats an order as one comma separated line of the orders file.
+   *
+   * @param order the order to be formatted
+   * @return the formatted line, without a line separator
+   */
+  protected static String formatOrder(Order order) {
+    return order.getOrderNumber() + "," + order.getCustomerName() + "," +
+            order.getState() + "," + order.getTaxRate() + "," +
+            order.getProductType() + "," + order.getArea() + "," +
+            order.getCostPerSquareFoot() + "," + order.getLaborCostPerSquareFoot() + "," +
+            order.getMaterialCost() + "," + order.getLaborCost() + "," +
+            order.getTax() + "," + order.getTotal();
+  }
+
+  /**
+   * Parses one line of an orders file back into an order, keeping the stored values
+   * rather than recalculating them from the current product and tax libraries.
+   *
+   * @param line the comma separated order line
+   * @return the parsed order
+   */
+  protected static Order parseOrder(String line) {
+    String[] fields = line.split(",");
+
+    return new Order(Integer.parseInt(fields[0]), fields[1], fields[2],
+            new BigDecimal(fields[3]), fields[4], new BigDecimal(fields[5]),
+            new BigDecimal(fields[6]), new BigDecimal(fields[7]),
+            new BigDecimal(fields[8]), new BigDecimal(fields[9]),
+            new BigDecimal(fields[10]), new BigDecimal(fields[11]));
+  }
+
   /**
    * Converts the given date to a string in the format MMddyyyy.
    *
    * @param date the date to be converted
    * @return the formatted date string
    */
-  private String dateToString(LocalDate date) {
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMddyyyy");
-    return date.format(formatter);
+  protected static String dateToString(LocalDate date) {
+    return date.format(DATE_FORMAT);
   }
 }
\ No newline at end of file
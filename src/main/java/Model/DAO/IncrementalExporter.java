@@ -0,0 +1,257 @@
+package Model.DAO;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.io.File;
+
+/**
+ * The {@code IncrementalExporter} class keeps the 'DataExport.txt' file up to date by
+ * re-exporting only the orders files that changed since the previous export.
+ *
+ * A 'DataExport.manifest' file next to the export records, for every orders file, its
+ * size, modification time and CRC32 checksum, and where its segment starts in the
+ * export and how long it is. Files whose size and modification time are unchanged, or
+ * whose checksum still matches, keep their segment. Because segments are laid out in
+ * date order and new orders nearly always land on the latest dates, the export up to
+ * the first changed segment stays where it is. Only the rest is rebuilt: unchanged
+ * segments behind it are copied from the old export with {@code transferFrom}, changed
+ * ones are written by {@link OrderExporter}, and the result replaces the old tail.
+ *
+ * The manifest is deleted before the export is touched and written again last, so an
+ * export interrupted halfway is detected by the next run and exported in full.
+ */
+public class IncrementalExporter {
+  private static final Logger LOGGER = Logger.getLogger(IncrementalExporter.class.getName());
+
+  private final OrderExporter exporter = new OrderExporter();
+
+  /**
+   * Brings an export file up to date with the specified orders files.
+   *
+   * @param orderFiles the 'Orders_MMddyyyy.txt' files to be exported, in export order
+   * @param exportFile the file holding the export
+   * @return the number of orders files whose segment was written again
+   * @throws IOException if an orders file cannot be read or the export cannot be written
+   */
+  public int export(List<File> orderFiles, File exportFile) throws IOException {
+    long start = System.nanoTime();
+    File manifestFile = new File(exportFile.getParentFile(), "DataExport.manifest");
+    Map<String, ManifestEntry> previous = loadManifest(manifestFile);
+    int files = orderFiles.size();
+
+    if (previous == null || !exportFile.exists() || exportFile.length() != totalLength(previous)) {
+      manifestFile.delete();
+      long[] offsets = exporter.export(orderFiles, exportFile);
+      ManifestEntry[] entries = new ManifestEntry[files];
+      OrderExporter.forEachFile(files, i -> entries[i] = new ManifestEntry(orderFiles.get(i),
+              checksum(orderFiles.get(i)), offsets[i], offsets[i + 1] - offsets[i]));
+      saveManifest(manifestFile, entries);
+      return files;
+    }
+
+    // Find out which files changed, checksumming only those whose size or time moved
+    ManifestEntry[] entries = new ManifestEntry[files];
+    boolean[] reused = new boolean[files];
+    OrderExporter.forEachFile(files, i -> {
+      File file = orderFiles.get(i);
+      ManifestEntry entry = previous.get(file.getName());
+      if (entry != null && entry.size == file.length() && entry.modified == file.lastModified()) {
+        entries[i] = entry;
+        reused[i] = true;
+        return;
+      }
+
+      long checksum = checksum(file);
+      if (entry != null && entry.size == file.length() && entry.checksum == checksum) {
+        entries[i] = new ManifestEntry(file, checksum, entry.offset, entry.length);
+        reused[i] = true;
+      } else {
+        entries[i] = new ManifestEntry(file, checksum, -1, exporter.segmentLength(file));
+      }
+    });
+
+    // Everything before the first segment that changed or moved stays in place
+    int first = 0;
+    long keptLength = 0;
+    while (first < files && reused[first] && entries[first].offset == keptLength) {
+      keptLength += entries[first].length;
+      first++;
+    }
+
+    int rewritten = 0;
+    if (first < files || files != previous.size()) {
+      manifestFile.delete();
+      rewritten = rewriteTail(orderFiles, exportFile, entries, reused, first, keptLength);
+    }
+    saveManifest(manifestFile, entries);
+
+    LOGGER.info(String.format("Incremental export: %d of %d files re-exported, %d bytes kept in place, in %.1f ms",
+            rewritten, files, keptLength, (System.nanoTime() - start) / 1e6));
+    return rewritten;
+  }
+
+  /**
+   * Rebuilds the export from the segment of file {@code first} onwards in a tail file,
+   * then cuts the export at that segment and appends the tail to it. Offsets of the
+   * entries from {@code first} onwards are updated to their new positions.
+   *
+   * @return the number of segments that were written from their orders file
+   */
+  private int rewriteTail(List<File> orderFiles, File exportFile, ManifestEntry[] entries,
+                          boolean[] reused, int first, long keptLength) throws IOException {
+    File tailFile = new File(exportFile.getParentFile(), "DataExport.tail");
+    int files = entries.length;
+    long[] oldOffsets = new long[files];
+    long offset = keptLength;
+    for (int i = first; i < files; i++) {
+      oldOffsets[i] = entries[i].offset;
+      entries[i] = entries[i].at(offset);
+      offset += entries[i].length;
+    }
+    long tailLength = offset - keptLength;
+    int rewritten = 0;
+
+    try (FileChannel export = FileChannel.open(exportFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+         FileChannel tail = FileChannel.open(tailFile.toPath(), StandardOpenOption.CREATE,
+                 StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      OrderExporter.forEachFile(files - first, i -> {
+        int file = first + i;
+        if (!reused[file]) {
+          exporter.writeSegment(orderFiles.get(file), tail, entries[file].offset - keptLength, entries[file].length);
+        }
+      });
+
+      // Unchanged segments are copied out of the old export before it is cut, in order,
+      // since transferFrom cannot start behind the current end of the tail
+      for (int i = first; i < files; i++) {
+        if (reused[i]) {
+          export.position(oldOffsets[i]);
+          transfer(export, tail, entries[i].offset - keptLength, entries[i].length);
+        } else {
+          rewritten++;
+        }
+      }
+
+      export.truncate(keptLength);
+      tail.position(0);
+      transfer(tail, export, keptLength, tailLength);
+    } finally {
+      tailFile.delete();
+    }
+    return rewritten;
+  }
+
+  /**
+   * Copies bytes from the current position of a channel to a position of another one.
+   */
+  private static void transfer(FileChannel source, FileChannel target, long position, long count) throws IOException {
+    while (count > 0) {
+      long copied = target.transferFrom(source, position, count);
+      if (copied <= 0) {
+        throw new IOException("Export ended before all of its segments were copied");
+      }
+      position += copied;
+      count -= copied;
+    }
+  }
+
+  private static long checksum(File file) throws IOException {
+    CRC32 crc = new CRC32();
+    ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        crc.update(buffer.array(), 0, buffer.limit());
+        buffer.clear();
+      }
+    }
+    return crc.getValue();
+  }
+
+  private static long totalLength(Map<String, ManifestEntry> manifest) {
+    long length = 0;
+    for (ManifestEntry entry : manifest.values()) {
+      length += entry.length;
+    }
+    return length;
+  }
+
+  /**
+   * Reads a manifest file.
+   *
+   * @return the entries keyed by orders file name, or null if there is no usable manifest
+   */
+  private static Map<String, ManifestEntry> loadManifest(File manifestFile) {
+    if (!manifestFile.exists()) {
+      return null;
+    }
+
+    Map<String, ManifestEntry> manifest = new HashMap<>();
+    try {
+      for (String line : Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+        String[] fields = line.split(",");
+        manifest.put(fields[0], new ManifestEntry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                Long.parseLong(fields[3]), Long.parseLong(fields[4]), Long.parseLong(fields[5])));
+      }
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+    return manifest;
+  }
+
+  /**
+   * Writes a manifest file next to itself and moves it into place.
+   */
+  private static void saveManifest(File manifestFile, ManifestEntry[] entries) throws IOException {
+    List<String> lines = new ArrayList<>();
+    for (ManifestEntry entry : entries) {
+      lines.add(entry.name + "," + entry.size + "," + entry.modified + "," + entry.checksum + ","
+              + entry.offset + "," + entry.length);
+    }
+
+    File temporary = new File(manifestFile.getPath() + ".tmp");
+    Files.write(temporary.toPath(), lines, StandardCharsets.UTF_8);
+    Files.move(temporary.toPath(), manifestFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * What the manifest knows about one orders file and its export segment.
+   */
+  private static class ManifestEntry {
+    private final String name;
+    private final long size;
+    private final long modified;
+    private final long checksum;
+    private final long offset;
+    private final long length;
+
+    ManifestEntry(String name, long size, long modified, long checksum, long offset, long length) {
+      this.name = name;
+      this.size = size;
+      this.modified = modified;
+      this.checksum = checksum;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    ManifestEntry(File file, long checksum, long offset, long length) {
+      this(file.getName(), file.length(), file.lastModified(), checksum, offset, length);
+    }
+
+    ManifestEntry at(long newOffset) {
+      return new ManifestEntry(name, size, modified, checksum, newOffset, length);
+    }
+  }
+}
@@ -0,0 +1,331 @@
+package Model.DAO;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.FileReader;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.nio.file.Files;
+import java.util.Scanner;
+import java.util.List;
+import java.util.Map;
+import java.io.File;
+
+import Exceptions.ModelExceptions;
+import Model.Order;
+
+/**
+ * The {@code JournaledFileDAOImpl} class is a journaled mode of {@link FileDAOImpl}.
+ *
+ * Instead of rewriting the whole 'Orders_MMddyyyy.txt' file for every edit or removal,
+ * each add, edit and remove is appended as one small record to a per-date journal in
+ * the 'Journal' folder. Reads merge the orders file with the journal tail, and a
+ * background task compacts journals back into their orders file once they grow past
+ * {@link #COMPACTION_THRESHOLD} records. Export always compacts first so the backup
+ * only has to read the canonical orders files.
+ *
+ * Journal records are single lines: 'A,&lt;order line&gt;' for an add, 'E,&lt;order line&gt;'
+ * for an edit and 'R,&lt;order number&gt;' for a removal. Every record carries the full
+ * state of its order, so replaying a journal on top of an already compacted file is
+ * harmless if the application stops between the two compaction steps.
+ */
+public class JournaledFileDAOImpl extends FileDAOImpl {
+  static final int COMPACTION_THRESHOLD = 64;
+  static final long COMPACTION_INTERVAL_SECONDS = 30;
+
+  private final Map<LocalDate, Object> dateLocks = new ConcurrentHashMap<>();
+  private final Map<LocalDate, AtomicInteger> pendingRecords = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService compactor;
+
+  /**
+   * Constructs a {@code JournaledFileDAOImpl}, compacts any journals left over from a
+   * previous run and starts the background compaction task.
+   */
+  public JournaledFileDAOImpl() {
+    super();
+    try {
+      compactAll();
+    } catch (ModelExceptions e) {
+      throw new RuntimeException("Unable to compact existing order journals!");
+    }
+
+    compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "order-journal-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    compactor.scheduleWithFixedDelay(this::compactFullJournals,
+            COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Appends an add record for the order to the journal of the specified date.
+   *
+   * @param date the date of the order
+   * @param order the order to be added
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while writing to
+   * the journal
+   */
+  @Override
+  public void addOrder(LocalDate date, Order order) throws ModelExceptions {
+    append(date, "A," + formatOrder(order));
+  }
+
+  /**
+   * Appends an edit record for the order to the journal of the specified date.
+   *
+   * @param date the date of the order to be edited
+   * @param order the updated order information
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while writing to
+   * the journal
+   */
+  @Override
+  public void editAnOrder(LocalDate date, Order order) throws ModelExceptions {
+    append(date, "E," + formatOrder(order));
+  }
+
+  /**
+   * Appends an edit record for each of the orders to the journal of the specified
+   * date in a single write.
+   *
+   * @param date the date of the orders to be edited
+   * @param orders the updated orders, all of that date
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while writing to
+   * the journal
+   */
+  @Override
+  public void editOrders(LocalDate date, List<Order> orders) throws ModelExceptions {
+    List<String> records = new ArrayList<>(orders.size());
+    for (Order order : orders) {
+      records.add("E," + formatOrder(order));
+    }
+    append(date, records);
+  }
+
+  /**
+   * Appends a removal record for the order number to the journal of the specified date.
+   *
+   * @param date the date of the order to be removed
+   * @param orderNum the order number of the order to be removed
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while writing to
+   * the journal
+   */
+  @Override
+  public void removeOrder(LocalDate date, int orderNum) throws ModelExceptions {
+    append(date, "R," + orderNum);
+  }
+
+  /**
+   * Reads the orders for the specified date by merging the orders file with the
+   * journal records that have not been compacted yet.
+   *
+   * @param date the date of the orders to be read
+   * @return the merged orders for the date
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading
+   */
+  @Override
+  public List<Order> readOrders(LocalDate date) throws ModelExceptions {
+    synchronized (lockFor(date)) {
+      return new ArrayList<>(merge(date).values());
+    }
+  }
+
+  /**
+   * Compacts every journal and then exports all order data into the 'DataExport' file.
+   *
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading or
+   * writing to the file
+   */
+  @Override
+  public void export() throws ModelExceptions {
+    compactAll();
+    super.export();
+  }
+
+  /**
+   * Folds the journal of the specified date into its orders file. The merged orders
+   * are written to a temporary file that replaces the orders file in one move, and
+   * only then is the journal deleted.
+   *
+   * @param date the date whose journal is compacted
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading or
+   * writing to the file
+   */
+  public void compact(LocalDate date) throws ModelExceptions {
+    synchronized (lockFor(date)) {
+      File journal = journalFile(date);
+      if (!journal.exists()) {
+        return;
+      }
+
+      File file = orderFile(date);
+      File compacted = new File(journal.getParentFile(), file.getName() + ".tmp");
+      List<String> lines = new ArrayList<>();
+      for (Order order : merge(date).values()) {
+        lines.add(formatOrder(order));
+      }
+
+      try {
+        Files.write(compacted.toPath(), lines, StandardCharsets.UTF_8);
+        Files.move(compacted.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(journal.toPath());
+      } catch (IOException e) {
+        throw new ModelExceptions("Unable to compact journal for Orders_" + dateToString(date) + ".txt");
+      }
+      pendingRecords.remove(date);
+    }
+  }
+
+  /**
+   * Compacts every journal in the 'Journal' folder.
+   *
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading or
+   * writing to the file
+   */
+  public void compactAll() throws ModelExceptions {
+    File[] journals = journalDirectory().listFiles();
+    if (journals == null) {
+      return;
+    }
+
+    for (File journal : journals) {
+      String name = journal.getName();
+      if (name.startsWith("Orders_") && name.endsWith(".journal")) {
+        compact(LocalDate.parse(name.substring(7, 15), DATE_FORMAT));
+      }
+    }
+  }
+
+  /**
+   * Stops the background compaction task and compacts all remaining journals.
+   *
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while
+   * compacting
+   */
+  @Override
+  public void shutdown() throws ModelExceptions {
+    compactor.shutdown();
+    compactAll();
+    super.shutdown();
+  }
+
+  /**
+   * Background task that compacts the journals that reached the compaction threshold.
+   */
+  private void compactFullJournals() {
+    for (Map.Entry<LocalDate, AtomicInteger> entry : pendingRecords.entrySet()) {
+      if (entry.getValue().get() >= COMPACTION_THRESHOLD) {
+        try {
+          compact(entry.getKey());
+        } catch (ModelExceptions e) {
+          // The journal is left in place and retried on the next run
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends a single record to the journal of the specified date.
+   *
+   * @param date the date of the journal
+   * @param record the journal record, without a line separator
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while writing
+   */
+  private void append(LocalDate date, String record) throws ModelExceptions {
+    append(date, Collections.singletonList(record));
+  }
+
+  private void append(LocalDate date, List<String> records) throws ModelExceptions {
+    StringBuilder lines = new StringBuilder();
+    for (String record : records) {
+      lines.append(record).append(System.lineSeparator());
+    }
+    synchronized (lockFor(date)) {
+      try {
+        File journal = journalFile(date);
+        journal.getParentFile().mkdirs();
+        Files.write(journal.toPath(), lines.toString().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      } catch (IOException e) {
+        throw new ModelExceptions("Journal for Orders_" + dateToString(date) + ".txt could not be written");
+      }
+      pendingRecords.computeIfAbsent(date, key -> new AtomicInteger()).addAndGet(records.size());
+    }
+  }
+
+  /**
+   * Merges the orders file of the specified date with its journal. Must be called while
+   * holding the lock of the date.
+   *
+   * @param date the date to be merged
+   * @return the merged orders keyed by order number, in file order
+   * @throws ModelExceptions when it detects an IOException if an I/O error occurs while reading
+   */
+  private Map<Integer, Order> merge(LocalDate date) throws ModelExceptions {
+    Map<Integer, Order> orders = new LinkedHashMap<>();
+    for (Order order : super.readOrders(date)) {
+      orders.put(order.getOrderNumber(), order);
+    }
+
+    File journal = journalFile(date);
+    if (!journal.exists()) {
+      return orders;
+    }
+
+    try (Scanner journalReader = new Scanner(new BufferedReader(new FileReader(journal)))) {
+      while (journalReader.hasNextLine()) {
+        String record = journalReader.nextLine();
+
+        try {
+          String body = record.substring(2);
+          switch (record.charAt(0)) {
+            case 'A':
+            case 'E':
+              Order order = parseOrder(body);
+              orders.put(order.getOrderNumber(), order);
+              break;
+            case 'R':
+              orders.remove(Integer.valueOf(body));
+              break;
+            default:
+              break;
+          }
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+          // A torn record left by an interrupted append is skipped
+        }
+      }
+    } catch (IOException e) {
+      throw new ModelExceptions("Journal for Orders_" + dateToString(date) + ".txt could not be read");
+    }
+    return orders;
+  }
+
+  /**
+   * Returns the journal file for the specified date.
+   *
+   * @param date the date of the journal
+   * @return the 'Orders_MMddyyyy.journal' file for the date
+   */
+  private File journalFile(LocalDate date) {
+    return new File(journalDirectory(), "Orders_" + dateToString(date) + ".journal");
+  }
+
+  private File journalDirectory() {
+    return new File(ORDERS_DIRECTORY, "Journal");
+  }
+
+  private Object lockFor(LocalDate date) {
+    return dateLocks.computeIfAbsent(date, key -> new Object());
+  }
+}
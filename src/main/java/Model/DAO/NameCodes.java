@@ -0,0 +1,48 @@
+package Model.DAO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory counterpart of {@link CodeDictionary}: codes are assigned in the order
+ * names are first seen and live only as long as the structure using them.
+ */
+class NameCodes {
+  static final int MISSING = -2;
+
+  private final List<String> names = new ArrayList<>();
+  private final Map<String, Short> codes = new HashMap<>();
+
+  /**
+   * Returns the code of a name, assigning a new code the first time the name is seen.
+   *
+   * @throws IllegalStateException if every {@code short} code is taken
+   */
+  synchronized short code(String name) {
+    Short code = codes.get(name);
+    if (code != null) {
+      return code;
+    }
+    if (names.size() > Short.MAX_VALUE) {
+      throw new IllegalStateException("More than " + (Short.MAX_VALUE + 1) + " distinct values");
+    }
+    code = (short) names.size();
+    codes.put(name, code);
+    names.add(name);
+    return code;
+  }
+
+  /**
+   * Returns the code of a name, or {@link #MISSING} if the name was never seen.
+   */
+  synchronized int find(String name) {
+    Short code = codes.get(name);
+    return code == null ? MISSING : code;
+  }
+
+  synchronized String name(short code) {
+    return names.get(code);
+  }
+}
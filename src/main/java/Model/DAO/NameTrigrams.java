@@ -0,0 +1,121 @@
+package Model.DAO;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A trigram index over the distinct customer names of an {@link OrderIndex}, for
+ * finding a customer from a partial or misspelled name, such as "Mai Le" for "May Lee".
+ *
+ * A name is lower-cased and split into words, and every word, padded with two spaces
+ * in front and one behind, is cut into the overlapping three-character sequences it
+ * contains. Each trigram is packed into a {@code long} and maps to the names containing
+ * it. A query only visits the names sharing at least one trigram with it and ranks them
+ * by the share of trigrams they have in common, so its cost follows the number of
+ * similar names, not the number of orders.
+ */
+class NameTrigrams {
+  /**
+   * The share of trigrams a name must have in common with a query to be a match.
+   */
+  static final double MIN_SIMILARITY = 0.3;
+
+  private final ConcurrentMap<Long, Set<String>> namesByTrigram = new ConcurrentHashMap<>();
+
+  void add(String name) {
+    for (long trigram : trigrams(name)) {
+      namesByTrigram.compute(trigram, (key, names) -> {
+        Set<String> set = names != null ? names : ConcurrentHashMap.newKeySet();
+        set.add(name);
+        return set;
+      });
+    }
+  }
+
+  void remove(String name) {
+    for (long trigram : trigrams(name)) {
+      namesByTrigram.computeIfPresent(trigram, (key, names) -> {
+        names.remove(name);
+        return names.isEmpty() ? null : names;
+      });
+    }
+  }
+
+  void clear() {
+    namesByTrigram.clear();
+  }
+
+  /**
+   * Returns the names most similar to a query, most similar first and names equally
+   * similar in alphabetical order.
+   *
+   * @param query the partial or misspelled name
+   * @param limit the largest number of names returned
+   * @return the names with at least {@link #MIN_SIMILARITY} of their trigrams in common
+   */
+  List<String> search(String query, int limit) {
+    long[] wanted = trigrams(query);
+    Map<String, Integer> shared = new HashMap<>();
+    for (long trigram : wanted) {
+      Set<String> names = namesByTrigram.get(trigram);
+      if (names != null) {
+        for (String name : names) {
+          shared.merge(name, 1, Integer::sum);
+        }
+      }
+    }
+
+    Map<String, Double> similarity = new HashMap<>();
+    for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+      int common = entry.getValue();
+      double score = (double) common / (wanted.length + trigrams(entry.getKey()).length - common);
+      if (score >= MIN_SIMILARITY) {
+        similarity.put(entry.getKey(), score);
+      }
+    }
+
+    List<String> ranked = new ArrayList<>(similarity.keySet());
+    ranked.sort((a, b) -> {
+      int bySimilarity = Double.compare(similarity.get(b), similarity.get(a));
+      return bySimilarity != 0 ? bySimilarity : a.compareTo(b);
+    });
+    return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+  }
+
+  /**
+   * Returns the distinct trigrams of a name, each packed into a {@code long} of three
+   * 16-bit characters, in ascending order.
+   */
+  static long[] trigrams(String name) {
+    List<Long> trigrams = new ArrayList<>();
+    for (String word : name.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+      if (word.isEmpty()) {
+        continue;
+      }
+      String padded = "  " + word + " ";
+      for (int i = 0; i + 3 <= padded.length(); i++) {
+        trigrams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+      }
+    }
+
+    long[] packed = new long[trigrams.size()];
+    for (int i = 0; i < packed.length; i++) {
+      packed[i] = trigrams.get(i);
+    }
+    Arrays.sort(packed);
+    int distinct = 0;
+    for (int i = 0; i < packed.length; i++) {
+      if (distinct == 0 || packed[i] != packed[distinct - 1]) {
+        packed[distinct++] = packed[i];
+      }
+    }
+    return Arrays.copyOf(packed, distinct);
+  }
+}
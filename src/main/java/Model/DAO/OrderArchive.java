@@ -0,0 +1,345 @@
+package Model.DAO;
+
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+
+import Model.Order;
+
+/**
+ * The {@code OrderArchive} class keeps the orders of past dates outside the Java heap,
+ * so the garbage collector no longer has to trace every historical order.
+ *
+ * The orders of a date are encoded into one direct {@code ByteBuffer}, sorted by order
+ * number, and decoded again whenever they are read. A record is
+ *
+ *     order number (int), state code (short), product code (short),
+ *     customer name length (short) and UTF-8 bytes,
+ *     scales of the eight decimal columns (int, 4 bits each),
+ *     the eight decimal columns as unscaled zig-zag varints
+ *
+ * in the column order of {@link BinaryOrderFormat}, so most money values take two to
+ * four bytes instead of eight and a date costs the heap a single buffer object. Order
+ * numbers are found through a sorted {@code long[]} of order number and epoch day
+ * pairs, which the collector does not need to trace either.
+ *
+ * Archived dates are read-only: the archive only ever adds or drops whole dates, and
+ * {@link OrderStore} moves a date back onto the heap before changing it.
+ */
+public class OrderArchive {
+  private static final int DECIMAL_COLUMNS = 8;
+
+  private final ConcurrentNavigableMap<Long, ByteBuffer> segments = new ConcurrentSkipListMap<>();
+  private final NameCodes states = new NameCodes();
+  private final NameCodes products = new NameCodes();
+  private final AtomicLong bytes = new AtomicLong();
+  private volatile long[] orderIndex = new long[0];
+
+  /**
+   * Archives the orders of several dates, replacing what was archived for them before,
+   * and updates the order number index once for all of them.
+   *
+   * @param orders the orders to be archived, keyed by date
+   * @throws IllegalArgumentException if a decimal value of an order does not fit a
+   *                                  {@code long} or has more than 15 decimal places
+   */
+  public void putAll(Map<LocalDate, ? extends Collection<Order>> orders) {
+    List<Long> newKeys = new ArrayList<>();
+    Set<Long> days = new HashSet<>();
+    for (Map.Entry<LocalDate, ? extends Collection<Order>> entry : orders.entrySet()) {
+      long day = entry.getKey().toEpochDay();
+      days.add(day);
+      List<Order> sorted = new ArrayList<>(entry.getValue());
+      sorted.sort((a, b) -> Integer.compare(a.getOrderNumber(), b.getOrderNumber()));
+
+      ByteBuffer segment = encode(sorted);
+      ByteBuffer replaced = segments.put(day, segment);
+      bytes.addAndGet(segment.capacity() - (replaced == null ? 0 : replaced.capacity()));
+      for (Order order : sorted) {
+        newKeys.add(indexKey(order.getOrderNumber(), day));
+      }
+    }
+    rebuildIndex(newKeys, days);
+  }
+
+  /**
+   * Drops an archived date, such as one that was moved back onto the heap.
+   *
+   * @param date the date to be dropped
+   */
+  public void remove(LocalDate date) {
+    ByteBuffer removed = segments.remove(date.toEpochDay());
+    if (removed != null) {
+      bytes.addAndGet(-removed.capacity());
+    }
+  }
+
+  /**
+   * Drops every archived date.
+   */
+  public synchronized void clear() {
+    segments.clear();
+    bytes.set(0);
+    orderIndex = new long[0];
+  }
+
+  /**
+   * Returns whether a date is archived.
+   *
+   * @param date the date to be checked
+   * @return true if the orders of the date are in the archive
+   */
+  public boolean contains(LocalDate date) {
+    return segments.containsKey(date.toEpochDay());
+  }
+
+  /**
+   * Decodes the orders of an archived date.
+   *
+   * @param date the date of the orders
+   * @return the orders sorted by order number, or null if the date is not archived
+   */
+  public List<Order> orders(LocalDate date) {
+    ByteBuffer segment = segments.get(date.toEpochDay());
+    return segment == null ? null : orders(segment);
+  }
+
+  /**
+   * Returns the segment of an archived day. A segment never changes, so it can be
+   * decoded with {@link #orders(ByteBuffer)} even after the day left the archive.
+   */
+  ByteBuffer segment(long day) {
+    return segments.get(day);
+  }
+
+  /**
+   * Decodes the orders of a segment, sorted by order number.
+   */
+  List<Order> orders(ByteBuffer segment) {
+    ByteBuffer in = segment.duplicate();
+    List<Order> orders = new ArrayList<>();
+    while (in.hasRemaining()) {
+      orders.add(decode(in));
+    }
+    return Collections.unmodifiableList(orders);
+  }
+
+  /**
+   * Decodes a single order of an archived date.
+   *
+   * @param date the date of the order
+   * @param orderNum the order number of the order
+   * @return the order, or null if the date is not archived or has no such order
+   */
+  public Order get(LocalDate date, int orderNum) {
+    ByteBuffer segment = segments.get(date.toEpochDay());
+    if (segment == null) {
+      return null;
+    }
+
+    ByteBuffer in = segment.duplicate();
+    while (in.hasRemaining()) {
+      int recordNum = in.getInt(in.position());
+      if (recordNum == orderNum) {
+        return decode(in);
+      }
+      if (recordNum > orderNum) {
+        return null;
+      }
+      skip(in);
+    }
+    return null;
+  }
+
+  /**
+   * Returns the archived date holding an order number.
+   *
+   * @param orderNum the order number
+   * @return the date, or null if no archived date has such an order
+   */
+  public LocalDate dateOf(int orderNum) {
+    long[] index = orderIndex;
+    int at = Arrays.binarySearch(index, indexKey(orderNum, -1));
+    // Walk back from the last key of the order number, which sorts by its day's low bits
+    for (int i = at >= 0 ? at : -at - 2; i >= 0 && (int) (index[i] >> 32) == orderNum; i--) {
+      long day = (int) index[i];
+      if (segments.containsKey(day)) {
+        return LocalDate.ofEpochDay(day);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the archived dates from one date up to and including another, as epoch
+   * days.
+   *
+   * @param from the first date of the range
+   * @param to the last date of the range
+   * @return a sorted view of the archived epoch days of the range
+   */
+  public NavigableSet<Long> days(LocalDate from, LocalDate to) {
+    return segments.subMap(from.toEpochDay(), true, to.toEpochDay(), true).keySet();
+  }
+
+  /**
+   * Returns the number of archived dates.
+   *
+   * @return the number of dates
+   */
+  public int dateCount() {
+    return segments.size();
+  }
+
+  /**
+   * Returns the number of bytes the archived orders take up outside the heap.
+   *
+   * @return the size of all segments in bytes
+   */
+  public long bytes() {
+    return bytes.get();
+  }
+
+  /**
+   * Merges new order number and day pairs into the index, dropping the old pairs of
+   * the days that were archived again and of the days that left the archive since.
+   */
+  private synchronized void rebuildIndex(List<Long> newKeys, Set<Long> replacedDays) {
+    long[] old = orderIndex;
+    long[] index = new long[old.length + newKeys.size()];
+    int size = 0;
+    for (long key : old) {
+      long day = (int) key;
+      if (segments.containsKey(day) && !replacedDays.contains(day)) {
+        index[size++] = key;
+      }
+    }
+    for (long key : newKeys) {
+      index[size++] = key;
+    }
+
+    index = Arrays.copyOf(index, size);
+    Arrays.sort(index);
+    int distinct = 0;
+    for (int i = 0; i < size; i++) {
+      if (distinct == 0 || index[i] != index[distinct - 1]) {
+        index[distinct++] = index[i];
+      }
+    }
+    orderIndex = Arrays.copyOf(index, distinct);
+  }
+
+  private static long indexKey(int orderNum, long day) {
+    return ((long) orderNum << 32) | (day & 0xFFFFFFFFL);
+  }
+
+  private ByteBuffer encode(List<Order> orders) {
+    ByteBuffer staging = ByteBuffer.allocate(1024);
+    for (Order order : orders) {
+      byte[] name = order.getCustomerName().getBytes(StandardCharsets.UTF_8);
+      BigDecimal[] decimals = decimals(order);
+      staging = ensure(staging, 14 + name.length + DECIMAL_COLUMNS * 10);
+
+      int scales = 0;
+      for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+        int scale = decimals[i].scale();
+        if (scale < 0 || scale > 15 || decimals[i].unscaledValue().bitLength() > 63) {
+          throw new IllegalArgumentException("Order " + order.getOrderNumber() + " has a value the archive cannot hold");
+        }
+        scales |= scale << (4 * i);
+      }
+      if (name.length > 0xFFFF) {
+        throw new IllegalArgumentException("Order " + order.getOrderNumber() + " has a customer name that is too long");
+      }
+
+      staging.putInt(order.getOrderNumber());
+      staging.putShort(states.code(order.getState()));
+      staging.putShort(products.code(order.getProductType()));
+      staging.putShort((short) name.length);
+      staging.put(name);
+      staging.putInt(scales);
+      for (BigDecimal decimal : decimals) {
+        long value = decimal.unscaledValue().longValue();
+        putVarLong(staging, (value << 1) ^ (value >> 63));
+      }
+    }
+
+    staging.flip();
+    ByteBuffer segment = ByteBuffer.allocateDirect(staging.remaining());
+    segment.put(staging).flip();
+    return segment.asReadOnlyBuffer();
+  }
+
+  private Order decode(ByteBuffer in) {
+    int orderNum = in.getInt();
+    String state = states.name(in.getShort());
+    String productType = products.name(in.getShort());
+    byte[] name = new byte[in.getShort() & 0xFFFF];
+    in.get(name);
+    int scales = in.getInt();
+
+    BigDecimal[] decimals = new BigDecimal[DECIMAL_COLUMNS];
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      long zigZag = getVarLong(in);
+      decimals[i] = BigDecimal.valueOf((zigZag >>> 1) ^ -(zigZag & 1), (scales >>> (4 * i)) & 0xF);
+    }
+    return new Order(orderNum, new String(name, StandardCharsets.UTF_8), state, decimals[0], productType,
+            decimals[1], decimals[2], decimals[3], decimals[4], decimals[5], decimals[6], decimals[7]);
+  }
+
+  private static void skip(ByteBuffer in) {
+    in.position(in.position() + 8);
+    int nameLength = in.getShort() & 0xFFFF;
+    in.position(in.position() + nameLength + 4);
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      getVarLong(in);
+    }
+  }
+
+  private static ByteBuffer ensure(ByteBuffer buffer, int needed) {
+    if (buffer.remaining() >= needed) {
+      return buffer;
+    }
+    ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+    buffer.flip();
+    return larger.put(buffer);
+  }
+
+  private static void putVarLong(ByteBuffer out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+
+  private static long getVarLong(ByteBuffer in) {
+    long value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+  }
+
+  private static BigDecimal[] decimals(Order order) {
+    return new BigDecimal[] {order.getTaxRate(), order.getArea(), order.getCostPerSquareFoot(),
+            order.getLaborCostPerSquareFoot(), order.getMaterialCost(), order.getLaborCost(),
+            order.getTax(), order.getTotal()};
+  }
+}
@@ -0,0 +1,211 @@
+package Model.DAO;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ForkJoinPool;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.util.List;
+import java.io.File;
+
+/**
+ * The {@code OrderExporter} class writes the 'DataExport.txt' file from a set of
+ * 'Orders_MMddyyyy.txt' files, processing the files in parallel on the common
+ * fork-join pool.
+ *
+ * The export runs in two passes. The first pass scans every orders file and works out
+ * the length of its export segment, which is every record followed by a
+ * {@code ",MM-dd-yyyy"} date column and a line separator. Prefix sums of those lengths
+ * give each file a fixed offset in the export file, so the second pass can write all
+ * segments at the same time with positional {@code FileChannel} writes while the
+ * result is still laid out in the order of the file list. Records are copied byte for
+ * byte from the parsed file and the date column is spliced in behind them, so no order
+ * line is ever turned into a string.
+ */
+public class OrderExporter {
+  private static final Logger LOGGER = Logger.getLogger(OrderExporter.class.getName());
+  private static final int FILES_PER_TASK = 2;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * Exports the specified orders files, in list order, into an export file, replacing
+   * its previous contents.
+   *
+   * @param orderFiles the 'Orders_MMddyyyy.txt' files to be exported
+   * @param exportFile the file receiving the export
+   * @return the offsets of the segments in the export file, followed by its total length
+   * @throws IOException if an orders file cannot be read, changes during the export, or
+   *                     the export file cannot be written
+   */
+  public long[] export(List<File> orderFiles, File exportFile) throws IOException {
+    long start = System.nanoTime();
+    int files = orderFiles.size();
+
+    long[] lengths = new long[files];
+    forEachFile(files, i -> lengths[i] = segmentLength(orderFiles.get(i)));
+
+    long[] offsets = new long[files + 1];
+    for (int i = 0; i < files; i++) {
+      offsets[i + 1] = offsets[i] + lengths[i];
+    }
+
+    try (FileChannel channel = FileChannel.open(exportFile.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      forEachFile(files, i -> writeSegment(orderFiles.get(i), channel, offsets[i], lengths[i]));
+    }
+
+    long nanos = System.nanoTime() - start;
+    long bytes = offsets[files];
+    LOGGER.info(String.format("Exported %d files (%d bytes) in %.1f ms - %.2f MB/s",
+            files, bytes, nanos / 1e6, nanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1e9)));
+    return offsets;
+  }
+
+  /**
+   * Returns the number of bytes the records of an orders file take up in the export.
+   *
+   * @param orderFile the orders file
+   * @return the length of the export segment of the file
+   * @throws IOException if the file cannot be read
+   */
+  long segmentLength(File orderFile) throws IOException {
+    int extra = dateColumn(orderFile).length + lineSeparator.length;
+    long length = 0;
+
+    OrderFileParser parser = OrderFileParser.open(orderFile);
+    while (parser.next()) {
+      length += parser.recordLength() + extra;
+    }
+    return length;
+  }
+
+  /**
+   * Writes the export segment of an orders file at a fixed offset of the export file,
+   * staging the records and their date column in a buffer.
+   *
+   * @param orderFile the orders file
+   * @param channel the channel of the export file
+   * @param offset the offset of the segment in the export file
+   * @param length the length of the segment found by the first pass
+   * @throws IOException if the file cannot be read or the segment cannot be written
+   */
+  void writeSegment(File orderFile, FileChannel channel, long offset, long length) throws IOException {
+    byte[] dateColumn = dateColumn(orderFile);
+    ByteBuffer staging = ByteBuffer.allocate(BUFFER_SIZE);
+    long end = offset + length;
+    long position = offset;
+
+    OrderFileParser parser = OrderFileParser.open(orderFile);
+    while (parser.next()) {
+      int recordLength = parser.recordLength() + dateColumn.length + lineSeparator.length;
+      if (position + staging.position() + recordLength > end) {
+        throw new IOException(orderFile.getName() + " changed during the export");
+      }
+      if (staging.remaining() < recordLength) {
+        position = flush(channel, staging, position);
+      }
+
+      ByteBuffer record = parser.buffer().duplicate();
+      record.limit(parser.recordOffset() + parser.recordLength()).position(parser.recordOffset());
+      if (recordLength > staging.capacity()) {
+        position = write(channel, record, position);
+        position = write(channel, ByteBuffer.wrap(dateColumn), position);
+        position = write(channel, ByteBuffer.wrap(lineSeparator), position);
+        continue;
+      }
+      staging.put(record).put(dateColumn).put(lineSeparator);
+    }
+
+    if (flush(channel, staging, position) != end) {
+      throw new IOException(orderFile.getName() + " changed during the export");
+    }
+  }
+
+  /**
+   * Returns the {@code ",MM-dd-yyyy"} column appended to every record of an orders file,
+   * taken from the date in its name.
+   */
+  private static byte[] dateColumn(File orderFile) {
+    String datePart = orderFile.getName().substring(7, 15);
+    return ("," + datePart.substring(0, 2) + "-" + datePart.substring(2, 4) + "-"
+            + datePart.substring(4, 8)).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes the contents of a staging buffer at a position, clears the buffer and
+   * returns the position behind the written bytes.
+   */
+  private static long flush(FileChannel channel, ByteBuffer staging, long position) throws IOException {
+    staging.flip();
+    position = write(channel, staging, position);
+    staging.clear();
+    return position;
+  }
+
+  private static long write(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+    long end = position + bytes.remaining();
+    FileDAOImpl.writeFully(channel, bytes, position);
+    return end;
+  }
+
+  /**
+   * Runs a step for every file index on the common fork-join pool, rethrowing the first
+   * {@code IOException} a step failed with.
+   */
+  static void forEachFile(int files, FileStep step) throws IOException {
+    AtomicReference<IOException> failure = new AtomicReference<>();
+    ForkJoinPool.commonPool().invoke(new FileTask(step, failure, 0, files));
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+  }
+
+  /**
+   * One pass of the export over a single file.
+   */
+  interface FileStep {
+    void apply(int file) throws IOException;
+  }
+
+  /**
+   * Fork-join task that runs a step for the files in the range [from, to).
+   */
+  private static class FileTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final FileStep step;
+    private final AtomicReference<IOException> failure;
+    private final int from;
+    private final int to;
+
+    FileTask(FileStep step, AtomicReference<IOException> failure, int from, int to) {
+      this.step = step;
+      this.failure = failure;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= FILES_PER_TASK) {
+        for (int i = from; i < to && failure.get() == null; i++) {
+          try {
+            step.apply(i);
+          } catch (IOException | IllegalStateException e) {
+            failure.compareAndSet(null, e instanceof IOException ? (IOException) e : new IOException(e));
+          }
+        }
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new FileTask(step, failure, from, middle), new FileTask(step, failure, middle, to));
+    }
+  }
+}
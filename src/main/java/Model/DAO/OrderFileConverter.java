@@ -0,0 +1,153 @@
+package Model.DAO;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.io.File;
+
+import Exceptions.ModelExceptions;
+import Model.Order;
+
+/**
+ * The {@code OrderFileConverter} class translates the orders of a date between the
+ * 'Orders_MMddyyyy.txt' text format and the binary format of {@link BinaryFileDAOImpl}.
+ *
+ * Both directions stream: records are read one at a time and written through a
+ * fixed staging buffer, so converting a file never holds more than one buffer of
+ * records in memory besides the customer name heap.
+ */
+public class OrderFileConverter {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileDAOImpl textDAO;
+  private final BinaryFileDAOImpl binaryDAO;
+
+  /**
+   * Constructs an {@code OrderFileConverter} between the text files of one data access
+   * object and the binary files of another.
+   *
+   * @param textDAO the data access object owning the text order files
+   * @param binaryDAO the data access object owning the binary order files
+   */
+  public OrderFileConverter(FileDAOImpl textDAO, BinaryFileDAOImpl binaryDAO) {
+    this.textDAO = textDAO;
+    this.binaryDAO = binaryDAO;
+  }
+
+  /**
+   * Converts the text orders file of a date into a binary record file and name heap,
+   * replacing any binary files the date already had.
+   *
+   * @param date the date to be converted
+   * @return the number of orders converted
+   * @throws ModelExceptions if either file cannot be read or written
+   */
+  public int toBinary(LocalDate date) throws ModelExceptions {
+    File textFile = textDAO.orderFile(date);
+    int count = 0;
+
+    try {
+      OrderFileParser parser = OrderFileParser.open(textFile);
+      binaryDAO.dataFile(date).getParentFile().mkdirs();
+
+      try (FileChannel data = open(binaryDAO.dataFile(date));
+           FileChannel heap = open(binaryDAO.heapFile(date))) {
+        ByteBuffer records = ByteBuffer.allocate(BUFFER_SIZE - BUFFER_SIZE % BinaryOrderFormat.RECORD_SIZE);
+        ByteBuffer names = ByteBuffer.allocate(BUFFER_SIZE);
+        int heapSize = 0;
+
+        while (parser.next()) {
+          Order order = parser.toOrder();
+          byte[] name = order.getCustomerName().getBytes(StandardCharsets.UTF_8);
+
+          if (names.remaining() < name.length) {
+            flush(heap, names);
+          }
+          if (name.length > names.capacity()) {
+            FileDAOImpl.writeFully(heap, ByteBuffer.wrap(name));
+          } else {
+            names.put(name);
+          }
+          if (records.remaining() < BinaryOrderFormat.RECORD_SIZE) {
+            flush(data, records);
+          }
+
+          BinaryOrderFormat.encode(order, binaryDAO.states.code(order.getState()),
+                  binaryDAO.products.code(order.getProductType()), heapSize, name.length, records);
+          heapSize += name.length;
+          count++;
+        }
+        flush(heap, names);
+        flush(data, records);
+      }
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      throw new ModelExceptions("File: " + "Orders_" + FileDAOImpl.dateToString(date) + ".txt could not be converted");
+    }
+
+    binaryDAO.forget(date);
+    return count;
+  }
+
+  /**
+   * Converts the binary record file of a date back into a text orders file, replacing
+   * the text file the date already had. Removed records are left out.
+   *
+   * @param date the date to be converted
+   * @return the number of orders converted
+   * @throws ModelExceptions if either file cannot be read or written
+   */
+  public int toText(LocalDate date) throws ModelExceptions {
+    byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    int count = 0;
+
+    try (FileChannel data = FileChannel.open(binaryDAO.dataFile(date).toPath(), StandardOpenOption.READ);
+         FileChannel text = open(textDAO.orderFile(date))) {
+      byte[] heap = binaryDAO.readHeap(date);
+      ByteBuffer records = ByteBuffer.allocate(BUFFER_SIZE - BUFFER_SIZE % BinaryOrderFormat.RECORD_SIZE);
+      ByteBuffer lines = ByteBuffer.allocate(BUFFER_SIZE);
+
+      while (data.read(records) >= 0 || records.position() > 0) {
+        records.flip();
+        int whole = records.limit() - records.limit() % BinaryOrderFormat.RECORD_SIZE;
+
+        for (int position = 0; position < whole; position += BinaryOrderFormat.RECORD_SIZE) {
+          if (BinaryOrderFormat.isRemoved(records, position)) {
+            continue;
+          }
+
+          Order order = BinaryOrderFormat.decode(records, position, heap, binaryDAO.states, binaryDAO.products);
+          byte[] line = FileDAOImpl.formatOrder(order).getBytes(StandardCharsets.UTF_8);
+          if (lines.remaining() < line.length + lineSeparator.length) {
+            flush(text, lines);
+          }
+          lines.put(line).put(lineSeparator);
+          count++;
+        }
+
+        if (whole == 0 && records.limit() > 0 && data.position() == data.size()) {
+          break; // a partial record at the end of the file
+        }
+        records.position(whole);
+        records.compact();
+      }
+      flush(text, lines);
+    } catch (IOException e) {
+      throw new ModelExceptions("File: " + "Orders_" + FileDAOImpl.dateToString(date) + ".dat could not be converted");
+    }
+    return count;
+  }
+
+  private static FileChannel open(File file) throws IOException {
+    return FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer staging) throws IOException {
+    staging.flip();
+    FileDAOImpl.writeFully(channel, staging);
+    staging.clear();
+  }
+}
@@ -0,0 +1,240 @@
+package Model.DAO;
+
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.BufferedInputStream;
+import java.io.FileOutputStream;
+import java.io.FileInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.io.File;
+
+/**
+ * The {@code OrderFileIndex} class is the sidecar index of one 'Orders_MMddyyyy.txt'
+ * file. It maps each order number to the byte offset and slot length of its record,
+ * so an edit or removal can seek straight to the record instead of scanning the file.
+ *
+ * The index is kept in memory and mirrored to an '.idx' file in the 'Index' folder.
+ * The file starts with a header holding the length and last-modified time of the
+ * orders file it describes, followed by 16 byte entries of order number, offset and
+ * slot length. Changes are appended as new entries (a slot length of -1 marks a
+ * removal) and the header is updated in place, so maintaining the index never
+ * rewrites it. The index file stays open from its first change until {@link #close()},
+ * and each change is one write of its entry and one of the header. When the header no longer matches the orders file, or the file is
+ * missing or unreadable, the index is rebuilt by scanning the orders file with an
+ * {@link OrderFileParser}.
+ */
+public class OrderFileIndex {
+  private static final int MAGIC = 0x4F494458; // "OIDX"
+  private static final int HEADER_SIZE = 4 + 8 + 8;
+  private static final int ENTRY_SIZE = 4 + 8 + 4;
+  private static final int REMOVED = -1;
+
+  private final File dataFile;
+  private final File indexFile;
+  private final Map<Integer, long[]> entries = new HashMap<>();
+  private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+  private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+  private FileChannel channel;
+  private long liveBytes;
+
+  private OrderFileIndex(File dataFile, File indexFile) {
+    this.dataFile = dataFile;
+    this.indexFile = indexFile;
+  }
+
+  /**
+   * Opens the index of an orders file, rebuilding it if it is missing or stale.
+   *
+   * @param dataFile the orders file being indexed
+   * @param indexFile the sidecar index file
+   * @return the loaded index
+   * @throws IOException if the orders file or the index cannot be read or written
+   */
+  public static OrderFileIndex open(File dataFile, File indexFile) throws IOException {
+    OrderFileIndex index = new OrderFileIndex(dataFile, indexFile);
+    if (!index.load()) {
+      index.rebuild();
+    }
+    return index;
+  }
+
+  /**
+   * Returns the byte offset of the record of an order.
+   *
+   * @param orderNum the order number
+   * @return the offset of the record, or -1 if the order is not in the file
+   */
+  public long offset(int orderNum) {
+    long[] entry = entries.get(orderNum);
+    return entry == null ? -1 : entry[0];
+  }
+
+  /**
+   * Returns the slot length of the record of an order, which is the number of bytes
+   * before its line separator that a new record may overwrite.
+   *
+   * @param orderNum the order number
+   * @return the slot length of the record, or -1 if the order is not in the file
+   */
+  public int slotLength(int orderNum) {
+    long[] entry = entries.get(orderNum);
+    return entry == null ? -1 : (int) entry[1];
+  }
+
+  /**
+   * Returns the fraction of the orders file that is not taken by live records, such
+   * as removed records, padding and line separators.
+   *
+   * @return the dead fraction of the orders file, between 0 and 1
+   */
+  public double deadRatio() {
+    long length = dataFile.length();
+    return length == 0 ? 0 : 1 - (double) liveBytes / length;
+  }
+
+  /**
+   * Records the location of a record that was added, moved or patched in place.
+   *
+   * @param orderNum the order number of the record
+   * @param offset the byte offset of the record
+   * @param slotLength the number of bytes the record occupies before its line separator
+   * @throws IOException if the index file cannot be written
+   */
+  public void put(int orderNum, long offset, int slotLength) throws IOException {
+    long[] previous = entries.put(orderNum, new long[] {offset, slotLength});
+    if (previous != null) {
+      liveBytes -= previous[1];
+    }
+    liveBytes += slotLength;
+    append(orderNum, offset, slotLength);
+  }
+
+  /**
+   * Records that the record of an order was removed.
+   *
+   * @param orderNum the order number of the removed record
+   * @throws IOException if the index file cannot be written
+   */
+  public void remove(int orderNum) throws IOException {
+    long[] previous = entries.remove(orderNum);
+    if (previous != null) {
+      liveBytes -= previous[1];
+    }
+    append(orderNum, 0, REMOVED);
+  }
+
+  /**
+   * Rebuilds the index from the orders file and rewrites the index file.
+   *
+   * @throws IOException if the orders file or the index cannot be read or written
+   */
+  public void rebuild() throws IOException {
+    close();
+    entries.clear();
+    liveBytes = 0;
+
+    if (dataFile.exists()) {
+      OrderFileParser parser = OrderFileParser.read(dataFile);
+      while (parser.next()) {
+        entries.put(parser.orderNumber(), new long[] {parser.recordOffset(), parser.slotLength()});
+        liveBytes += parser.slotLength();
+      }
+    }
+
+    indexFile.getParentFile().mkdirs();
+    try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+      out.writeInt(MAGIC);
+      out.writeLong(dataFile.length());
+      out.writeLong(dataFile.lastModified());
+      for (Map.Entry<Integer, long[]> entry : entries.entrySet()) {
+        out.writeInt(entry.getKey());
+        out.writeLong(entry.getValue()[0]);
+        out.writeInt((int) entry.getValue()[1]);
+      }
+    }
+  }
+
+  /**
+   * Loads the index file if its header still matches the orders file.
+   *
+   * @return true if the index was loaded; false if it is missing or stale
+   */
+  private boolean load() {
+    if (!indexFile.exists() || !dataFile.exists()) {
+      return false;
+    }
+
+    try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if (in.readInt() != MAGIC || in.readLong() != dataFile.length()
+              || in.readLong() != dataFile.lastModified()) {
+        return false;
+      }
+
+      while (true) {
+        int orderNum;
+        try {
+          orderNum = in.readInt();
+        } catch (EOFException e) {
+          break;
+        }
+        long offset = in.readLong();
+        int slotLength = in.readInt();
+
+        long[] previous = slotLength == REMOVED
+                ? entries.remove(orderNum)
+                : entries.put(orderNum, new long[] {offset, slotLength});
+        if (previous != null) {
+          liveBytes -= previous[1];
+        }
+        if (slotLength != REMOVED) {
+          liveBytes += slotLength;
+        }
+      }
+      return true;
+    } catch (IOException e) {
+      return false; // a torn entry at the end makes the index stale
+    }
+  }
+
+  /**
+   * Closes the index file. It is opened again by the next change.
+   *
+   * @throws IOException if the index file cannot be closed
+   */
+  public void close() throws IOException {
+    if (channel != null) {
+      FileChannel open = channel;
+      channel = null;
+      open.close();
+    }
+  }
+
+  /**
+   * Appends an entry to the index file and stamps the header with the current length
+   * and last-modified time of the orders file.
+   */
+  private void append(int orderNum, long offset, int slotLength) throws IOException {
+    if (channel == null) {
+      indexFile.getParentFile().mkdirs();
+      channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE,
+              StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    entry.clear();
+    entry.putInt(orderNum).putLong(offset).putInt(slotLength).flip();
+    FileDAOImpl.writeFully(channel, entry, Math.max(channel.size(), HEADER_SIZE));
+
+    header.clear();
+    header.putInt(MAGIC).putLong(dataFile.length()).putLong(dataFile.lastModified()).flip();
+    FileDAOImpl.writeFully(channel, header, 0);
+  }
+}
@@ -0,0 +1,127 @@
+package Model.DAO;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.io.File;
+
+import Exceptions.ModelExceptions;
+import Model.Order;
+
+/**
+ * The {@code OrderFileLoader} class reads a set of 'Orders_MMddyyyy.txt' files in
+ * parallel on the common fork-join pool.
+ *
+ * The list of files is split in half until each task holds at most
+ * {@link #FILES_PER_TASK} files, and each file is read through
+ * {@link FileDAO#readOrders(LocalDate)} so journaled or binary implementations load
+ * exactly what they would return for a single date. The time, size and throughput of
+ * every file and of the whole load are logged so cold-start time can be followed as
+ * the order history grows.
+ */
+public class OrderFileLoader {
+  private static final Logger LOGGER = Logger.getLogger(OrderFileLoader.class.getName());
+  private static final int FILES_PER_TASK = 4;
+
+  private final FileDAO fileDAO;
+  private final Map<LocalDate, List<Order>> loaded = new ConcurrentHashMap<>();
+  private final AtomicReference<ModelExceptions> failure = new AtomicReference<>();
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder ordersRead = new LongAdder();
+
+  /**
+   * Constructs an {@code OrderFileLoader} that reads the orders of each date through
+   * the specified file data access object.
+   *
+   * @param fileDAO the data access object used to read each date
+   */
+  public OrderFileLoader(FileDAO fileDAO) {
+    this.fileDAO = fileDAO;
+  }
+
+  /**
+   * Reads every specified orders file in parallel.
+   *
+   * @param orderFiles the 'Orders_MMddyyyy.txt' files to be read
+   * @return the orders of every file keyed by the date in its file name
+   * @throws ModelExceptions if any of the files could not be read
+   */
+  public Map<LocalDate, List<Order>> load(List<File> orderFiles) throws ModelExceptions {
+    long start = System.nanoTime();
+    ForkJoinPool.commonPool().invoke(new LoadTask(orderFiles, 0, orderFiles.size()));
+
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+
+    long nanos = System.nanoTime() - start;
+    LOGGER.info(String.format("Loaded %d orders from %d files (%d bytes) in %.1f ms - %.2f MB/s",
+            ordersRead.sum(), orderFiles.size(), bytesRead.sum(), nanos / 1e6,
+            megabytesPerSecond(bytesRead.sum(), nanos)));
+    return loaded;
+  }
+
+  /**
+   * Reads a single orders file and records its metrics.
+   *
+   * @param file the orders file to be read
+   */
+  private void loadFile(File file) {
+    long start = System.nanoTime();
+    LocalDate date = LocalDate.parse(file.getName().substring(7, 15), FileDAOImpl.DATE_FORMAT);
+
+    try {
+      List<Order> orders = fileDAO.readOrders(date);
+      loaded.put(date, orders);
+
+      long nanos = System.nanoTime() - start;
+      long bytes = file.length();
+      bytesRead.add(bytes);
+      ordersRead.add(orders.size());
+      LOGGER.fine(String.format("Loaded %s: %d orders, %d bytes in %.2f ms - %.2f MB/s",
+              file.getName(), orders.size(), bytes, nanos / 1e6, megabytesPerSecond(bytes, nanos)));
+    } catch (ModelExceptions e) {
+      failure.compareAndSet(null, e);
+    }
+  }
+
+  private static double megabytesPerSecond(long bytes, long nanos) {
+    return nanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+  }
+
+  /**
+   * Fork-join task that reads the files in the range [from, to) of the file list.
+   */
+  private class LoadTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final List<File> files;
+    private final int from;
+    private final int to;
+
+    LoadTask(List<File> files, int from, int to) {
+      this.files = files;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= FILES_PER_TASK) {
+        for (int i = from; i < to; i++) {
+          loadFile(files.get(i));
+        }
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new LoadTask(files, from, middle), new LoadTask(files, middle, to));
+    }
+  }
+}
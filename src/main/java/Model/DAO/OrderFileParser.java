@@ -0,0 +1,356 @@
+package Model.DAO;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.ByteBuffer;
+import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.File;
+
+import Model.Order;
+
+/**
+ * The {@code OrderFileParser} class scans the 12 column order line format of an
+ * 'Orders_MMddyyyy.txt' file directly over its bytes.
+ *
+ * Files of at least {@link #MAP_THRESHOLD} bytes are memory-mapped with
+ * {@link FileChannel#map}; smaller files are read into a single heap buffer, which
+ * is cheaper than a mapping for a few hundred bytes. {@link #next()} only records
+ * where each comma separated column starts and ends. Numeric columns are decoded
+ * straight from the bytes into unscaled longs or {@code BigDecimal}s, so no line or
+ * field strings are built, and the state and product columns are shared between
+ * records instead of being copied for every order.
+ *
+ * Lines starting with {@code '#'} are records removed in place and are skipped, and
+ * trailing spaces left by a shorter record written over a longer one are ignored.
+ *
+ * Example usage:
+ *
+ *     OrderFileParser parser = OrderFileParser.open(file);
+ *     while (parser.next()) {
+ *       orders.add(parser.toOrder());
+ *     }
+ */
+public final class OrderFileParser {
+  public static final int COLUMNS = 12;
+  public static final int ORDER_NUMBER = 0;
+  public static final int CUSTOMER_NAME = 1;
+  public static final int STATE = 2;
+  public static final int TAX_RATE = 3;
+  public static final int PRODUCT_TYPE = 4;
+  public static final int AREA = 5;
+  public static final int COST_PER_SQUARE_FOOT = 6;
+  public static final int LABOR_COST_PER_SQUARE_FOOT = 7;
+  public static final int MATERIAL_COST = 8;
+  public static final int LABOR_COST = 9;
+  public static final int TAX = 10;
+  public static final int TOTAL = 11;
+
+  static final byte TOMBSTONE = '#';
+  static final int MAP_THRESHOLD = 1 << 20;
+  private static final int SHARED_TEXT_SLOTS = 64;
+
+  private final ByteBuffer buffer;
+  private final int limit;
+  private final int[] columnStart = new int[COLUMNS];
+  private final int[] columnEnd = new int[COLUMNS];
+  private final String[] sharedText = new String[SHARED_TEXT_SLOTS];
+  private byte[] scratch = new byte[64];
+  private int recordStart;
+  private int recordEnd;
+  private int slotEnd;
+  private int position;
+
+  /**
+   * Constructs an {@code OrderFileParser} over the bytes of an orders file.
+   *
+   * @param buffer the file contents, from position zero up to its limit
+   */
+  public OrderFileParser(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.limit = buffer.limit();
+  }
+
+  /**
+   * Opens an orders file for parsing, memory-mapping it when it is large enough.
+   *
+   * @param file the orders file to be parsed
+   * @return a parser positioned before the first record
+   * @throws IOException if the file cannot be read
+   */
+  public static OrderFileParser open(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size >= MAP_THRESHOLD) {
+        return new OrderFileParser(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+      }
+      return new OrderFileParser(readFully(channel, (int) size));
+    }
+  }
+
+  /**
+   * Reads an orders file into a heap buffer for parsing. Used by the paths that rewrite
+   * the file afterwards, as a live mapping keeps some platforms from replacing the file.
+   *
+   * @param file the orders file to be parsed
+   * @return a parser positioned before the first record
+   * @throws IOException if the file cannot be read
+   */
+  public static OrderFileParser read(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return new OrderFileParser(readFully(channel, (int) channel.size()));
+    }
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+    ByteBuffer contents = ByteBuffer.allocate(size);
+    while (contents.hasRemaining() && channel.read(contents) >= 0) {
+      // keep reading until the buffer is full or the end of the file is reached
+    }
+    contents.flip();
+    return contents;
+  }
+
+  /**
+   * Advances to the next record, skipping blank lines and removed records.
+   *
+   * @return true if a record was found; false at the end of the file
+   * @throws IllegalStateException if the record does not have 12 columns
+   */
+  public boolean next() {
+    while (position < limit) {
+      recordStart = position;
+      int column = 0;
+      columnStart[0] = position;
+
+      int i = position;
+      while (i < limit && buffer.get(i) != '\n') {
+        if (buffer.get(i) == ',' && column < COLUMNS - 1) {
+          columnEnd[column++] = i;
+          columnStart[column] = i + 1;
+        }
+        i++;
+      }
+      position = i < limit ? i + 1 : i;
+      slotEnd = (i > recordStart && buffer.get(i - 1) == '\r') ? i - 1 : i;
+      recordEnd = slotEnd;
+      while (recordEnd > recordStart && buffer.get(recordEnd - 1) == ' ') {
+        recordEnd--; // padding left behind by an edit patched in place
+      }
+
+      if (recordEnd == recordStart || buffer.get(recordStart) == TOMBSTONE) {
+        continue; // blank line or removed record
+      }
+      if (column != COLUMNS - 1) {
+        throw new IllegalStateException("Order record at byte " + recordStart + " does not have "
+                + COLUMNS + " columns");
+      }
+      columnEnd[COLUMNS - 1] = recordEnd;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the byte offset where the current record starts.
+   *
+   * @return the offset of the current record
+   */
+  public int recordOffset() {
+    return recordStart;
+  }
+
+  /**
+   * Returns the length in bytes of the current record, without its line separator.
+   *
+   * @return the length of the current record
+   */
+  public int recordLength() {
+    return recordEnd - recordStart;
+  }
+
+  /**
+   * Returns the number of bytes the current record occupies before its line separator,
+   * including any padding behind it. A new record of up to this length can be written
+   * over the current one in place.
+   *
+   * @return the length of the slot holding the current record
+   */
+  public int slotLength() {
+    return slotEnd - recordStart;
+  }
+
+  /**
+   * Returns the byte offset just past the line separator of the current record.
+   *
+   * @return the offset of the line that follows the current record
+   */
+  public int nextRecordOffset() {
+    return position;
+  }
+
+  /**
+   * Returns the buffer being parsed, for copying records without decoding them.
+   *
+   * @return the parsed buffer
+   */
+  public ByteBuffer buffer() {
+    return buffer;
+  }
+
+  /**
+   * Decodes the order number of the current record.
+   *
+   * @return the order number
+   * @throws NumberFormatException if the column is not a whole number that fits an int
+   */
+  public int orderNumber() {
+    long orderNum = unscaled(ORDER_NUMBER);
+    if (scale(ORDER_NUMBER) != 0 || orderNum != (int) orderNum) {
+      throw new NumberFormatException("Invalid order number in record at byte " + recordStart);
+    }
+    return (int) orderNum;
+  }
+
+  /**
+   * Decodes a numeric column of the current record as an unscaled long, so that
+   * "12.50" is returned as 1250 with a {@link #scale(int)} of 2.
+   *
+   * @param column the column to be decoded
+   * @return the digits of the column without the decimal point
+   * @throws NumberFormatException if the column is not a plain decimal number with at
+   *         most one decimal point, or its digits do not fit a long
+   */
+  public long unscaled(int column) {
+    int i = columnStart[column];
+    int end = columnEnd[column];
+    boolean negative = i < end && buffer.get(i) == '-';
+    if (negative) {
+      i++;
+    }
+    if (i == end) {
+      throw new NumberFormatException("Empty numeric column " + column);
+    }
+
+    long value = 0;
+    boolean point = false;
+    boolean digits = false;
+    for (; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b >= '0' && b <= '9') {
+        int digit = b - '0';
+        if (value > (Long.MAX_VALUE - digit) / 10) {
+          throw new NumberFormatException("Numeric column " + column + " does not fit a long");
+        }
+        value = value * 10 + digit;
+        digits = true;
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        throw new NumberFormatException("Invalid numeric column " + column);
+      }
+    }
+    if (!digits) {
+      throw new NumberFormatException("Invalid numeric column " + column);
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Returns the number of digits after the decimal point of a numeric column.
+   *
+   * @param column the column to be inspected
+   * @return the scale of the column, or 0 if it has no decimal point
+   */
+  public int scale(int column) {
+    int end = columnEnd[column];
+    for (int i = columnStart[column]; i < end; i++) {
+      if (buffer.get(i) == '.') {
+        return end - i - 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Decodes a numeric column of the current record as a {@code BigDecimal} with the
+   * same unscaled value and scale as the text in the file.
+   *
+   * @param column the column to be decoded
+   * @return the decoded value
+   */
+  public BigDecimal decimal(int column) {
+    try {
+      return BigDecimal.valueOf(unscaled(column), scale(column));
+    } catch (NumberFormatException e) {
+      // Values such as "1E+1" are rare enough to go through the string constructor
+      return new BigDecimal(text(column));
+    }
+  }
+
+  /**
+   * Decodes a text column of the current record. The state and product type columns
+   * repeat across records, so their strings are shared between records.
+   *
+   * @param column the column to be decoded
+   * @return the column text
+   */
+  public String text(int column) {
+    int start = columnStart[column];
+    int length = columnEnd[column] - start;
+    if (column != STATE && column != PRODUCT_TYPE) {
+      return decode(start, length);
+    }
+
+    int hash = 0;
+    for (int i = start; i < start + length; i++) {
+      hash = 31 * hash + buffer.get(i);
+    }
+    int slot = (hash ^ (hash >>> 16)) & (SHARED_TEXT_SLOTS - 1);
+    String shared = sharedText[slot];
+    if (shared == null || !matches(shared, start, length)) {
+      shared = decode(start, length);
+      sharedText[slot] = shared;
+    }
+    return shared;
+  }
+
+  /**
+   * Builds an {@code Order} from the current record, keeping the stored values rather
+   * than recalculating them from the current product and tax libraries.
+   *
+   * @return the order held by the current record
+   */
+  public Order toOrder() {
+    return new Order(orderNumber(), text(CUSTOMER_NAME), text(STATE), decimal(TAX_RATE),
+            text(PRODUCT_TYPE), decimal(AREA), decimal(COST_PER_SQUARE_FOOT),
+            decimal(LABOR_COST_PER_SQUARE_FOOT), decimal(MATERIAL_COST), decimal(LABOR_COST),
+            decimal(TAX), decimal(TOTAL));
+  }
+
+  private boolean matches(String text, int start, int length) {
+    if (text.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (text.charAt(i) != buffer.get(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String decode(int start, int length) {
+    if (buffer.hasArray()) {
+      return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+    }
+    if (scratch.length < length) {
+      scratch = new byte[length];
+    }
+    for (int i = 0; i < length; i++) {
+      scratch[i] = buffer.get(start + i);
+    }
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+}
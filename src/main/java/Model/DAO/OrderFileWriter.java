@@ -0,0 +1,409 @@
+package Model.DAO;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.util.logging.Logger;
+import java.util.LinkedHashMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.io.File;
+
+/**
+ * The {@code OrderFileWriter} class appends order records to the orders files through
+ * a single committer thread that groups concurrent appends into batches.
+ *
+ * Callers hand a record to {@link #append(File, byte[])} and wait for its commit. The
+ * committer takes every record that is waiting, up to {@code maxBatchBytes}, optionally
+ * lingering {@code maxDelayMillis} for more to arrive, and writes the records of each
+ * file with one positional write through a {@code FileChannel} it keeps open for that
+ * file. How the batch is made durable depends on the {@link FsyncPolicy}. Commit
+ * latency and batch sizes are counted so throughput can be tuned against durability.
+ *
+ * Anyone else writing to an orders file while the writer is running must hold
+ * {@link #lockFor(File)}, which the committer holds while it writes to that file.
+ */
+public class OrderFileWriter {
+  private static final Logger LOGGER = Logger.getLogger(OrderFileWriter.class.getName());
+  private static final int MAX_OPEN_CHANNELS = 32;
+
+  /**
+   * When committed batches are forced to the storage device.
+   */
+  public enum FsyncPolicy {
+    /** Every batch is forced before its callers are released. */
+    EVERY_COMMIT,
+    /** Written files are forced every {@code fsyncIntervalMillis} in the background. */
+    INTERVAL,
+    /** Nothing is forced; the operating system flushes its cache on its own schedule. */
+    OS_MANAGED
+  }
+
+  // Queued by close(): the committer writes what is queued before it and then stops
+  private static final PendingRecord CLOSE = new PendingRecord(null, new byte[0]);
+
+  private final FsyncPolicy fsyncPolicy;
+  private final int maxBatchBytes;
+  private final long maxDelayMillis;
+  private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+  private final Map<File, Object> fileLocks = new ConcurrentHashMap<>();
+  private final Map<File, FileChannel> channels = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<File, Boolean> unsynced = new ConcurrentHashMap<>();
+  private final Thread committer;
+  private final ScheduledExecutorService syncer;
+  private volatile boolean closed;
+  private volatile boolean stopped;
+
+  private final LongAdder commits = new LongAdder();
+  private final LongAdder commitNanos = new LongAdder();
+  private final AtomicLong maxCommitNanos = new AtomicLong();
+  private final LongAdder batches = new LongAdder();
+  private final AtomicLong maxBatchRecords = new AtomicLong();
+
+  /**
+   * Constructs an {@code OrderFileWriter} that leaves flushing to the operating system,
+   * which is how orders files were written before the writer existed.
+   */
+  public OrderFileWriter() {
+    this(FsyncPolicy.OS_MANAGED, 0, 64 * 1024, 0);
+  }
+
+  /**
+   * Constructs an {@code OrderFileWriter} and starts its committer thread.
+   *
+   * @param fsyncPolicy        when committed batches are forced to the storage device
+   * @param fsyncIntervalMillis how often written files are forced under
+   *                           {@link FsyncPolicy#INTERVAL}
+   * @param maxBatchBytes      the number of bytes after which a batch is written
+   * @param maxDelayMillis     how long the committer waits for a batch to fill up
+   */
+  public OrderFileWriter(FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, int maxBatchBytes, long maxDelayMillis) {
+    this.fsyncPolicy = fsyncPolicy;
+    this.maxBatchBytes = maxBatchBytes;
+    this.maxDelayMillis = maxDelayMillis;
+
+    committer = new Thread(this::commitLoop, "order-file-committer");
+    committer.setDaemon(true);
+    committer.start();
+
+    if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+      syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-file-syncer");
+        thread.setDaemon(true);
+        return thread;
+      });
+      syncer.scheduleWithFixedDelay(this::syncWrittenFiles,
+              fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      syncer = null;
+    }
+  }
+
+  /**
+   * Appends a record to the end of a file and waits until the batch holding it has
+   * been committed under the fsync policy.
+   *
+   * @param file   the file to be appended to
+   * @param record the bytes to be appended, including any line separator
+   * @return the offset the record was written at
+   * @throws IOException if the batch could not be written or the writer is closed
+   */
+  public long append(File file, byte[] record) throws IOException {
+    if (closed) {
+      throw new IOException("Order file writer is closed");
+    }
+
+    PendingRecord pending = new PendingRecord(file, record);
+    queue.add(pending);
+    if (stopped && queue.remove(pending)) {
+      // Closed while this caller was queueing, after the committer had stopped
+      throw new IOException("Order file writer is closed");
+    }
+    try {
+      return pending.committed.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for " + file.getName() + " to be written");
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException
+              ? (IOException) e.getCause() : new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Returns the lock the committer holds while writing to a file. Code that writes to
+   * or truncates the file itself must hold it too.
+   *
+   * @param file the file being written
+   * @return the lock of the file
+   */
+  public Object lockFor(File file) {
+    return fileLocks.computeIfAbsent(file.getAbsoluteFile(), key -> new Object());
+  }
+
+  /**
+   * Commits the records that are still waiting, forces every written file and closes
+   * the open channels.
+   */
+  public void close() {
+    synchronized (this) {
+      if (!closed) {
+        closed = true;
+        // The committer is not interrupted, so a batch it gathered or is writing is not lost
+        queue.add(CLOSE);
+      }
+    }
+    try {
+      committer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (syncer != null) {
+      syncer.shutdown();
+    }
+
+    synchronized (channels) {
+      for (FileChannel channel : channels.values()) {
+        try {
+          channel.force(false);
+          channel.close();
+        } catch (IOException e) {
+          // The channel is closed anyway; the OS still holds the written data
+        }
+      }
+      channels.clear();
+    }
+    LOGGER.info(getStats());
+  }
+
+  /**
+   * Returns the commit latency and batch size figures gathered so far.
+   *
+   * @return a one line summary of the writer's statistics
+   */
+  public String getStats() {
+    long count = commits.sum();
+    long batchCount = batches.sum();
+    return String.format("Order file writer (%s): %d records in %d batches, avg batch %.1f, max batch %d, "
+                    + "avg commit %.3f ms, max commit %.3f ms", fsyncPolicy, count, batchCount,
+            batchCount == 0 ? 0 : (double) count / batchCount, maxBatchRecords.get(),
+            count == 0 ? 0 : commitNanos.sum() / 1e6 / count, maxCommitNanos.get() / 1e6);
+  }
+
+  /**
+   * The committer loop: waits for a record, gathers a batch and commits it, until the
+   * close marker is reached and the records queued behind it have been committed.
+   * Records queued after that are failed.
+   */
+  private void commitLoop() {
+    List<PendingRecord> batch = new ArrayList<>();
+    boolean draining = false;
+    while (true) {
+      PendingRecord first = draining ? queue.poll() : takeUninterruptibly();
+      if (first == null) {
+        break;
+      }
+      if (first == CLOSE) {
+        draining = true;
+        continue;
+      }
+
+      batch.add(first);
+      if (gather(batch, first.record.length, draining)) {
+        draining = true;
+      }
+      commit(batch);
+      batch.clear();
+    }
+
+    stopped = true;
+    IOException closedException = new IOException("Order file writer is closed");
+    for (PendingRecord pending = queue.poll(); pending != null; pending = queue.poll()) {
+      pending.committed.completeExceptionally(closedException);
+    }
+  }
+
+  private PendingRecord takeUninterruptibly() {
+    while (true) {
+      try {
+        return queue.take();
+      } catch (InterruptedException e) {
+        // Only close() stops the committer
+      }
+    }
+  }
+
+  /**
+   * Adds waiting records to a batch until it is full or the linger time has passed,
+   * without lingering once the writer is closing.
+   *
+   * @return true if the close marker was reached
+   */
+  private boolean gather(List<PendingRecord> batch, int bytes, boolean draining) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    while (bytes < maxBatchBytes) {
+      long wait = deadline - System.nanoTime();
+      PendingRecord next;
+      try {
+        next = wait > 0 && !draining ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+      } catch (InterruptedException e) {
+        // Stop lingering and commit what has been gathered
+        return false;
+      }
+      if (next == null) {
+        return false;
+      }
+      if (next == CLOSE) {
+        // Commit what has been gathered, then drain what is left without lingering
+        return true;
+      }
+      batch.add(next);
+      bytes += next.record.length;
+    }
+    return false;
+  }
+
+  /**
+   * Writes a batch with one write per file and releases its callers.
+   */
+  private void commit(List<PendingRecord> batch) {
+    Map<File, List<PendingRecord>> byFile = new LinkedHashMap<>();
+    for (PendingRecord pending : batch) {
+      byFile.computeIfAbsent(pending.file.getAbsoluteFile(), key -> new ArrayList<>()).add(pending);
+    }
+
+    for (Map.Entry<File, List<PendingRecord>> entry : byFile.entrySet()) {
+      File file = entry.getKey();
+      List<PendingRecord> records = entry.getValue();
+
+      try {
+        int size = 0;
+        for (PendingRecord pending : records) {
+          size += pending.record.length;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        for (PendingRecord pending : records) {
+          bytes.put(pending.record);
+        }
+        bytes.flip();
+
+        long offset;
+        synchronized (lockFor(file)) {
+          FileChannel channel = channelFor(file);
+          offset = channel.size();
+          FileDAOImpl.writeFully(channel, bytes, offset);
+          if (fsyncPolicy == FsyncPolicy.EVERY_COMMIT) {
+            channel.force(false);
+          } else if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            unsynced.put(file, Boolean.TRUE);
+          }
+        }
+
+        long now = System.nanoTime();
+        for (PendingRecord pending : records) {
+          record(now - pending.enqueued);
+          pending.committed.complete(offset);
+          offset += pending.record.length;
+        }
+      } catch (IOException e) {
+        closeChannel(file);
+        for (PendingRecord pending : records) {
+          pending.committed.completeExceptionally(e);
+        }
+      }
+    }
+
+    batches.increment();
+    maxBatchRecords.accumulateAndGet(batch.size(), Math::max);
+  }
+
+  private void record(long latencyNanos) {
+    commits.increment();
+    commitNanos.add(latencyNanos);
+    maxCommitNanos.accumulateAndGet(latencyNanos, Math::max);
+  }
+
+  /**
+   * Background task of {@link FsyncPolicy#INTERVAL} that forces every file written
+   * since the last run.
+   */
+  private void syncWrittenFiles() {
+    for (File file : unsynced.keySet()) {
+      unsynced.remove(file);
+      synchronized (lockFor(file)) {
+        try {
+          channelFor(file).force(false);
+        } catch (IOException e) {
+          unsynced.put(file, Boolean.TRUE); // retried on the next run
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the open channel of a file, opening it and closing the least recently used
+   * channel when too many are open.
+   */
+  private FileChannel channelFor(File file) throws IOException {
+    synchronized (channels) {
+      FileChannel channel = channels.get(file);
+      if (channel != null && channel.isOpen()) {
+        return channel;
+      }
+
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      channels.put(file, channel);
+      if (channels.size() > MAX_OPEN_CHANNELS) {
+        Map.Entry<File, FileChannel> eldest = channels.entrySet().iterator().next();
+        channels.remove(eldest.getKey());
+        try {
+          eldest.getValue().force(false);
+          eldest.getValue().close();
+        } catch (IOException e) {
+          // The channel is closed anyway; the OS still holds the written data
+        }
+      }
+      return channel;
+    }
+  }
+
+  private void closeChannel(File file) {
+    synchronized (channels) {
+      FileChannel channel = channels.remove(file);
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          // Nothing more can be done with a channel that failed
+        }
+      }
+    }
+  }
+
+  /**
+   * A record waiting to be committed.
+   */
+  private static class PendingRecord {
+    private final File file;
+    private final byte[] record;
+    private final long enqueued = System.nanoTime();
+    private final CompletableFuture<Long> committed = new CompletableFuture<>();
+
+    PendingRecord(File file, byte[] record) {
+      this.file = file;
+      this.record = record;
+    }
+  }
+}
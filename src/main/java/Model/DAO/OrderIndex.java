@@ -0,0 +1,180 @@
+package Model.DAO;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import Model.Order;
+
+/**
+ * Secondary indexes of an {@link OrderStore} by customer name, state and product type.
+ *
+ * Each index maps a value to the set of orders having it, an order being a
+ * {@code long} of its epoch day in the high and its order number in the low 32 bits,
+ * so sorting the keys sorts the orders by date and then by order number. A query
+ * walks the smallest set of the criteria it was given and looks its keys up in the
+ * others, so it costs about as much as its smallest set instead of every order.
+ *
+ * A value's set is changed inside the map's own compute, so concurrent changes of
+ * orders with the same value never lose an update, and an empty set is dropped
+ * together with its value.
+ *
+ * The distinct customer names are also kept in a {@link NameTrigrams} index for
+ * searching names that are only partly known or misspelled. A name enters it with its
+ * first order and leaves it with its last one.
+ */
+class OrderIndex {
+  private final ConcurrentMap<String, Set<Long>> byCustomerName = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<Long>> byState = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<Long>> byProductType = new ConcurrentHashMap<>();
+  private final NameTrigrams customerNames = new NameTrigrams();
+  private final Set<Long> indexedDays = ConcurrentHashMap.newKeySet();
+
+  static long key(long day, int orderNum) {
+    return (day << 32) | (orderNum & 0xFFFFFFFFL);
+  }
+
+  static long day(long key) {
+    return key >> 32;
+  }
+
+  static int orderNumber(long key) {
+    return (int) key;
+  }
+
+  void add(long day, Order order) {
+    long key = key(day, order.getOrderNumber());
+    put(byCustomerName, order.getCustomerName(), key, customerNames::add);
+    put(byState, order.getState(), key, null);
+    put(byProductType, order.getProductType(), key, null);
+  }
+
+  void remove(long day, int orderNum, String customerName, String state, String productType) {
+    long key = key(day, orderNum);
+    drop(byCustomerName, customerName, key, customerNames::remove);
+    drop(byState, state, key, null);
+    drop(byProductType, productType, key, null);
+  }
+
+  void remove(long day, Order order) {
+    remove(day, order.getOrderNumber(), order.getCustomerName(), order.getState(), order.getProductType());
+  }
+
+  /**
+   * Records that every order of a day is in the indexes.
+   */
+  void indexed(long day) {
+    indexedDays.add(day);
+  }
+
+  boolean isIndexed(long day) {
+    return indexedDays.contains(day);
+  }
+
+  void clear() {
+    byCustomerName.clear();
+    byState.clear();
+    byProductType.clear();
+    customerNames.clear();
+    indexedDays.clear();
+  }
+
+  /**
+   * Returns the orders matching every criterion that is not null, sorted by date and
+   * then by order number. Every order matches when all criteria are null.
+   */
+  long[] find(String customerName, String state, String productType) {
+    List<Set<Long>> sets = new ArrayList<>(3);
+    if ((customerName != null && !collect(byCustomerName, customerName, sets))
+            || (state != null && !collect(byState, state, sets))
+            || (productType != null && !collect(byProductType, productType, sets))) {
+      return new long[0];
+    }
+    if (sets.isEmpty()) {
+      // Every order has a state, so the state sets together hold every order
+      sets.add(ConcurrentHashMap.newKeySet());
+      byState.values().forEach(sets.get(0)::addAll);
+    }
+
+    sets.sort((a, b) -> Integer.compare(a.size(), b.size()));
+    long[] keys = new long[sets.get(0).size()];
+    int count = 0;
+    for (Long key : sets.get(0)) {
+      boolean matches = true;
+      for (int i = 1; i < sets.size() && matches; i++) {
+        matches = sets.get(i).contains(key);
+      }
+      if (matches) {
+        if (count == keys.length) {
+          keys = Arrays.copyOf(keys, count * 2 + 1); // the set grew while it was walked
+        }
+        keys[count++] = key;
+      }
+    }
+    keys = Arrays.copyOf(keys, count);
+    Arrays.sort(keys);
+    return keys;
+  }
+
+  /**
+   * Returns the customer names most similar to a partial or misspelled name, most
+   * similar first.
+   */
+  List<String> searchCustomerNames(String query, int limit) {
+    return customerNames.search(query, limit);
+  }
+
+  private static boolean collect(ConcurrentMap<String, Set<Long>> index, String value, List<Set<Long>> sets) {
+    Set<Long> keys = index.get(value);
+    if (keys == null) {
+      return false;
+    }
+    sets.add(keys);
+    return true;
+  }
+
+  /**
+   * Adds a key to the set of a value, telling {@code firstKey}, if any, when the value
+   * gets its first key.
+   */
+  private static void put(ConcurrentMap<String, Set<Long>> index, String value, long key, Consumer<String> firstKey) {
+    if (value == null) {
+      return;
+    }
+    index.compute(value, (name, keys) -> {
+      Set<Long> set = keys;
+      if (set == null) {
+        set = ConcurrentHashMap.newKeySet();
+        if (firstKey != null) {
+          firstKey.accept(name);
+        }
+      }
+      set.add(key);
+      return set;
+    });
+  }
+
+  /**
+   * Drops a key from the set of a value, telling {@code lastKey}, if any, when the
+   * value loses its last key.
+   */
+  private static void drop(ConcurrentMap<String, Set<Long>> index, String value, long key, Consumer<String> lastKey) {
+    if (value == null) {
+      return;
+    }
+    index.computeIfPresent(value, (name, keys) -> {
+      keys.remove(key);
+      if (!keys.isEmpty()) {
+        return keys;
+      }
+      if (lastKey != null) {
+        lastKey.accept(name);
+      }
+      return null;
+    });
+  }
+}
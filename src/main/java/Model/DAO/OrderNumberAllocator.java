@@ -0,0 +1,163 @@
+package Model.DAO;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLong;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.io.File;
+
+/**
+ * The {@code OrderNumberAllocator} class hands out order numbers that are never reused,
+ * not after a restart and not by another process sharing the same orders folder.
+ *
+ * The next free order number, the high-water mark, is stored as a single long in a
+ * small file. Numbers are not taken from the file one by one: the allocator leases a
+ * block of {@link #BLOCK_SIZE} numbers by moving the high-water mark forward under an
+ * exclusive {@code FileLock}, and then hands the numbers of the block out from an
+ * {@code AtomicLong} without any locking. The file is therefore touched once per
+ * block, and two processes can never lease overlapping blocks. Numbers left in a
+ * block when the application stops are skipped, so order numbers can have gaps.
+ */
+public class OrderNumberAllocator {
+  public static final int BLOCK_SIZE = 64;
+
+  private final File file;
+  private final int blockSize;
+  private final AtomicReference<Lease> lease = new AtomicReference<>(new Lease(0, 0));
+
+  /**
+   * Constructs an {@code OrderNumberAllocator} that keeps its high-water mark in the
+   * specified file and leases blocks of {@link #BLOCK_SIZE} numbers.
+   *
+   * @param file the high-water mark file, created on first use
+   */
+  public OrderNumberAllocator(File file) {
+    this(file, BLOCK_SIZE);
+  }
+
+  /**
+   * Constructs an {@code OrderNumberAllocator} leasing blocks of the specified size.
+   *
+   * @param file the high-water mark file, created on first use
+   * @param blockSize the number of order numbers leased at a time
+   */
+  public OrderNumberAllocator(File file, int blockSize) {
+    this.file = file;
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Returns whether the high-water mark file has been written, so order numbering can
+   * continue without looking at the stored orders.
+   *
+   * @return true if the file holds a high-water mark
+   */
+  public boolean hasHighWaterMark() {
+    return file.length() >= Long.BYTES;
+  }
+
+  /**
+   * Returns the next order number, leasing a new block when the current one is used up.
+   *
+   * @return an order number that was never handed out before
+   * @throws IllegalStateException if the high-water mark file cannot be updated
+   */
+  public int next() {
+    while (true) {
+      Lease current = lease.get();
+      long orderNum = current.next.getAndIncrement();
+      if (orderNum < current.end) {
+        return (int) orderNum;
+      }
+      renew(current, 0);
+    }
+  }
+
+  /**
+   * Makes sure that no order number up to and including the specified one is handed
+   * out, such as after loading orders written by an older version that did not keep
+   * a high-water mark.
+   *
+   * @param highestOrderNum the highest order number already in use
+   * @throws IllegalStateException if the high-water mark file cannot be updated
+   */
+  public synchronized void advancePast(int highestOrderNum) {
+    Lease current = lease.get();
+    if (current.next.get() <= highestOrderNum) {
+      lease.set(leaseBlock(highestOrderNum + 1L));
+    }
+  }
+
+  private synchronized void renew(Lease expired, long floor) {
+    if (lease.get() == expired) {
+      lease.set(leaseBlock(floor));
+    }
+  }
+
+  /**
+   * Moves the high-water mark in the file forward by one block, starting no lower than
+   * the specified floor, and returns the block.
+   */
+  private Lease leaseBlock(long floor) {
+    // A FileLock excludes other processes only; threads of this JVM queue up here
+    synchronized (OrderNumberAllocator.class) {
+      if (file.getParentFile() != null) {
+        file.getParentFile().mkdirs();
+      }
+
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+              StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        FileLock lock = channel.lock();
+        try {
+          return moveHighWaterMark(channel, floor);
+        } finally {
+          lock.release();
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Order number file " + file.getName() + " could not be updated", e);
+      }
+    }
+  }
+
+  /**
+   * Reads the high-water mark from the locked file, moves it forward by one block and
+   * returns the block.
+   */
+  private Lease moveHighWaterMark(FileChannel channel, long floor) throws IOException {
+    ByteBuffer highWaterMark = ByteBuffer.allocate(Long.BYTES);
+    while (highWaterMark.hasRemaining() && channel.read(highWaterMark, highWaterMark.position()) >= 0) {
+      // keep reading until the whole mark has been read
+    }
+
+    long start = Math.max(1, floor);
+    if (!highWaterMark.hasRemaining()) {
+      start = Math.max(start, highWaterMark.getLong(0));
+    }
+    long end = start + blockSize;
+    if (end > Integer.MAX_VALUE) {
+      throw new IllegalStateException("No order numbers are left in " + file.getName());
+    }
+
+    highWaterMark.clear();
+    highWaterMark.putLong(end).flip();
+    FileDAOImpl.writeFully(channel, highWaterMark, 0);
+    channel.force(false);
+    return new Lease(start, end);
+  }
+
+  /**
+   * A leased block of order numbers, [next, end).
+   */
+  private static class Lease {
+    private final AtomicLong next;
+    private final long end;
+
+    Lease(long start, long end) {
+      this.next = new AtomicLong(start);
+      this.end = end;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package Model.DAO;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+
+import Model.Order;
+
+/**
+ * The {@code OrderSnapshot} class is a read-only view of a range of dates of an
+ * {@link OrderStore} as they were when the snapshot was taken.
+ *
+ * A snapshot holds the version of every date that was current at that instant, the
+ * immutable order lists of dates on the heap and the segments of archived dates, so
+ * taking one copies no orders. Changes made afterwards publish new versions the
+ * snapshot never sees, however long it is read, and reading it never holds up a change.
+ * Archived dates are decoded each time they are read.
+ */
+public class OrderSnapshot {
+  private final NavigableMap<Long, Supplier<List<Order>>> dates;
+
+  OrderSnapshot(NavigableMap<Long, Supplier<List<Order>>> dates) {
+    this.dates = Collections.unmodifiableNavigableMap(dates);
+  }
+
+  /**
+   * Returns the dates of the snapshot, in date order.
+   *
+   * @return the dates that had orders stored when the snapshot was taken
+   */
+  public Stream<LocalDate> dates() {
+    return dates.keySet().stream().map(LocalDate::ofEpochDay);
+  }
+
+  /**
+   * Returns the number of dates in the snapshot.
+   *
+   * @return the number of dates
+   */
+  public int dateCount() {
+    return dates.size();
+  }
+
+  /**
+   * Returns the orders of a date as they were when the snapshot was taken.
+   *
+   * @param date the date of the orders
+   * @return an unmodifiable list of the orders sorted by order number, empty if the
+   *         date is not in the snapshot
+   */
+  public List<Order> orders(LocalDate date) {
+    Supplier<List<Order>> orders = dates.get(date.toEpochDay());
+    return orders == null ? Collections.emptyList() : orders.get();
+  }
+
+  /**
+   * Returns every order of the snapshot, by date and then by order number.
+   *
+   * @return the orders, read date by date as the stream is consumed
+   */
+  public Stream<Order> orders() {
+    return dates.values().stream().flatMap(orders -> orders.get().stream());
+  }
+}
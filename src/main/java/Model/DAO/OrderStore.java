@@ -0,0 +1,758 @@
+package Model.DAO;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import Model.Order;
+
+/**
+ * The {@code OrderStore} class holds the orders in memory, keyed by date and, within a
+ * date, by order number.
+ *
+ * Dates are kept in a {@code ConcurrentSkipListMap} keyed by their epoch day, so they
+ * stay sorted and a range of dates is a sub-map view that can be walked without
+ * copying it. Each date maps to its own copy-on-write {@link DateOrders}, so the
+ * orders of a date are read as one immutable version without locking, and every
+ * change publishes a new version atomically. Orders are never edited in place: an edit
+ * works on a copy that replaces the order, so no reader sees a half-applied edit. A
+ * date stays in the store once an order was added to it, even after all of its orders
+ * are removed, so it can still be displayed as a day without orders.
+ *
+ * Order numbers are unique across dates, so a second index maps every order number to
+ * the date holding it, and an order can be found without knowing its date. Order files
+ * written while numbering still restarted at 1 on every run can repeat a number on
+ * several dates; the index then points at the date stored last.
+ *
+ * Dates before a cutoff can be moved to an off-heap {@link OrderArchive} with
+ * {@link #archiveBefore}. They are read from there transparently, and moved back onto
+ * the heap the first time one of their orders is added, edited or removed. Changes
+ * hold the read side of a read-write lock, so they still run side by side, while
+ * moving dates between the two tiers holds the write side.
+ *
+ * With {@link #useCache} the store no longer holds every date: a {@link DateCache}
+ * reads a date from its orders file the first time it is used and evicts dates again
+ * to stay within its bounds. The order number index keeps the dates of evicted orders,
+ * so they are read back when they are looked up by number, and a number it does not
+ * know yet makes the dates never read so far be read once to index them.
+ *
+ * An {@link OrderIndex} finds orders by customer name, state and product type without
+ * scanning every date. It is changed in the same atomic step as the orders of a date,
+ * and, like the order number index, keeps the orders of archived and evicted dates.
+ * Its trigram index of customer names also finds orders by a misspelled name.
+ *
+ * {@link #snapshot} takes an {@link OrderSnapshot} of a range of dates as they were at
+ * one instant, for reports and exports that must not see changes made while they run.
+ */
+public class OrderStore {
+  private final ConcurrentNavigableMap<Long, DateOrders> ordersByDate = new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<Integer, LocalDate> dateByOrderNumber = new ConcurrentHashMap<>();
+  private final OrderIndex index = new OrderIndex();
+  private final OrderArchive archive = new OrderArchive();
+  private final ReentrantReadWriteLock tiers = new ReentrantReadWriteLock();
+  private volatile DateCache cache;
+
+  /**
+   * Adds an order to a date, replacing any order with the same number on that date.
+   *
+   * @param date the date of the order
+   * @param order the order to be added
+   */
+  public void add(LocalDate date, Order order) {
+    lockOnHeap(date);
+    try {
+      DateOrders orders = onHeap(date);
+      if (orders == null) {
+        orders = ordersByDate.computeIfAbsent(date.toEpochDay(), key -> new DateOrders());
+        index.indexed(date.toEpochDay());
+        admitted(date.toEpochDay());
+      }
+      synchronized (orders) {
+        Order replaced = orders.put(order);
+        if (replaced != null) {
+          index.remove(date.toEpochDay(), replaced);
+        }
+        index.add(date.toEpochDay(), order);
+      }
+      dateByOrderNumber.put(order.getOrderNumber(), date);
+      markDirty(date);
+    } finally {
+      tiers.readLock().unlock();
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Applies an edit to a copy of an order while no other change of the same date can
+   * run, and stores the result in place of the order. Readers keep seeing the order as
+   * it was until the edit is complete.
+   *
+   * @param date the date of the order
+   * @param orderNum the order number of the order
+   * @param edit the edit, given a copy of the order and returning the order to be stored
+   * @return the edited order, or null if the date has no such order
+   */
+  public Order edit(LocalDate date, int orderNum, UnaryOperator<Order> edit) {
+    lockOnHeap(date);
+    try {
+      DateOrders orders = onHeap(date);
+      if (orders == null) {
+        return null;
+      }
+      Order edited;
+      synchronized (orders) {
+        Order current = orders.get(orderNum);
+        edited = orders.edit(orderNum, edit);
+        if (current != null) {
+          index.remove(date.toEpochDay(), current);
+        }
+        if (edited != null) {
+          index.add(date.toEpochDay(), edited);
+        }
+      }
+      if (edited != null) {
+        markDirty(date);
+      }
+      return edited;
+    } finally {
+      tiers.readLock().unlock();
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Applies an edit to copies of several orders of a date as one change, so readers
+   * see the date either before or after all of the edits, such as when a catalog
+   * change reprices the orders of a date.
+   *
+   * @param date the date of the orders
+   * @param orderNums the order numbers of the orders
+   * @param edit the edit, given a copy of each order and returning the order to be
+   *             stored, which must keep its order number
+   * @return the edited orders, leaving out the order numbers the date does not have;
+   *         the date only has to be written if one of them has other values than before
+   */
+  public List<Order> editAll(LocalDate date, Collection<Integer> orderNums, UnaryOperator<Order> edit) {
+    lockOnHeap(date);
+    try {
+      DateOrders orders = onHeap(date);
+      if (orders == null) {
+        return Collections.emptyList();
+      }
+      List<Order> edited;
+      boolean changed = false;
+      synchronized (orders) {
+        Map<Integer, Order> current = new HashMap<>();
+        for (int orderNum : orderNums) {
+          Order order = orders.get(orderNum);
+          if (order != null) {
+            current.put(orderNum, order);
+          }
+        }
+        edited = orders.editAll(orderNums, edit);
+        for (Order order : current.values()) {
+          index.remove(date.toEpochDay(), order);
+        }
+        for (Order order : edited) {
+          index.add(date.toEpochDay(), order);
+          changed |= !sameValues(current.get(order.getOrderNumber()), order);
+        }
+      }
+      // A date whose orders kept every value has nothing to write, and nothing would
+      // ever mark it persisted again
+      if (changed) {
+        markDirty(date);
+      }
+      return edited;
+    } finally {
+      tiers.readLock().unlock();
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Removes an order from a date.
+   *
+   * @param date the date of the order
+   * @param orderNum the order number of the order
+   * @return the removed order, or null if the date has no such order
+   */
+  public Order remove(LocalDate date, int orderNum) {
+    lockOnHeap(date);
+    try {
+      DateOrders orders = onHeap(date);
+      if (orders == null) {
+        return null;
+      }
+      Order removed;
+      synchronized (orders) {
+        removed = orders.remove(orderNum);
+        if (removed != null) {
+          index.remove(date.toEpochDay(), removed);
+        }
+      }
+      if (removed != null) {
+        dateByOrderNumber.remove(orderNum, date);
+        markDirty(date);
+      }
+      return removed;
+    } finally {
+      tiers.readLock().unlock();
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Returns an order of a date.
+   *
+   * @param date the date of the order
+   * @param orderNum the order number of the order
+   * @return the order, or null if the date has no such order
+   */
+  public Order get(LocalDate date, int orderNum) {
+    tiers.readLock().lock();
+    try {
+      DateOrders orders = onHeap(date);
+      return orders != null ? orders.get(orderNum) : archive.get(date, orderNum);
+    } finally {
+      tiers.readLock().unlock();
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Returns the date holding an order.
+   *
+   * @param orderNum the order number of the order
+   * @return the date of the order, or null if no date has such an order
+   */
+  public LocalDate dateOf(int orderNum) {
+    LocalDate date = dateByOrderNumber.get(orderNum);
+    if (date != null) {
+      return date;
+    }
+
+    date = indexedDateOf(orderNum);
+    if (date == null && cache != null) {
+      // With a cache the order may be on a date that was never read; like find(),
+      // read those dates once so every order number is indexed
+      indexEveryDate();
+      date = indexedDateOf(orderNum);
+    }
+    return date;
+  }
+
+  private LocalDate indexedDateOf(int orderNum) {
+    tiers.readLock().lock();
+    try {
+      LocalDate date = dateByOrderNumber.get(orderNum);
+      return date != null ? date : archive.dateOf(orderNum);
+    } finally {
+      tiers.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns whether orders were ever stored for a date.
+   *
+   * @param date the date to be checked
+   * @return true if the date is in the store
+   */
+  public boolean containsDate(LocalDate date) {
+    tiers.readLock().lock();
+    try {
+      DateCache dateCache = cache;
+      return ordersByDate.containsKey(date.toEpochDay()) || archive.contains(date)
+              || (dateCache != null && dateCache.isKnown(date.toEpochDay()));
+    } finally {
+      tiers.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the orders of a date, sorted by order number.
+   *
+   * @param date the date of the orders
+   * @return an unmodifiable snapshot of the orders, empty if the date is not in the store
+   */
+  public List<Order> orders(LocalDate date) {
+    tiers.readLock().lock();
+    try {
+      DateOrders orders = onHeap(date);
+      if (orders == null) {
+        List<Order> archived = archive.orders(date);
+        return archived == null ? Collections.emptyList() : archived;
+      }
+      return orders.snapshot();
+    } finally {
+      tiers.readLock().unlock();
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Returns the dates in the store from one date up to and including another, in date
+   * order. The dates are read from the store as the stream is consumed.
+   *
+   * @param from the first date of the range
+   * @param to the last date of the range
+   * @return the dates of the range that are in the store
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  public Stream<LocalDate> datesBetween(LocalDate from, LocalDate to) {
+    Stream<Long> onHeap = range(from, to).keySet().stream();
+    DateCache dateCache = cache;
+    if (dateCache != null) {
+      // Every date in memory or in the archive is also known to the cache
+      return dateCache.knownDays(from.toEpochDay(), to.toEpochDay()).stream().map(LocalDate::ofEpochDay);
+    }
+    if (archive.dateCount() == 0) {
+      return onHeap.map(LocalDate::ofEpochDay);
+    }
+    // The days of both tiers are merged; only the keys are sorted, never the orders
+    return Stream.concat(archive.days(from, to).stream(), onHeap).sorted().distinct().map(LocalDate::ofEpochDay);
+  }
+
+  /**
+   * Returns the orders from one date up to and including another, by date and then by
+   * order number, from a {@link #snapshot} of the range. Only the orders of the date
+   * being consumed are decoded at any time, so a range of any length is never copied
+   * as a whole.
+   *
+   * @param from the first date of the range
+   * @param to the last date of the range
+   * @return the orders of the range
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  public Stream<Order> ordersBetween(LocalDate from, LocalDate to) {
+    return snapshot(from, to).orders();
+  }
+
+  /**
+   * Takes a snapshot of the dates from one date up to and including another, as they
+   * were at one instant. Only the current version of every date is recorded, which
+   * takes the write side of the tier lock for one reference per date; changes wait
+   * that long at most, and never for the reader of the snapshot.
+   *
+   * With a cache, dates that are in no tier of memory are read from their orders file
+   * once the snapshot gets to them. They have no unwritten changes, but may show
+   * changes made after the snapshot was taken.
+   *
+   * @param from the first date of the range
+   * @param to the last date of the range
+   * @return a consistent, read-only view of the range
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  public OrderSnapshot snapshot(LocalDate from, LocalDate to) {
+    NavigableMap<Long, Supplier<List<Order>>> dates = new TreeMap<>();
+    tiers.writeLock().lock();
+    try {
+      for (Map.Entry<Long, DateOrders> entry : range(from, to).entrySet()) {
+        List<Order> orders = entry.getValue().snapshot();
+        dates.put(entry.getKey(), () -> orders);
+      }
+      for (Long day : archive.days(from, to)) {
+        ByteBuffer segment = archive.segment(day);
+        dates.put(day, () -> archive.orders(segment));
+      }
+      DateCache dateCache = cache;
+      if (dateCache != null) {
+        for (Long day : dateCache.knownDays(from.toEpochDay(), to.toEpochDay())) {
+          dates.putIfAbsent(day, () -> orders(LocalDate.ofEpochDay(day)));
+        }
+      }
+    } finally {
+      tiers.writeLock().unlock();
+    }
+    return new OrderSnapshot(dates);
+  }
+
+  /**
+   * Returns the orders matching a customer name, a state and a product type, by date
+   * and then by order number. Only the orders the indexes point at are read, so a query
+   * costs about as much as the orders matching its most selective criterion. With a
+   * cache, the first query reads the dates that were not read yet, once, to index them.
+   *
+   * @param customerName the customer name of the orders, or null for any customer
+   * @param state the state of the orders, or null for any state
+   * @param productType the product type of the orders, or null for any product type
+   * @return an unmodifiable list of the matching orders
+   */
+  public List<Order> find(String customerName, String state, String productType) {
+    List<Order> found = new ArrayList<>();
+    findByDate(customerName, state, productType).values().forEach(found::addAll);
+    return Collections.unmodifiableList(found);
+  }
+
+  /**
+   * Returns the orders matching a customer name, a state and a product type like
+   * {@link #find}, grouped by the date the indexes hold them under. Order numbers are
+   * only unique within a date in order files written before the allocator, so callers
+   * that go on to change the orders must use these dates rather than look them up by
+   * number.
+   *
+   * @param customerName the customer name of the orders, or null for any customer
+   * @param state the state of the orders, or null for any state
+   * @param productType the product type of the orders, or null for any product type
+   * @return the matching orders of every date, by date and then by order number
+   */
+  public NavigableMap<LocalDate, List<Order>> findByDate(String customerName, String state, String productType) {
+    indexEveryDate();
+    NavigableMap<LocalDate, List<Order>> found = new TreeMap<>();
+    for (long key : index.find(customerName, state, productType)) {
+      LocalDate date = LocalDate.ofEpochDay(OrderIndex.day(key));
+      Order order = get(date, OrderIndex.orderNumber(key));
+      // An order edited after the indexes were read is checked again
+      if (order != null && matches(customerName, order.getCustomerName()) && matches(state, order.getState())
+              && matches(productType, order.getProductType())) {
+        found.computeIfAbsent(date, day -> new ArrayList<>()).add(order);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns the orders of the customers whose names are most similar to a partial or
+   * misspelled name, most similar customer first and then by date and order number.
+   * Like {@link #find}, a query with a cache first reads the dates not read yet.
+   *
+   * @param query the name as far as it is known
+   * @param limit the largest number of orders returned
+   * @return an unmodifiable list of the orders found
+   */
+  public List<Order> searchCustomerNames(String query, int limit) {
+    indexEveryDate();
+    List<Order> found = new ArrayList<>();
+    for (String customerName : index.searchCustomerNames(query, limit)) {
+      for (Order order : find(customerName, null, null)) {
+        if (found.size() == limit) {
+          return Collections.unmodifiableList(found);
+        }
+        found.add(order);
+      }
+    }
+    return Collections.unmodifiableList(found);
+  }
+
+  /**
+   * Reads the dates the cache knows but never read, so every order is indexed.
+   */
+  private void indexEveryDate() {
+    DateCache dateCache = cache;
+    if (dateCache != null) {
+      for (Long day : dateCache.knownDays(Long.MIN_VALUE, Long.MAX_VALUE)) {
+        if (!index.isIndexed(day)) {
+          orders(LocalDate.ofEpochDay(day));
+        }
+      }
+    }
+  }
+
+  private static boolean matches(String wanted, String value) {
+    return wanted == null || wanted.equals(value);
+  }
+
+  private ConcurrentNavigableMap<Long, DateOrders> range(LocalDate from, LocalDate to) {
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException(from + " is after " + to);
+    }
+    return ordersByDate.subMap(from.toEpochDay(), true, to.toEpochDay(), true);
+  }
+
+  /**
+   * Returns the number of dates in the store.
+   *
+   * @return the number of dates
+   */
+  public int dateCount() {
+    tiers.readLock().lock();
+    try {
+      DateCache dateCache = cache;
+      return dateCache != null ? dateCache.knownCount() : ordersByDate.size() + archive.dateCount();
+    } finally {
+      tiers.readLock().unlock();
+    }
+  }
+
+  /**
+   * Moves every date before a cutoff from the heap to the off-heap archive.
+   *
+   * @param cutoff the first date that stays on the heap
+   * @return the number of dates that were moved
+   */
+  public int archiveBefore(LocalDate cutoff) {
+    tiers.writeLock().lock();
+    try {
+      ConcurrentNavigableMap<Long, DateOrders> old = ordersByDate.headMap(cutoff.toEpochDay());
+      Map<LocalDate, Collection<Order>> moved = new HashMap<>();
+      for (Map.Entry<Long, DateOrders> entry : old.entrySet()) {
+        moved.put(LocalDate.ofEpochDay(entry.getKey()), entry.getValue().snapshot());
+      }
+      archive.putAll(moved);
+
+      for (Map.Entry<LocalDate, Collection<Order>> entry : moved.entrySet()) {
+        forget(entry.getKey().toEpochDay());
+        for (Order order : entry.getValue()) {
+          dateByOrderNumber.remove(order.getOrderNumber(), entry.getKey());
+        }
+      }
+      old.clear();
+      return moved.size();
+    } finally {
+      tiers.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of bytes the archived dates take up outside the heap.
+   *
+   * @return the size of the archive in bytes
+   */
+  public long archivedBytes() {
+    return archive.bytes();
+  }
+
+  /**
+   * Replaces the contents of the store. Every date is put on the heap, and a cache set
+   * with {@link #useCache} is no longer used.
+   *
+   * @param orders the orders to be stored, keyed by date
+   */
+  public void replaceAll(Map<LocalDate, List<Order>> orders) {
+    tiers.writeLock().lock();
+    try {
+      cache = null;
+      ordersByDate.clear();
+      dateByOrderNumber.clear();
+      index.clear();
+      archive.clear();
+      for (Map.Entry<LocalDate, List<Order>> entry : orders.entrySet()) {
+        long day = entry.getKey().toEpochDay();
+        DateOrders ordersForDate = new DateOrders(entry.getValue());
+        for (Order order : ordersForDate.snapshot()) {
+          index.add(day, order);
+          dateByOrderNumber.put(order.getOrderNumber(), entry.getKey());
+        }
+        ordersByDate.put(day, ordersForDate);
+        index.indexed(day);
+      }
+    } finally {
+      tiers.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Empties the store and from then on reads dates from the order files on first use,
+   * keeping only as many in memory as the cache allows.
+   *
+   * @param dateCache the cache deciding which dates stay in memory
+   * @param storedDates the dates that have an orders file
+   */
+  public void useCache(DateCache dateCache, Collection<LocalDate> storedDates) {
+    tiers.writeLock().lock();
+    try {
+      ordersByDate.clear();
+      dateByOrderNumber.clear();
+      index.clear();
+      archive.clear();
+      dateCache.reset(storedDates);
+      cache = dateCache;
+    } finally {
+      tiers.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the cache set with {@link #useCache}.
+   *
+   * @return the cache, or null if every date is held in memory
+   */
+  public DateCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Records that a change of a date was written to its orders file, so the date may
+   * be evicted again once all of its changes are.
+   *
+   * @param date the date of the change
+   */
+  public void markPersisted(LocalDate date) {
+    DateCache dateCache = cache;
+    if (dateCache != null) {
+      dateCache.markPersisted(date.toEpochDay());
+    }
+  }
+
+  /**
+   * Keeps a date in memory until it is unpinned as often as it was pinned.
+   *
+   * @param date the date to be kept
+   */
+  public void pin(LocalDate date) {
+    DateCache dateCache = cache;
+    if (dateCache != null) {
+      dateCache.pin(date.toEpochDay());
+    }
+  }
+
+  /**
+   * Releases a pin taken with {@link #pin}.
+   *
+   * @param date the date to be released
+   */
+  public void unpin(LocalDate date) {
+    DateCache dateCache = cache;
+    if (dateCache != null) {
+      dateCache.unpin(date.toEpochDay());
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Returns the orders of a date on the heap, reading them from the orders file first
+   * if the cache knows the date but it is neither in memory nor archived. The caller
+   * holds the read side of the tier lock.
+   */
+  private DateOrders onHeap(LocalDate date) {
+    long day = date.toEpochDay();
+    DateOrders orders = ordersByDate.get(day);
+    DateCache dateCache = cache;
+    if (dateCache == null) {
+      return orders;
+    }
+    if (orders != null) {
+      dateCache.hit(day);
+      return orders;
+    }
+    if (!dateCache.isKnown(day) || archive.contains(date)) {
+      return null;
+    }
+
+    DateOrders loaded = new DateOrders(dateCache.load(date));
+    orders = ordersByDate.putIfAbsent(day, loaded);
+    if (orders != null) {
+      return orders; // another thread loaded the date first
+    }
+    for (Order order : loaded.snapshot()) {
+      dateByOrderNumber.put(order.getOrderNumber(), date);
+    }
+    if (!index.isIndexed(day)) {
+      // A date read back after an eviction is still indexed as it was written
+      loaded.snapshot().forEach(order -> index.add(day, order));
+      index.indexed(day);
+    }
+    dateCache.admitted(day);
+    return loaded;
+  }
+
+  private void admitted(long day) {
+    DateCache dateCache = cache;
+    if (dateCache != null) {
+      dateCache.admitted(day);
+    }
+  }
+
+  private void forget(long day) {
+    DateCache dateCache = cache;
+    if (dateCache != null) {
+      dateCache.forget(day);
+    }
+  }
+
+  /**
+   * Returns whether two versions of an order hold the same values as they are written
+   * to an orders file.
+   */
+  private static boolean sameValues(Order old, Order edited) {
+    return old != null
+            && Objects.equals(old.getCustomerName(), edited.getCustomerName())
+            && Objects.equals(old.getState(), edited.getState())
+            && Objects.equals(old.getTaxRate(), edited.getTaxRate())
+            && Objects.equals(old.getProductType(), edited.getProductType())
+            && Objects.equals(old.getArea(), edited.getArea())
+            && Objects.equals(old.getCostPerSquareFoot(), edited.getCostPerSquareFoot())
+            && Objects.equals(old.getLaborCostPerSquareFoot(), edited.getLaborCostPerSquareFoot())
+            && Objects.equals(old.getMaterialCost(), edited.getMaterialCost())
+            && Objects.equals(old.getLaborCost(), edited.getLaborCost())
+            && Objects.equals(old.getTax(), edited.getTax())
+            && Objects.equals(old.getTotal(), edited.getTotal());
+  }
+
+  private void markDirty(LocalDate date) {
+    DateCache dateCache = cache;
+    if (dateCache != null) {
+      dateCache.markDirty(date.toEpochDay());
+    }
+  }
+
+  /**
+   * Evicts the least recently used dates the cache may give up while it is over its
+   * bounds. Skipped when the tier lock is busy; a later call catches up.
+   */
+  private void evictIfNeeded() {
+    DateCache dateCache = cache;
+    if (dateCache == null || !dateCache.overBound(this::orderCount) || !tiers.writeLock().tryLock()) {
+      return;
+    }
+    try {
+      for (Long day : dateCache.victims(this::orderCount, LocalDate.now().toEpochDay())) {
+        // The order number index keeps the date, so a lookup by number reads it back
+        ordersByDate.remove(day);
+        dateCache.evicted(day);
+      }
+    } finally {
+      tiers.writeLock().unlock();
+    }
+  }
+
+  private int orderCount(Long day) {
+    DateOrders orders = ordersByDate.get(day);
+    return orders == null ? 0 : orders.size();
+  }
+
+  /**
+   * Takes the read side of the tier lock once the date is on the heap, moving it back
+   * from the archive first if needed. The caller releases the read lock.
+   */
+  private void lockOnHeap(LocalDate date) {
+    while (true) {
+      tiers.readLock().lock();
+      if (!archive.contains(date)) {
+        return;
+      }
+      tiers.readLock().unlock();
+
+      tiers.writeLock().lock();
+      try {
+        List<Order> archived = archive.orders(date);
+        if (archived != null) {
+          for (Order order : archived) {
+            dateByOrderNumber.put(order.getOrderNumber(), date);
+          }
+          ordersByDate.put(date.toEpochDay(), new DateOrders(archived));
+          archive.remove(date);
+          admitted(date.toEpochDay());
+        }
+      } finally {
+        tiers.writeLock().unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package Model.DAO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import Model.Order;
+
+/**
+ * The {@code OrderTable} class holds orders column by column in primitive arrays, for
+ * reports that scan many orders at once.
+ *
+ * Order numbers and dates, as epoch days, are {@code int} columns, and states and
+ * product types are {@code short} codes into small dictionaries. The eight decimal
+ * columns of an order are {@code long} columns in a fixed unit per column: tax rates
+ * in thousandths of a percent, as some states have rates such as 6.875, and the
+ * others in hundredths, so money is held in cents. The scale of every value is kept
+ * in four bits of an {@code int} the same way {@link BinaryOrderFormat} does, so a row
+ * converts back to exactly the order it was built from. Totals and filters loop over
+ * these arrays and never create an object per row.
+ *
+ * {@link #rows()} adapts the table to a {@code List<Order>} for code that works on
+ * orders. Every row read from it is a new {@code Order}, so changing it does not
+ * change the table. A table is filled by one thread and is read-only afterwards.
+ */
+public class OrderTable {
+  private static final int DECIMAL_COLUMNS = 8;
+  // The number of decimal places of the unit each decimal column is held in
+  private static final int[] UNIT_SCALES = {3, 2, 2, 2, 2, 2, 2, 2};
+
+  /**
+   * The decimal columns of an order, in the order of {@link BinaryOrderFormat}.
+   */
+  public enum Column {
+    TAX_RATE, AREA, COST_PER_SQUARE_FOOT, LABOR_COST_PER_SQUARE_FOOT,
+    MATERIAL_COST, LABOR_COST, TAX, TOTAL
+  }
+
+  private final NameCodes states = new NameCodes();
+  private final NameCodes products = new NameCodes();
+  private int size;
+  private int[] orderNumbers;
+  private int[] epochDays;
+  private short[] stateCodes;
+  private short[] productCodes;
+  private String[] customerNames;
+  private int[] scales;
+  private final long[][] decimals = new long[DECIMAL_COLUMNS][];
+
+  /**
+   * Constructs an empty {@code OrderTable}.
+   */
+  public OrderTable() {
+    this(1024);
+  }
+
+  /**
+   * Constructs an empty {@code OrderTable} with room for the specified number of
+   * orders before its columns grow.
+   *
+   * @param capacity the initial number of rows
+   */
+  public OrderTable(int capacity) {
+    orderNumbers = new int[capacity];
+    epochDays = new int[capacity];
+    stateCodes = new short[capacity];
+    productCodes = new short[capacity];
+    customerNames = new String[capacity];
+    scales = new int[capacity];
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      decimals[i] = new long[capacity];
+    }
+  }
+
+  /**
+   * Appends an order as a new row.
+   *
+   * @param date the date of the order
+   * @param order the order to be added
+   * @throws IllegalArgumentException if a decimal value of the order has more decimal
+   *                                  places than the unit of its column, three for the
+   *                                  tax rate and two for the others, or does not fit a
+   *                                  {@code long}
+   */
+  public void add(LocalDate date, Order order) {
+    BigDecimal[] values = {order.getTaxRate(), order.getArea(), order.getCostPerSquareFoot(),
+            order.getLaborCostPerSquareFoot(), order.getMaterialCost(), order.getLaborCost(),
+            order.getTax(), order.getTotal()};
+    if (size == orderNumbers.length) {
+      grow();
+    }
+
+    // Convert first, so a rejected order leaves no half-written row
+    long[] units = new long[DECIMAL_COLUMNS];
+    int rowScales = 0;
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      int scale = values[i].scale();
+      if (scale < 0 || scale > UNIT_SCALES[i]) {
+        throw new IllegalArgumentException("Order " + order.getOrderNumber() + " has a value with "
+                + scale + " decimal places");
+      }
+      units[i] = values[i].movePointRight(UNIT_SCALES[i]).longValueExact();
+      rowScales |= scale << (4 * i);
+    }
+
+    orderNumbers[size] = order.getOrderNumber();
+    epochDays[size] = (int) date.toEpochDay();
+    stateCodes[size] = states.code(order.getState());
+    productCodes[size] = products.code(order.getProductType());
+    customerNames[size] = order.getCustomerName();
+    scales[size] = rowScales;
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      decimals[i][size] = units[i];
+    }
+    size++;
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return the number of orders in the table
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the date of a row.
+   *
+   * @param row the index of the row
+   * @return the date of the order in the row
+   */
+  public LocalDate date(int row) {
+    checkRow(row);
+    return LocalDate.ofEpochDay(epochDays[row]);
+  }
+
+  /**
+   * Builds the order held in a row.
+   *
+   * @param row the index of the row
+   * @return a new {@code Order} with the values of the row
+   */
+  public Order order(int row) {
+    checkRow(row);
+    BigDecimal[] values = new BigDecimal[DECIMAL_COLUMNS];
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      values[i] = BigDecimal.valueOf(decimals[i][row], UNIT_SCALES[i]).setScale((scales[row] >>> (4 * i)) & 0xF);
+    }
+    return new Order(orderNumbers[row], customerNames[row], states.name(stateCodes[row]), values[0],
+            products.name(productCodes[row]), values[1], values[2], values[3], values[4], values[5],
+            values[6], values[7]);
+  }
+
+  /**
+   * Returns the table as a read-only list of orders, building each order when it is
+   * read.
+   *
+   * @return a list view of the rows
+   */
+  public List<Order> rows() {
+    return new AbstractList<Order>() {
+      @Override
+      public Order get(int row) {
+        return order(row);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Returns the rows matching a state, a product type and a range of dates.
+   *
+   * @param state the state of the orders, or null for any state
+   * @param productType the product type of the orders, or null for any product type
+   * @param from the first date of the range, or null for no lower bound
+   * @param to the last date of the range, or null for no upper bound
+   * @return the indexes of the matching rows, in row order
+   */
+  public int[] select(String state, String productType, LocalDate from, LocalDate to) {
+    int stateCode = state == null ? -1 : states.find(state);
+    int productCode = productType == null ? -1 : products.find(productType);
+    if (stateCode == NameCodes.MISSING || productCode == NameCodes.MISSING) {
+      return new int[0];
+    }
+    long first = from == null ? Long.MIN_VALUE : from.toEpochDay();
+    long last = to == null ? Long.MAX_VALUE : to.toEpochDay();
+
+    int[] rows = new int[size];
+    int count = 0;
+    for (int row = 0; row < size; row++) {
+      if ((stateCode < 0 || stateCodes[row] == stateCode)
+              && (productCode < 0 || productCodes[row] == productCode)
+              && epochDays[row] >= first && epochDays[row] <= last) {
+        rows[count++] = row;
+      }
+    }
+    return Arrays.copyOf(rows, count);
+  }
+
+  /**
+   * Returns the sum of a column over all rows.
+   *
+   * @param column the column to be added up
+   * @return the sum, with the decimal places of the column's unit
+   * @throws ArithmeticException if the sum overflows a {@code long} of that unit
+   */
+  public BigDecimal sum(Column column) {
+    long[] values = decimals[column.ordinal()];
+    long sum = 0;
+    for (int row = 0; row < size; row++) {
+      sum = Math.addExact(sum, values[row]);
+    }
+    return BigDecimal.valueOf(sum, UNIT_SCALES[column.ordinal()]);
+  }
+
+  /**
+   * Returns the sum of a column over some rows, such as the rows found by
+   * {@link #select}.
+   *
+   * @param column the column to be added up
+   * @param rows the indexes of the rows
+   * @return the sum, with the decimal places of the column's unit
+   * @throws ArithmeticException if the sum overflows a {@code long} of that unit
+   */
+  public BigDecimal sum(Column column, int[] rows) {
+    long[] values = decimals[column.ordinal()];
+    long sum = 0;
+    for (int row : rows) {
+      checkRow(row);
+      sum = Math.addExact(sum, values[row]);
+    }
+    return BigDecimal.valueOf(sum, UNIT_SCALES[column.ordinal()]);
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+  }
+
+  private void grow() {
+    int capacity = Math.max(16, orderNumbers.length * 2);
+    orderNumbers = Arrays.copyOf(orderNumbers, capacity);
+    epochDays = Arrays.copyOf(epochDays, capacity);
+    stateCodes = Arrays.copyOf(stateCodes, capacity);
+    productCodes = Arrays.copyOf(productCodes, capacity);
+    customerNames = Arrays.copyOf(customerNames, capacity);
+    scales = Arrays.copyOf(scales, capacity);
+    for (int i = 0; i < DECIMAL_COLUMNS; i++) {
+      decimals[i] = Arrays.copyOf(decimals[i], capacity);
+    }
+  }
+}
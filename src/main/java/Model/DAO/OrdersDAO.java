@@ -1,7 +1,12 @@
 package Model.DAO;
 
+import java.util.stream.Stream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import Exceptions.ModelExceptions;
 import Model.Order;
@@ -24,6 +29,58 @@ public interface OrdersDAO {
    */
   public String displayOrders(LocalDate date);
 
+  /**
+   * Displays the orders of every date from one date up to and including another, each
+   * date introduced by a heading line.
+   *
+   * @param from the first date of the range
+   * @param to   the last date of the range
+   * @return the headings and orders of the range, produced as the stream is consumed
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  public Stream<String> displayOrdersBetween(LocalDate from, LocalDate to);
+
+  /**
+   * Returns the orders from one date up to and including another, by date and then
+   * by order number.
+   *
+   * @param from the first date of the range
+   * @param to   the last date of the range
+   * @return the orders of the range, read as the stream is consumed
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  public Stream<Order> ordersBetween(LocalDate from, LocalDate to);
+
+  /**
+   * Returns the orders of a month, by date and then by order number.
+   *
+   * @param month the month of the orders
+   * @return the orders of the month, read as the stream is consumed
+   */
+  public Stream<Order> ordersInMonth(YearMonth month);
+
+  /**
+   * Copies the orders from one date up to and including another into a columnar
+   * {@link OrderTable}, for reports that add up or filter many orders.
+   *
+   * @param from the first date of the range
+   * @param to   the last date of the range
+   * @return a table holding the orders of the range, by date and then by order number
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  public OrderTable orderTable(LocalDate from, LocalDate to);
+
+  /**
+   * Takes a snapshot of the orders from one date up to and including another as they
+   * are now. Changes made while the snapshot is read do not show in it.
+   *
+   * @param from the first date of the range
+   * @param to   the last date of the range
+   * @return a read-only view of the range
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  public OrderSnapshot snapshot(LocalDate from, LocalDate to);
+
   /**
    * Adds a new order for a specified date and returns the created order.
    *
@@ -64,4 +121,83 @@ public interface OrdersDAO {
    * @return the {@code Order} object if found
    */
   public Order getOrder(LocalDate date, int orderNum);
+
+  /**
+   * Retrieves a specific order by its order number alone, whatever its date.
+   *
+   * @param orderNum the order number of the order to be retrieved
+   * @return the {@code Order} object, or null if no date has such an order
+   */
+  public Order getOrder(int orderNum);
+
+  /**
+   * Returns the date of an order.
+   *
+   * @param orderNum the order number of the order
+   * @return the date of the order, or null if no date has such an order
+   */
+  public LocalDate getOrderDate(int orderNum);
+
+  /**
+   * Finds the orders of every date matching a customer name, a state and a product
+   * type, such as all Marble orders in CA, by date and then by order number.
+   *
+   * @param customerName the customer name of the orders, or null for any customer
+   * @param state        the state of the orders, or null for any state
+   * @param productType  the product type of the orders, or null for any product type
+   * @return the matching orders
+   */
+  public List<Order> findOrders(String customerName, String state, String productType);
+
+  /**
+   * Finds the orders matching a customer name, a state and a product type like
+   * {@link #findOrders}, grouped by their date. Orders read from files written before
+   * order numbers were unique across dates may share a number with an order of
+   * another date, so the date an order is found under is the one it belongs to.
+   *
+   * @param customerName the customer name of the orders, or null for any customer
+   * @param state        the state of the orders, or null for any state
+   * @param productType  the product type of the orders, or null for any product type
+   * @return the matching orders of every date, by date and then by order number
+   */
+  public Map<LocalDate, List<Order>> findOrdersByDate(String customerName, String state, String productType);
+
+  /**
+   * Searches the orders of the customers whose names are most like a partial or
+   * misspelled name, such as "Mai Le" for "May Lee".
+   *
+   * @param query the customer name as far as it is known
+   * @param limit the largest number of orders returned
+   * @return the orders found, those of the most similar customer first
+   */
+  public List<Order> searchCustomerNames(String query, int limit);
+
+  /**
+   * Prices orders of a date again at the current product costs and tax rates, all of
+   * them as one change of the date.
+   *
+   * @param date      the date of the orders
+   * @param orderNums the order numbers of the orders to be repriced
+   * @return the repriced orders, leaving out the order numbers the date does not have
+   */
+  public List<Order> repriceOrders(LocalDate date, Collection<Integer> orderNums);
+
+  /**
+   * Edits an existing order found by its order number alone and returns the updated order.
+   *
+   * @param orderNum the order number of the order to be edited
+   * @param edits    a string containing the new values for the order, separated by commas
+   * @return the updated {@code Order} object
+   * @throws ModelExceptions if the specified order number does not exist in the database
+   */
+  public Order editAnOrder(int orderNum, String edits) throws ModelExceptions;
+
+  /**
+   * Replaces the stored orders with the specified orders, such as the orders read from
+   * the order files at startup, and makes sure order numbering continues above the
+   * highest order number found.
+   *
+   * @param orders the orders to be stored, keyed by date
+   */
+  public void loadOrders(Map<LocalDate, List<Order>> orders);
 }
\ No newline at end of file
@@ -2,28 +2,195 @@ package Model.DAO;
 
 import org.springframework.stereotype.Component;
 
+import java.time.format.DateTimeFormatter;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.logging.Logger;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.time.YearMonth;
+import java.io.File;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import Exceptions.ModelExceptions;
 import Model.Order;
+import Model.QuoteCache;
+import Model.RateMatrix;
 
 /**
  * The {@code OrdersDAO} class implements the {@code IOrdersDAO} interface
  * and serves as the data access object for managing orders within the application.
  *
  * This class provides methods to display, add, edit, and remove orders, as well as
- * retrieve specific orders based on their order number and date. It utilizes a
- * HashMap to store orders indexed by their date.
+ * retrieve specific orders based on their order number and date. It utilizes an
+ * {@link OrderStore} to store orders indexed by their date and order number.
  */
 @Component
 public class OrdersDAOImpl implements OrdersDAO {
-  public static HashMap<LocalDate, List<Order>> orderStorage = new HashMap<>();
-  private static int orderAmount = 1;
+  private static final Logger LOGGER = Logger.getLogger(OrdersDAOImpl.class.getName());
+  private static final DateTimeFormatter HEADING_DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+  // The number of quotes kept unless quoteCacheSize is set
+  private static final int DEFAULT_QUOTE_CACHE_SIZE = 4096;
+  private static final OrderStore orderStorage = new OrderStore();
+  private static int archiveAfterDays;
+  private static int cacheMaxDates;
+  private static long cacheMaxBytes;
+  private static QuoteCache quoteCache = new QuoteCache(DEFAULT_QUOTE_CACHE_SIZE);
+  private final OrderNumberAllocator orderNumbers;
+
+  /**
+   * Constructs an {@code OrdersDAO} that takes order numbers from the high-water mark
+   * file in the orders folder.
+   */
+  public OrdersDAOImpl() {
+    this(new OrderNumberAllocator(new File(FileDAOImpl.ORDERS_DIRECTORY, "OrderNumbers.dat")));
+  }
+
+  /**
+   * Constructs an {@code OrdersDAO} that takes order numbers from the specified
+   * allocator, such as one keeping its high-water mark in another folder.
+   *
+   * @param orderNumbers the allocator of new order numbers
+   */
+  public OrdersDAOImpl(OrderNumberAllocator orderNumbers) {
+    this.orderNumbers = orderNumbers;
+  }
+
+  /**
+   * Sets how many days back orders stay on the heap. When orders are loaded, dates
+   * further back are moved to the off-heap archive of the {@link OrderStore}; they can
+   * still be displayed, and are moved back the first time one of their orders changes.
+   *
+   * @param days the number of recent days kept on the heap, or 0 to keep every date there
+   */
+  public void setArchiveAfterDays(int days) {
+    OrdersDAOImpl.archiveAfterDays = days;
+  }
+
+  /**
+   * Sets the number of dates kept in memory when orders are loaded lazily. Setting
+   * this or {@link #setCacheMaxBytes} makes {@link #isLoadingLazily()} true.
+   *
+   * @param dates the number of dates in memory, or 0 for no limit on the number
+   */
+  public void setCacheMaxDates(int dates) {
+    OrdersDAOImpl.cacheMaxDates = dates;
+  }
+
+  /**
+   * Sets the estimated bytes of orders kept in memory when orders are loaded lazily.
+   *
+   * @param bytes the estimated bytes in memory, or 0 for no limit on the size
+   */
+  public void setCacheMaxBytes(long bytes) {
+    OrdersDAOImpl.cacheMaxBytes = bytes;
+  }
+
+  /**
+   * Sets the number of quotes the {@link QuoteCache} keeps, emptying it.
+   *
+   * @param quotes the number of product, state and area combinations kept
+   */
+  public void setQuoteCacheSize(int quotes) {
+    OrdersDAOImpl.quoteCache = new QuoteCache(quotes);
+  }
+
+  /**
+   * Returns whether a date cache bound is set, so dates should be read from the order
+   * files on first use rather than all at startup.
+   *
+   * @return true if {@link #loadOrdersLazily} should be used
+   */
+  public boolean isLoadingLazily() {
+    return cacheMaxDates > 0 || cacheMaxBytes > 0;
+  }
+
+  /**
+   * Empties the stored orders and from then on reads each date through the specified
+   * file data access object the first time it is used, keeping at most the configured
+   * number of dates or bytes in memory.
+   *
+   * Order numbering continues from the high-water mark of the order number allocator.
+   * If there is none yet, every date is read once to find the highest order number.
+   *
+   * @param fileDAO the data access object the dates are read from
+   * @throws ModelExceptions if the orders have to be read and cannot be
+   */
+  public void loadOrdersLazily(FileDAO fileDAO) throws ModelExceptions {
+    if (!orderNumbers.hasHighWaterMark()) {
+      int highestOrderNum = 0;
+      for (List<Order> ordersForDate : fileDAO.readAllOrders().values()) {
+        for (Order order : ordersForDate) {
+          highestOrderNum = Math.max(highestOrderNum, order.getOrderNumber());
+        }
+      }
+      orderNumbers.advancePast(highestOrderNum);
+    }
+    orderStorage.useCache(new DateCache(fileDAO, cacheMaxDates, cacheMaxBytes), fileDAO.storedDates());
+  }
+
+  /**
+   * Records that a change of a date was written to the order files, so a lazily loaded
+   * date can be evicted again once all of its changes are.
+   *
+   * @param date the date of the change
+   */
+  public void markPersisted(LocalDate date) {
+    orderStorage.markPersisted(date);
+  }
+
+  /**
+   * Keeps a lazily loaded date in memory, such as while a report keeps coming back to
+   * it, until it is unpinned as often as it was pinned.
+   *
+   * @param date the date to be kept
+   */
+  public void pinDate(LocalDate date) {
+    orderStorage.pin(date);
+  }
+
+  /**
+   * Releases a pin taken with {@link #pinDate}.
+   *
+   * @param date the date to be released
+   */
+  public void unpinDate(LocalDate date) {
+    orderStorage.unpin(date);
+  }
+
+  /**
+   * Returns the hit, miss, load time and eviction figures of the date cache.
+   *
+   * @return the cache statistics, or null if orders are not loaded lazily
+   */
+  public DateCache getDateCache() {
+    return orderStorage.getCache();
+  }
+
+  /**
+   * Returns the cache of quotes new orders and quote requests are priced through,
+   * with its hit, miss and eviction figures.
+   *
+   * @return the quote cache
+   */
+  public QuoteCache getQuoteCache() {
+    return quoteCache;
+  }
+
+  /**
+   * Moves the orders of every date before a cutoff to the off-heap archive.
+   *
+   * @param cutoff the first date whose orders stay on the heap
+   * @return the number of dates that were moved
+   */
+  public int archiveOrdersBefore(LocalDate cutoff) {
+    int dates = orderStorage.archiveBefore(cutoff);
+    LOGGER.info(String.format("Archived %d dates before %s, %d bytes off-heap in total",
+            dates, cutoff, orderStorage.archivedBytes()));
+    return dates;
+  }
 
   /**
    * Displays all orders for a specified date.
@@ -33,17 +200,93 @@ public class OrdersDAOImpl implements OrdersDAO {
    */
   @Override
   public String displayOrders(LocalDate date) {
-    String orders = "";
-
-    orders = orderStorage.get(date).stream()
+    return orderStorage.orders(date).stream()
             .map(Order::toString)
             .collect(Collectors.joining());
+  }
+
+  /**
+   * Displays the orders of every date from one date up to and including another, each
+   * date introduced by a heading line. Dates without orders are left out.
+   *
+   * @param from the first date of the range
+   * @param to   the last date of the range
+   * @return the headings and orders of the range, produced as the stream is consumed
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  @Override
+  public Stream<String> displayOrdersBetween(LocalDate from, LocalDate to) {
+    OrderSnapshot snapshot = orderStorage.snapshot(from, to);
+    return snapshot.dates().flatMap(date -> {
+      List<Order> orders = snapshot.orders(date);
+      if (orders.isEmpty()) {
+        return Stream.empty();
+      }
+      return Stream.concat(Stream.of("\n*** Orders for " + HEADING_DATE.format(date) + " ***"),
+              orders.stream().map(Order::toString));
+    });
+  }
+
+  /**
+   * Returns the orders from one date up to and including another, by date and then
+   * by order number.
+   *
+   * @param from the first date of the range
+   * @param to   the last date of the range
+   * @return the orders of the range, read as the stream is consumed
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  @Override
+  public Stream<Order> ordersBetween(LocalDate from, LocalDate to) {
+    return orderStorage.ordersBetween(from, to);
+  }
+
+  /**
+   * Returns the orders of a month, by date and then by order number.
+   *
+   * @param month the month of the orders
+   * @return the orders of the month, read as the stream is consumed
+   */
+  @Override
+  public Stream<Order> ordersInMonth(YearMonth month) {
+    return orderStorage.ordersBetween(month.atDay(1), month.atEndOfMonth());
+  }
+
+  /**
+   * Copies the orders from one date up to and including another into a columnar
+   * {@link OrderTable}, for reports that add up or filter many orders.
+   *
+   * @param from the first date of the range
+   * @param to   the last date of the range
+   * @return a table holding the orders of the range, by date and then by order number
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  @Override
+  public OrderTable orderTable(LocalDate from, LocalDate to) {
+    OrderTable table = new OrderTable();
+    OrderSnapshot snapshot = orderStorage.snapshot(from, to);
+    snapshot.dates().forEach(date -> snapshot.orders(date).forEach(order -> table.add(date, order)));
+    return table;
+  }
 
-    return orders;
+  /**
+   * Takes a snapshot of the orders from one date up to and including another as they
+   * are now, for reports and exports that must not see changes made while they run.
+   *
+   * @param from the first date of the range
+   * @param to   the last date of the range
+   * @return a read-only view of the range that later changes do not affect
+   * @throws IllegalArgumentException if {@code from} is after {@code to}
+   */
+  @Override
+  public OrderSnapshot snapshot(LocalDate from, LocalDate to) {
+    return orderStorage.snapshot(from, to);
   }
 
   /**
-   * Adds a new order for a specified date and returns the created order.
+   * Adds a new order for a specified date and returns the created order. The order
+   * is priced through the {@link QuoteCache}, so an order of a product, state and area
+   * already quoted takes the costs of that quote.
    *
    * @param date         the date of the order
    * @param customerName the name of the customer placing the order
@@ -54,17 +297,13 @@ public class OrdersDAOImpl implements OrdersDAO {
    */
   @Override
   public Order addOrder(LocalDate date, String customerName, String state, String productType, BigDecimal area) {
-    int orderNum = orderAmount;
-    Order order = new Order(orderNum, customerName, state, productType, area);
-    List<Order> ordersForDate = orderStorage.get(date);
-
-    if (!orderStorage.containsKey(date)) {
-      ordersForDate = new ArrayList<>();
-    }
-
-    ordersForDate.add(order);
-    orderStorage.put(date, ordersForDate);
-    orderAmount++;
+    int orderNum = orderNumbers.next();
+    RateMatrix rates = RateMatrix.current();
+    int cell = rates.cell(productType, state);
+    // Orders of a product or state missing from the libraries are left to fail as before
+    Order order = cell < 0 ? new Order(orderNum, customerName, state, productType, area)
+            : new Order(orderNum, customerName, quoteCache.quote(rates, cell, area));
+    orderStorage.add(date, order);
 
     return order;
   }
@@ -80,15 +319,9 @@ public class OrdersDAOImpl implements OrdersDAO {
    */
   @Override
   public Order editAnOrder(LocalDate date, int orderNum, String edits) throws ModelExceptions {
-    if (orderStorage.containsKey(date)) {
-      List<Order> ordersForDate = orderStorage.get(date);
-
-      // Goes through the ordersForDate list, finds the order and then executes the update method
-      return ordersForDate.stream()
-              .filter(order -> order.getOrderNumber() == orderNum)
-              .findFirst()
-              .map(order -> update(edits, order))
-              .orElse(null);
+    if (orderStorage.containsDate(date)) {
+      // Finds the order by its number and executes the update method while it is locked
+      return orderStorage.edit(date, orderNum, order -> update(edits, order));
     }
     // This should never be thrown as the date and order number should always exist in the database
     throw new ModelExceptions("Order number " + orderNum + " not found for the specified date.");
@@ -132,27 +365,7 @@ public class OrdersDAOImpl implements OrdersDAO {
    */
   @Override
   public Order removeOrder(LocalDate date, int orderNum) {
-    Order order = null;
-    if (orderStorage.containsKey(date)) {
-      List<Order> ordersForDate = orderStorage.get(date);
-      int index = -1;
-
-      // Iterate through the list of orders to find the order with the specified order number
-      // * Altering the list while traversing over it can cause errors!
-      for (int i = 0; i < ordersForDate.size(); i++) {
-        if (ordersForDate.get(i).getOrderNumber() == orderNum) {
-          order = ordersForDate.get(i); // Stores the order object
-          index = i; // Stores the index of the order
-          break;
-        }
-      }
-
-      if (index != -1) {
-        ordersForDate.remove(index); // Removes the order with the stores index
-        orderStorage.put(date, ordersForDate); // Updates the storage map
-      }
-    }
-    return order;
+    return orderStorage.remove(date, orderNum);
   }
 
   /**
@@ -164,11 +377,175 @@ public class OrdersDAOImpl implements OrdersDAO {
    */
   @Override
   public Order getOrder(LocalDate date, int orderNum) {
-    List<Order> ordersForDate = orderStorage.get(date);
+    return orderStorage.get(date, orderNum);
+  }
+
+  /**
+   * Retrieves a specific order by its order number alone, using the order number
+   * index instead of the orders of a date.
+   *
+   * @param orderNum the order number of the order to be retrieved
+   * @return the {@code Order} object, or null if no date has such an order
+   */
+  @Override
+  public Order getOrder(int orderNum) {
+    LocalDate date = orderStorage.dateOf(orderNum);
+    return date == null ? null : orderStorage.get(date, orderNum);
+  }
+
+  /**
+   * Returns the date of an order.
+   *
+   * @param orderNum the order number of the order
+   * @return the date of the order, or null if no date has such an order
+   */
+  @Override
+  public LocalDate getOrderDate(int orderNum) {
+    return orderStorage.dateOf(orderNum);
+  }
+
+  /**
+   * Finds the orders of every date matching a customer name, a state and a product
+   * type through the secondary indexes of the order storage, intersecting them so
+   * only the matching orders are read.
+   *
+   * @param customerName the customer name of the orders, or null for any customer
+   * @param state        the state of the orders, or null for any state
+   * @param productType  the product type of the orders, or null for any product type
+   * @return the matching orders, by date and then by order number
+   */
+  @Override
+  public List<Order> findOrders(String customerName, String state, String productType) {
+    return orderStorage.find(customerName, state, productType);
+  }
+
+  /**
+   * Finds the orders matching a customer name, a state and a product type, grouped by
+   * the date the secondary indexes hold them under.
+   *
+   * @param customerName the customer name of the orders, or null for any customer
+   * @param state        the state of the orders, or null for any state
+   * @param productType  the product type of the orders, or null for any product type
+   * @return the matching orders of every date, by date and then by order number
+   */
+  @Override
+  public Map<LocalDate, List<Order>> findOrdersByDate(String customerName, String state, String productType) {
+    return orderStorage.findByDate(customerName, state, productType);
+  }
+
+  /**
+   * Searches the orders of the customers whose names are most like a partial or
+   * misspelled name, through the trigram index of customer names kept with the
+   * secondary indexes.
+   *
+   * @param query the customer name as far as it is known
+   * @param limit the largest number of orders returned
+   * @return the orders found, those of the most similar customer first and then by
+   *         date and order number
+   */
+  @Override
+  public List<Order> searchCustomerNames(String query, int limit) {
+    return orderStorage.searchCustomerNames(query, limit);
+  }
+
+  /**
+   * Prices orders of a date again at the current product costs and tax rates. The
+   * orders of the date are copied once for all of them, and readers see the date
+   * either before or after the whole change.
+   *
+   * @param date      the date of the orders
+   * @param orderNums the order numbers of the orders to be repriced
+   * @return the repriced orders, leaving out the order numbers the date does not have
+   */
+  @Override
+  public List<Order> repriceOrders(LocalDate date, Collection<Integer> orderNums) {
+    return orderStorage.editAll(date, orderNums, order -> {
+      order.set();
+      return order;
+    });
+  }
+
+  /**
+   * Edits an existing order found by its order number alone and returns the updated order.
+   *
+   * @param orderNum the order number of the order to be edited
+   * @param edits    a string containing the new values for the order, separated by commas
+   * @return the updated {@code Order} object
+   * @throws ModelExceptions if the specified order number does not exist in the database
+   */
+  @Override
+  public Order editAnOrder(int orderNum, String edits) throws ModelExceptions {
+    LocalDate date = orderStorage.dateOf(orderNum);
+    Order order = date == null ? null : orderStorage.edit(date, orderNum, found -> update(edits, found));
+
+    if (order == null) {
+      throw new ModelExceptions("Order number " + orderNum + " not found.");
+    }
+    return order;
+  }
+
+  /**
+   * Replaces the stored orders with the specified orders, such as the orders read from
+   * the order files at startup, and makes sure order numbering continues above the
+   * highest order number found. Dates older than the archive cutoff, if one is set,
+   * are moved off the heap.
+   *
+   * @param orders the orders to be stored, keyed by date
+   */
+  @Override
+  public void loadOrders(Map<LocalDate, List<Order>> orders) {
+    int highestOrderNum = 0;
+    for (List<Order> ordersForDate : orders.values()) {
+      for (Order order : ordersForDate) {
+        highestOrderNum = Math.max(highestOrderNum, order.getOrderNumber());
+      }
+    }
+
+    orderStorage.replaceAll(orders);
+    orderNumbers.advancePast(highestOrderNum);
+    if (archiveAfterDays > 0) {
+      archiveOrdersBefore(LocalDate.now().minusDays(archiveAfterDays));
+    }
+  }
+
+  /**
+   * Returns whether orders were ever stored for a date, even if all of them have
+   * been removed since.
+   *
+   * @param date the date to be checked
+   * @return true if the date exists in the database
+   */
+  public static boolean containsDate(LocalDate date) {
+    return orderStorage.containsDate(date);
+  }
+
+  /**
+   * Returns whether an order exists for a date.
+   *
+   * @param date     the date of the order
+   * @param orderNum the order number to be checked
+   * @return true if the date has an order with the order number
+   */
+  public static boolean containsOrder(LocalDate date, int orderNum) {
+    return orderStorage.get(date, orderNum) != null;
+  }
+
+  /**
+   * Returns the orders stored for a date, sorted by order number.
+   *
+   * @param date the date of the orders
+   * @return a read-only snapshot of the orders, empty if the date does not exist
+   */
+  public static List<Order> getOrdersForDate(LocalDate date) {
+    return orderStorage.orders(date);
+  }
 
-    return ordersForDate.stream()
-            .filter(order -> order.getOrderNumber() == orderNum)
-            .findFirst()
-            .orElse(null);
+  /**
+   * Returns the number of dates that orders were stored for.
+   *
+   * @return the number of dates in the database
+   */
+  public static int getDateCount() {
+    return orderStorage.dateCount();
   }
-}
\ No newline at end of file
+}
@@ -1,9 +1,15 @@
 package Model.DAO;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
 
 import Model.Product;
+import Model.RateMatrix;
 
 /**
  * The {@code ProductsDAO} class serves as a data access object for managing
@@ -14,9 +20,15 @@ import Model.Product;
  * per square foot and labor cost per square foot. The class is populated by
  * the {@code AuditDAO} class, which initializes the product library with
  * relevant data.
+ *
+ * Orders do not copy the values of their product; they reference a shared
+ * {@code Product} obtained through {@link #intern}, which is the library entry
+ * itself when the values match it and otherwise one shared instance per distinct
+ * combination of values, such as the prices an old order was placed at.
  */
 public class ProductsDAO {
   public static HashMap<String, Product> productLibrary = new HashMap<>();
+  private static final ConcurrentMap<List<Object>, Product> pricedProducts = new ConcurrentHashMap<>();
 
   /**
    * Retrieves a {@code Product} from the product library based on the specified product type.
@@ -30,7 +42,8 @@ public class ProductsDAO {
   }
 
   /**
-   * Adds a new product to the product library.
+   * Adds a new product to the product library. The {@link RateMatrix} is compiled
+   * again before the next order is priced.
    *
    * @param productType             the type of the product to be added
    * @param costPerSquareFoot       the cost per square foot of the product
@@ -39,5 +52,26 @@ public class ProductsDAO {
   public static void addProduct(String productType, BigDecimal costPerSquareFoot, BigDecimal laborCostPerSquareFoot) {
     Product product = new Product(productType, costPerSquareFoot, laborCostPerSquareFoot);
     productLibrary.put(productType, product);
+    RateMatrix.catalogChanged();
+  }
+
+  /**
+   * Returns the shared {@code Product} with exactly the specified values, scales
+   * included, creating it the first time the values are seen.
+   *
+   * @param productType             the type of the product
+   * @param costPerSquareFoot       the cost per square foot
+   * @param laborCostPerSquareFoot  the labor cost per square foot
+   * @return the library entry if it has these values, otherwise the one shared
+   *         instance having them
+   */
+  public static Product intern(String productType, BigDecimal costPerSquareFoot, BigDecimal laborCostPerSquareFoot) {
+    Product product = productLibrary.get(productType);
+    if (product != null && Objects.equals(product.getCostPerSquareFoot(), costPerSquareFoot)
+            && Objects.equals(product.getLaborCostPerSquareFoot(), laborCostPerSquareFoot)) {
+      return product;
+    }
+    return pricedProducts.computeIfAbsent(Arrays.asList(productType, costPerSquareFoot, laborCostPerSquareFoot),
+            key -> new Product(productType, costPerSquareFoot, laborCostPerSquareFoot));
   }
 }
\ No newline at end of file
@@ -1,8 +1,14 @@
 package Model.DAO;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
 
+import Model.RateMatrix;
 import Model.Tax;
 
 /**
@@ -14,9 +20,15 @@ import Model.Tax;
  * abbreviation, state name, and tax rate. The class is populated by
  * the {@code AuditDAO} class, which initializes the tax library with
  * relevant data.
+ *
+ * Orders do not copy their state and tax rate; they reference a shared {@code Tax}
+ * obtained through {@link #intern}, which is the library entry itself when the rate
+ * matches it and otherwise one shared instance per state and rate, such as the rate
+ * an old order was taxed at.
  */
 public class TaxesDAO {
   public static HashMap<String, Tax> taxLibrary = new HashMap<>();
+  private static final ConcurrentMap<List<Object>, Tax> ratedStates = new ConcurrentHashMap<>();
 
   /**
    * Retrieves a {@code Tax} object from the tax library based on the specified state abbreviation.
@@ -30,7 +42,8 @@ public class TaxesDAO {
   }
 
   /**
-   * Adds a new state tax entry to the tax library.
+   * Adds a new state tax entry to the tax library. The {@link RateMatrix} is compiled
+   * again before the next order is priced.
    *
    * @param stateAbbreviation the abbreviation of the state to be added
    * @param stateName        the full name of the state to be added
@@ -39,5 +52,25 @@ public class TaxesDAO {
   public static void addState(String stateAbbreviation, String stateName, BigDecimal taxRate) {
     Tax tax = new Tax(stateAbbreviation, stateName, taxRate);
     taxLibrary.put(stateAbbreviation, tax);
+    RateMatrix.catalogChanged();
+  }
+
+  /**
+   * Returns the shared {@code Tax} of a state at exactly the specified rate, scale
+   * included, creating it the first time the state and rate are seen.
+   *
+   * @param stateAbbreviation the abbreviation of the state
+   * @param taxRate           the tax rate
+   * @return the library entry if it has this rate, otherwise the one shared instance
+   *         having it
+   */
+  public static Tax intern(String stateAbbreviation, BigDecimal taxRate) {
+    Tax tax = taxLibrary.get(stateAbbreviation);
+    if (tax != null && Objects.equals(tax.getTaxRate(), taxRate)) {
+      return tax;
+    }
+    String stateName = tax == null ? null : tax.getStateName();
+    return ratedStates.computeIfAbsent(Arrays.asList(stateAbbreviation, taxRate),
+            key -> new Tax(stateAbbreviation, stateName, taxRate));
   }
 }
\ No newline at end of file
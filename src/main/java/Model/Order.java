@@ -13,16 +13,20 @@ import Model.DAO.TaxesDAO;
  * also provides methods to calculate costs based on the product and
  * tax information retrieved from the {@code ProductsDAO} and
  * {@code TaxesDAO} classes.
+ *
+ * The state and tax rate of an order are held as a reference to a shared, immutable
+ * {@link Tax}, and its product type and costs per square foot as a reference to a
+ * shared, immutable {@link Product}, both obtained through {@code intern}, instead of
+ * being copied into every order. Their getters and setters read and replace those
+ * references, so orders priced alike share one entry and can be compared by identity
+ * through {@link #getStateTax()} and {@link #getProduct()}.
  */
 public class Order {
   private int orderNumber;
   private String customerName;
-  private String state;
-  private BigDecimal taxRate;
-  private String productType;
+  private Tax stateTax;
+  private Product product;
   private BigDecimal area;
-  private BigDecimal costPerSquareFoot;
-  private BigDecimal laborCostPerSquareFoot;
   private BigDecimal materialCost;
   private BigDecimal laborCost;
   private BigDecimal tax;
@@ -40,31 +44,78 @@ public class Order {
   public Order(int orderNumber, String customerName, String state, String productType, BigDecimal area) {
     this.orderNumber = orderNumber;
     this.customerName = customerName;
-    this.state = state;
-    this.productType = productType;
     this.area = area.setScale(2, RoundingMode.HALF_UP);
-    set();
+    set(state, productType);
+  }
+
+  /**
+   * Constructs a new {@code Order} from a quote of its product, state and area, taking
+   * the costs of the quote instead of calculating them again.
+   *
+   * @param orderNumber  the unique identifier for the order
+   * @param customerName the name of the customer placing the order
+   * @param quote        the quote of the order
+   */
+  public Order(int orderNumber, String customerName, Quote quote) {
+    this.orderNumber = orderNumber;
+    this.customerName = customerName;
+    this.stateTax = quote.getStateTax();
+    this.product = quote.getProduct();
+    this.area = quote.getArea();
+    this.materialCost = quote.getMaterialCost();
+    this.laborCost = quote.getLaborCost();
+    this.tax = quote.getTax();
+    this.total = quote.getTotal();
+  }
+
+  /**
+   * Constructs an {@code Order} from previously calculated values, such as an
+   * order read back from an orders file. No costs are recalculated.
+   *
+   * @param orderNumber            the unique identifier for the order
+   * @param customerName           the name of the customer placing the order
+   * @param state                  the state where the order is placed
+   * @param taxRate                the tax rate applied to the order
+   * @param productType            the type of product ordered
+   * @param area                   the area for which the order is placed
+   * @param costPerSquareFoot      the material cost per square foot
+   * @param laborCostPerSquareFoot the labor cost per square foot
+   * @param materialCost           the total material cost
+   * @param laborCost              the total labor cost
+   * @param tax                    the tax amount
+   * @param total                  the total cost of the order
+   */
+  public Order(int orderNumber, String customerName, String state, BigDecimal taxRate,
+               String productType, BigDecimal area, BigDecimal costPerSquareFoot,
+               BigDecimal laborCostPerSquareFoot, BigDecimal materialCost, BigDecimal laborCost,
+               BigDecimal tax, BigDecimal total) {
+    this.orderNumber = orderNumber;
+    this.customerName = customerName;
+    this.stateTax = TaxesDAO.intern(state, taxRate);
+    this.product = ProductsDAO.intern(productType, costPerSquareFoot, laborCostPerSquareFoot);
+    this.area = area;
+    this.materialCost = materialCost;
+    this.laborCost = laborCost;
+    this.tax = tax;
+    this.total = total;
   }
 
   /**
    * Calculates and sets the cost, labor cost, tax, and total for the order
    * based on the product and tax information retrieved from the
-   * {@code ProductsDAO} and {@code TaxesDAO} classes.
+   * {@code ProductsDAO} and {@code TaxesDAO} classes. The costs are calculated
+   * by the {@link PricingEngine} from the order's cell of the {@link RateMatrix}.
    */
   public void set() {
-    this.costPerSquareFoot = ProductsDAO.getProduct(this.productType)
-            .getCostPerSquareFoot().setScale(2, RoundingMode.HALF_UP);
-    this.laborCostPerSquareFoot = ProductsDAO.getProduct(this.productType)
-            .getCostPerSquareFoot().setScale(2, RoundingMode.HALF_UP);
-    this.materialCost = this.area.multiply(this.costPerSquareFoot)
-            .setScale(2, RoundingMode.HALF_UP);
-    this.laborCost = this.area.multiply(this.laborCostPerSquareFoot)
-            .setScale(2, RoundingMode.HALF_UP);
-    this.taxRate = TaxesDAO.getTax(this.state).getTaxRate();
-    this.tax = (this.materialCost.add(this.laborCost)).multiply(this.taxRate)
-            .setScale(2, RoundingMode.HALF_UP);
-    this.total = (this.materialCost.add(this.laborCost)).add(this.tax)
-            .setScale(2, RoundingMode.HALF_UP);
+    set(getState(), getProductType());
+  }
+
+  private void set(String state, String productType) {
+    RateMatrix rates = RateMatrix.current();
+    int cell = rates.cell(productType, state);
+    this.product = rates.product(cell);
+    this.stateTax = rates.state(cell);
+    PricingEngine.price(this, rates, cell);
   }
 
   // Getter and Setter for orderNumber
@@ -115,7 +166,7 @@ public class Order {
    * @return the state
    */
   public String getState() {
-    return state;
+    return stateTax.getStateAbbreviation();
   }
 
   /**
@@ -124,7 +175,7 @@ public class Order {
    * @param state the new state
    */
   public void setState(String state) {
-    this.state = state;
+    this.stateTax = TaxesDAO.intern(state, stateTax.getTaxRate());
   }
 
   // Getter and Setter for taxRate
@@ -135,7 +186,7 @@ public class Order {
    * @return the tax rate
    */
   public BigDecimal getTaxRate() {
-    return taxRate;
+    return stateTax.getTaxRate();
   }
 
   /**
@@ -144,7 +195,17 @@ public class Order {
    * @param taxRate the new tax rate
    */
   public void setTaxRate(BigDecimal taxRate) {
-    this.taxRate = taxRate;
+    this.stateTax = TaxesDAO.intern(stateTax.getStateAbbreviation(), taxRate);
+  }
+
+  /**
+   * Returns the shared state and tax rate entry of this order. Orders taxed alike
+   * reference the same entry.
+   *
+   * @return the tax entry
+   */
+  public Tax getStateTax() {
+    return stateTax;
   }
 
   // Getter and Setter for productType
@@ -155,7 +216,7 @@ public class Order {
    * @return the product type
    */
   public String getProductType() {
-    return productType;
+    return product.getProductType();
   }
 
   /**
@@ -164,7 +225,17 @@ public class Order {
    * @param productType the new product type
    */
   public void setProductType(String productType) {
-    this.productType = productType;
+    this.product = ProductsDAO.intern(productType, product.getCostPerSquareFoot(), product.getLaborCostPerSquareFoot());
+  }
+
+  /**
+   * Returns the shared product entry of this order. Orders priced alike reference the
+   * same entry.
+   *
+   * @return the product entry
+   */
+  public Product getProduct() {
+    return product;
   }
 
   // Getter and Setter for area
@@ -195,7 +266,7 @@ public class Order {
    * @return the cost per square foot
    */
   public BigDecimal getCostPerSquareFoot() {
-    return costPerSquareFoot;
+    return product.getCostPerSquareFoot();
   }
 
   /**
@@ -204,7 +275,7 @@ public class Order {
    * @param costPerSquareFoot the new cost per square foot
    */
   public void setCostPerSquareFoot(BigDecimal costPerSquareFoot) {
-    this.costPerSquareFoot = costPerSquareFoot;
+    this.product = ProductsDAO.intern(product.getProductType(), costPerSquareFoot, product.getLaborCostPerSquareFoot());
   }
 
   // Getter and Setter for laborCostPerSquareFoot
@@ -215,7 +286,7 @@ public class Order {
    * @return the labor cost per square foot
    */
   public BigDecimal getLaborCostPerSquareFoot() {
-    return laborCostPerSquareFoot;
+    return product.getLaborCostPerSquareFoot();
   }
 
   /**
@@ -224,7 +295,7 @@ public class Order {
    * @param laborCostPerSquareFoot the new labor cost per square foot
    */
   public void setLaborCostPerSquareFoot(BigDecimal laborCostPerSquareFoot) {
-    this.laborCostPerSquareFoot = laborCostPerSquareFoot;
+    this.product = ProductsDAO.intern(product.getProductType(), product.getCostPerSquareFoot(), laborCostPerSquareFoot);
   }
 
   // Getter and Setter for materialCost
@@ -317,12 +388,12 @@ public class Order {
     String order = "\n+------------------------------------------------+\n" +
             "Order Number: " + orderNumber + "\n" +
             "Order Customer Name: " + customerName + "\n" +
-            "Order State: " + state + "\n" +
-            "Order Tax Rate: " + taxRate + "\n" +
-            "Order Product Type: " + productType + "\n" +
+            "Order State: " + getState() + "\n" +
+            "Order Tax Rate: " + getTaxRate() + "\n" +
+            "Order Product Type: " + getProductType() + "\n" +
             "Order Area: " + area + "\n" +
-            "Order Cost Per Square Foot: " + costPerSquareFoot + "\n" +
-            "Order Labor Cost Per Square Foot: " + laborCostPerSquareFoot + "\n" +
+            "Order Cost Per Square Foot: " + getCostPerSquareFoot() + "\n" +
+            "Order Labor Cost Per Square Foot: " + getLaborCostPerSquareFoot() + "\n" +
             "Order Material Cost: " + materialCost + "\n" +
             "Order Labor Cost: " + laborCost + "\n" +
             "Order Tax: " + tax + "\n" +
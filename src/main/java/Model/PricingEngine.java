@@ -0,0 +1,236 @@
+package Model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.math.RoundingMode;
+import java.math.BigDecimal;
+
+import Model.DAO.ProductsDAO;
+
+/**
+ * The {@code PricingEngine} class calculates the costs of an order in fixed-point
+ * {@code long} arithmetic.
+ *
+ * Amounts are held as a {@code long} of units of the last decimal place together with
+ * the number of decimal places, the way a {@code BigDecimal} holds them, and money as
+ * cents. A product of two amounts is rounded back to cents with the HALF_UP rule of
+ * {@code setScale(2, RoundingMode.HALF_UP)}, so every result is exactly the one the
+ * {@code BigDecimal} formulas of {@link Order#set()} produce, scale included:
+ *
+ *     material cost = area * cost per square foot, rounded to cents
+ *     labor cost    = area * labor cost per square foot, rounded to cents
+ *     tax           = (material cost + labor cost) * tax rate, rounded to cents
+ *     total         = material cost + labor cost + tax
+ *
+ * {@link #quote(long, int, long, long, long, int, long[])} allocates nothing. A value
+ * that does not fit this arithmetic, such as a product overflowing a {@code long},
+ * makes it report failure, and {@link #price(Order)} then falls back to the
+ * {@code BigDecimal} formulas.
+ */
+public final class PricingEngine {
+  /** Index of the material cost in a quote. */
+  public static final int MATERIAL_COST = 0;
+  /** Index of the labor cost in a quote. */
+  public static final int LABOR_COST = 1;
+  /** Index of the tax in a quote. */
+  public static final int TAX = 2;
+  /** Index of the total in a quote. */
+  public static final int TOTAL = 3;
+  /** Number of values in a quote. */
+  public static final int QUOTE_SIZE = 4;
+
+  /** Marks a value that is not a whole number of cents fitting a {@code long}. */
+  static final long NO_CENTS = Long.MIN_VALUE;
+
+  private static final int MAX_SCALE = 18;
+  private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i <= MAX_SCALE; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[QUOTE_SIZE]);
+  private static final ConcurrentMap<Product, Product> pricedProducts = new ConcurrentHashMap<>();
+
+  private PricingEngine() {
+  }
+
+  /**
+   * Returns the shared product entry an order of a product is priced with: its cost
+   * per square foot rounded to cents, which {@link Order#set()} also charges as the
+   * labor cost per square foot. The entry is worked out once per library entry.
+   *
+   * @param catalogEntry the product as it is in the product library
+   * @return the product entry to be referenced by the order
+   */
+  public static Product pricedProduct(Product catalogEntry) {
+    return pricedProducts.computeIfAbsent(catalogEntry, product -> {
+      BigDecimal costPerSquareFoot = product.getCostPerSquareFoot().setScale(2, RoundingMode.HALF_UP);
+      return ProductsDAO.intern(product.getProductType(), costPerSquareFoot, costPerSquareFoot);
+    });
+  }
+
+  /**
+   * Calculates and sets the material cost, labor cost, tax and total of an order from
+   * its area, product and tax rate.
+   *
+   * @param order the order to be priced
+   */
+  public static void price(Order order) {
+    long[] quote = SCRATCH.get();
+    if (quote(order.getArea(), order.getProduct(), order.getStateTax(), quote)) {
+      setCosts(order, quote);
+    } else {
+      setCosts(order, priceExactly(order.getArea(), order.getProduct(), order.getStateTax()));
+    }
+  }
+
+  /**
+   * Calculates and sets the material cost, labor cost, tax and total of an order from
+   * its area and a cell of a {@link RateMatrix}, which holds the order's product and
+   * state.
+   *
+   * @param order the order to be priced
+   * @param rates the rate matrix
+   * @param cell the cell of the order's product and state
+   */
+  public static void price(Order order, RateMatrix rates, int cell) {
+    long[] quote = SCRATCH.get();
+    if (rates.quote(cell, order.getArea(), quote)) {
+      setCosts(order, quote);
+    } else {
+      setCosts(order, priceExactly(order.getArea(), order.getProduct(), order.getStateTax()));
+    }
+  }
+
+  /**
+   * Calculates the costs of an area of a product in a state into a quote of cents.
+   *
+   * @param area the area
+   * @param product the product entry the order is priced with
+   * @param tax the tax entry of the state
+   * @param quote receives the material cost, labor cost, tax and total in cents
+   * @return false if a value does not fit the fixed-point arithmetic, leaving the
+   *         quote undefined
+   */
+  public static boolean quote(BigDecimal area, Product product, Tax tax, long[] quote) {
+    return quote(area, product.costPerSquareFootCents, product.laborCostPerSquareFootCents,
+            tax.taxRateUnscaled, tax.taxRateScale, quote);
+  }
+
+  static boolean quote(BigDecimal area, long costPerSquareFoot, long laborCostPerSquareFoot,
+                       long taxRate, int taxRateScale, long[] quote) {
+    if (area.precision() > MAX_SCALE) {
+      return false;
+    }
+    return quote(area.unscaledValue().longValue(), area.scale(), costPerSquareFoot,
+            laborCostPerSquareFoot, taxRate, taxRateScale, quote);
+  }
+
+  /**
+   * Calculates the costs of an area in cents, without allocating.
+   *
+   * @param area the area in units of its last decimal place
+   * @param areaScale the number of decimal places of the area
+   * @param costPerSquareFoot the cost per square foot in cents
+   * @param laborCostPerSquareFoot the labor cost per square foot in cents
+   * @param taxRate the tax rate in units of its last decimal place
+   * @param taxRateScale the number of decimal places of the tax rate
+   * @param quote receives the material cost, labor cost, tax and total in cents
+   * @return false if a scale is beyond 18 places, a cost is {@code Long.MIN_VALUE} or a
+   *         value overflows a {@code long}, leaving the quote undefined
+   */
+  public static boolean quote(long area, int areaScale, long costPerSquareFoot, long laborCostPerSquareFoot,
+                              long taxRate, int taxRateScale, long[] quote) {
+    if (areaScale > MAX_SCALE || areaScale < -MAX_SCALE || taxRateScale > MAX_SCALE || taxRateScale < -MAX_SCALE
+            || costPerSquareFoot == NO_CENTS || laborCostPerSquareFoot == NO_CENTS) {
+      return false;
+    }
+    try {
+      long materialCost = roundToCents(Math.multiplyExact(area, costPerSquareFoot), areaScale);
+      long laborCost = roundToCents(Math.multiplyExact(area, laborCostPerSquareFoot), areaScale);
+      long costs = Math.addExact(materialCost, laborCost);
+      long tax = roundToCents(Math.multiplyExact(costs, taxRate), taxRateScale);
+      quote[MATERIAL_COST] = materialCost;
+      quote[LABOR_COST] = laborCost;
+      quote[TAX] = tax;
+      quote[TOTAL] = Math.addExact(costs, tax);
+      return true;
+    } catch (ArithmeticException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Calculates the costs with the {@code BigDecimal} formulas, for values the
+   * fixed-point arithmetic cannot hold.
+   *
+   * @param area the area
+   * @param product the product entry the order is priced with
+   * @param tax the tax entry of the state
+   * @return the material cost, labor cost, tax and total, indexed like a quote
+   */
+  public static BigDecimal[] priceExactly(BigDecimal area, Product product, Tax tax) {
+    BigDecimal[] costs = new BigDecimal[QUOTE_SIZE];
+    costs[MATERIAL_COST] = area.multiply(product.getCostPerSquareFoot())
+            .setScale(2, RoundingMode.HALF_UP);
+    costs[LABOR_COST] = area.multiply(product.getLaborCostPerSquareFoot())
+            .setScale(2, RoundingMode.HALF_UP);
+    costs[TAX] = (costs[MATERIAL_COST].add(costs[LABOR_COST])).multiply(tax.getTaxRate())
+            .setScale(2, RoundingMode.HALF_UP);
+    costs[TOTAL] = (costs[MATERIAL_COST].add(costs[LABOR_COST])).add(costs[TAX])
+            .setScale(2, RoundingMode.HALF_UP);
+    return costs;
+  }
+
+  private static void setCosts(Order order, long[] quote) {
+    BigDecimal materialCost = BigDecimal.valueOf(quote[MATERIAL_COST], 2);
+    order.setMaterialCost(materialCost);
+    order.setLaborCost(quote[LABOR_COST] == quote[MATERIAL_COST]
+            ? materialCost : BigDecimal.valueOf(quote[LABOR_COST], 2));
+    order.setTax(BigDecimal.valueOf(quote[TAX], 2));
+    order.setTotal(BigDecimal.valueOf(quote[TOTAL], 2));
+  }
+
+  private static void setCosts(Order order, BigDecimal[] costs) {
+    order.setMaterialCost(costs[MATERIAL_COST]);
+    order.setLaborCost(costs[LABOR_COST]);
+    order.setTax(costs[TAX]);
+    order.setTotal(costs[TOTAL]);
+  }
+
+  /**
+   * Returns a value as a whole number of cents, or {@link #NO_CENTS} if it is null,
+   * has a fraction of a cent or does not fit a {@code long}.
+   */
+  static long exactCents(BigDecimal value) {
+    if (value == null) {
+      return NO_CENTS;
+    }
+    try {
+      return value.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      return NO_CENTS;
+    }
+  }
+
+  /**
+   * Rounds a value with {@code scale} more decimal places than cents to cents, half
+   * away from zero, or scales it up to cents if {@code scale} is negative.
+   */
+  private static long roundToCents(long value, int scale) {
+    if (scale <= 0) {
+      return Math.multiplyExact(value, POWERS_OF_TEN[-scale]);
+    }
+    long divisor = POWERS_OF_TEN[scale];
+    long quotient = value / divisor;
+    long remainder = value % divisor;
+    // The remainder is below 10^18, so doubling it cannot overflow
+    if (Math.abs(remainder) * 2 >= divisor) {
+      quotient += value < 0 ? -1 : 1;
+    }
+    return quotient;
+  }
+}
@@ -6,11 +6,18 @@ import java.math.BigDecimal;
  * The {@code Product} class represents a product with associated cost
  * information for materials and labor. It contains details such as the
  * product type, cost per square foot, and labor cost per square foot.
+ *
+ * A {@code Product} is immutable, so one instance is shared by the product library
+ * and every order priced with the same values, and two orders have the same product
+ * terms exactly when they reference the same instance.
  */
 public class Product {
-  private String productType;
-  private BigDecimal costPerSquareFoot;
-  private BigDecimal laborCostPerSquareFoot;
+  private final String productType;
+  private final BigDecimal costPerSquareFoot;
+  private final BigDecimal laborCostPerSquareFoot;
+  // The costs per square foot in cents for the PricingEngine, or PricingEngine.NO_CENTS
+  final long costPerSquareFootCents;
+  final long laborCostPerSquareFootCents;
 
   /**
    * Constructs a new {@code Product} object with the specified details.
@@ -23,9 +30,11 @@ public class Product {
     this.productType = productType;
     this.costPerSquareFoot = costPerSquareFoot;
     this.laborCostPerSquareFoot = laborCostPerSquareFoot;
+    this.costPerSquareFootCents = PricingEngine.exactCents(costPerSquareFoot);
+    this.laborCostPerSquareFootCents = PricingEngine.exactCents(laborCostPerSquareFoot);
   }
 
-  // Getter and Setter for productType
+  // Getter for productType
 
   /**
    * Returns the type of the product.
@@ -36,16 +45,7 @@ public class Product {
     return productType;
   }
 
-  /**
-   * Sets the type of the product.
-   *
-   * @param productType the new product type
-   */
-  public void setProductType(String productType) {
-    this.productType = productType;
-  }
-
-  // Getter and Setter for costPerSquareFoot
+  // Getter for costPerSquareFoot
 
   /**
    * Returns the cost per square foot of the product.
@@ -56,16 +56,7 @@ public class Product {
     return costPerSquareFoot;
   }
 
-  /**
-   * Sets the cost per square foot of the product.
-   *
-   * @param costPerSquareFoot the new cost per square foot
-   */
-  public void setCostPerSquareFoot(BigDecimal costPerSquareFoot) {
-    this.costPerSquareFoot = costPerSquareFoot;
-  }
-
-  // Getter and Setter for laborCostPerSquareFoot
+  // Getter for laborCostPerSquareFoot
   
   /**
    * Returns the labor cost per square foot of the product.
@@ -75,13 +66,4 @@ public class Product {
   public BigDecimal getLaborCostPerSquareFoot() {
     return laborCostPerSquareFoot;
   }
-
-  /**
-   * Sets the labor cost per square foot of the product.
-   *
-   * @param laborCostPerSquareFoot the new labor cost per square foot
-   */
-  public void setLaborCostPerSquareFoot(BigDecimal laborCostPerSquareFoot) {
-    this.laborCostPerSquareFoot = laborCostPerSquareFoot;
-  }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package Model;
+
+import java.math.BigDecimal;
+
+/**
+ * The {@code Quote} class holds what an order would cost: the values of an
+ * {@link Order} of the same product, state and area, without an order number or a
+ * customer.
+ */
+public class Quote {
+  private final Product product;
+  private final Tax stateTax;
+  private final BigDecimal area;
+  private final BigDecimal materialCost;
+  private final BigDecimal laborCost;
+  private final BigDecimal tax;
+  private final BigDecimal total;
+
+  /**
+   * Constructs a new {@code Quote} object with the specified values.
+   *
+   * @param product      the product entry the quote is priced with
+   * @param stateTax     the tax entry of the state
+   * @param area         the area quoted
+   * @param materialCost the total material cost
+   * @param laborCost    the total labor cost
+   * @param tax          the tax amount
+   * @param total        the total cost
+   */
+  public Quote(Product product, Tax stateTax, BigDecimal area, BigDecimal materialCost,
+               BigDecimal laborCost, BigDecimal tax, BigDecimal total) {
+    this.product = product;
+    this.stateTax = stateTax;
+    this.area = area;
+    this.materialCost = materialCost;
+    this.laborCost = laborCost;
+    this.tax = tax;
+    this.total = total;
+  }
+
+  /**
+   * Constructs a {@code Quote} from costs in cents, indexed like a
+   * {@link PricingEngine} quote.
+   */
+  static Quote ofCents(Product product, Tax stateTax, BigDecimal area, long materialCost, long laborCost,
+                       long tax, long total) {
+    BigDecimal material = BigDecimal.valueOf(materialCost, 2);
+    return new Quote(product, stateTax, area, material,
+            laborCost == materialCost ? material : BigDecimal.valueOf(laborCost, 2),
+            BigDecimal.valueOf(tax, 2), BigDecimal.valueOf(total, 2));
+  }
+
+  /**
+   * Constructs a {@code Quote} from costs worked out with the {@code BigDecimal}
+   * formulas, indexed like a {@link PricingEngine} quote.
+   */
+  static Quote ofCosts(Product product, Tax stateTax, BigDecimal area, BigDecimal[] costs) {
+    return new Quote(product, stateTax, area, costs[PricingEngine.MATERIAL_COST],
+            costs[PricingEngine.LABOR_COST], costs[PricingEngine.TAX], costs[PricingEngine.TOTAL]);
+  }
+
+  /**
+   * Returns the shared product entry the quote is priced with.
+   *
+   * @return the product entry
+   */
+  public Product getProduct() {
+    return product;
+  }
+
+  /**
+   * Returns the shared tax entry of the state of the quote.
+   *
+   * @return the tax entry
+   */
+  public Tax getStateTax() {
+    return stateTax;
+  }
+
+  /**
+   * Returns the product type of this quote.
+   *
+   * @return the product type
+   */
+  public String getProductType() {
+    return product.getProductType();
+  }
+
+  /**
+   * Returns the state this quote is for.
+   *
+   * @return the state
+   */
+  public String getState() {
+    return stateTax.getStateAbbreviation();
+  }
+
+  /**
+   * Returns the tax rate of the state of this quote.
+   *
+   * @return the tax rate
+   */
+  public BigDecimal getTaxRate() {
+    return stateTax.getTaxRate();
+  }
+
+  /**
+   * Returns the area this quote is for.
+   *
+   * @return the area
+   */
+  public BigDecimal getArea() {
+    return area;
+  }
+
+  /**
+   * Returns the cost per square foot of this quote.
+   *
+   * @return the cost per square foot
+   */
+  public BigDecimal getCostPerSquareFoot() {
+    return product.getCostPerSquareFoot();
+  }
+
+  /**
+   * Returns the labor cost per square foot of this quote.
+   *
+   * @return the labor cost per square foot
+   */
+  public BigDecimal getLaborCostPerSquareFoot() {
+    return product.getLaborCostPerSquareFoot();
+  }
+
+  /**
+   * Returns the material cost of this quote.
+   *
+   * @return the material cost
+   */
+  public BigDecimal getMaterialCost() {
+    return materialCost;
+  }
+
+  /**
+   * Returns the labor cost of this quote.
+   *
+   * @return the labor cost
+   */
+  public BigDecimal getLaborCost() {
+    return laborCost;
+  }
+
+  /**
+   * Returns the tax of this quote.
+   *
+   * @return the tax amount
+   */
+  public BigDecimal getTax() {
+    return tax;
+  }
+
+  /**
+   * Returns the total cost of this quote, including materials, labor, and tax.
+   *
+   * @return the total cost
+   */
+  public BigDecimal getTotal() {
+    return total;
+  }
+
+  /**
+   * Returns a string representation of this quote, laid out like an order.
+   *
+   * @return a formatted string containing the quote details
+   */
+  @Override
+  public String toString() {
+    return "\n+------------------------------------------------+\n" +
+            "Quote State: " + getState() + "\n" +
+            "Quote Tax Rate: " + getTaxRate() + "\n" +
+            "Quote Product Type: " + getProductType() + "\n" +
+            "Quote Area: " + area + "\n" +
+            "Quote Cost Per Square Foot: " + getCostPerSquareFoot() + "\n" +
+            "Quote Labor Cost Per Square Foot: " + getLaborCostPerSquareFoot() + "\n" +
+            "Quote Material Cost: " + materialCost + "\n" +
+            "Quote Labor Cost: " + laborCost + "\n" +
+            "Quote Tax: " + tax + "\n" +
+            "Quote TOTAL: " + total + "\n" +
+            "+------------------------------------------------+\n";
+  }
+}
@@ -0,0 +1,246 @@
+package Model;
+
+import java.math.RoundingMode;
+import java.math.BigDecimal;
+
+/**
+ * The {@code QuoteBatch} class prices many quotes at once from one {@link RateMatrix},
+ * without creating an order for any of them.
+ *
+ * The rows are held column by column in primitive arrays: the cell of every row, its
+ * area in hundredths of a square foot, which is the area an {@link Order} keeps, the
+ * rates gathered from the cells, and the material cost, labor cost, tax and total in
+ * cents. {@link #price()} goes over the columns in a few flat loops. As every area has
+ * two decimal places and every tax rate is read as the ten-thousandths multiplier of
+ * its cell, each row divides by the same constants, so the main loop has no branch, no
+ * lookup and no overflow check; the rows whose values are too large for it to be exact
+ * are priced again afterwards, by the checked {@link PricingEngine} arithmetic or, failing
+ * that, by the {@code BigDecimal} formulas. Every quote is exactly the one an order of
+ * the same product, state and area gets from {@link Order#set()}.
+ *
+ * A batch is meant for a single thread.
+ */
+public final class QuoteBatch {
+  // Bounds below which area * cost and (material + labor cost) * tax multiplier fit
+  // a long: 10^8 * 10^6 cents, then 2 * 10^12 * 10^6
+  private static final long MAX_AREA = 100_000_000L;
+  private static final long MAX_COST = 1_000_000L;
+  private static final long MAX_TAX_MULTIPLIER = 1_000_000L;
+  private static final int AREA_SCALE = 2;
+  private static final long AREA_DIVISOR = 100L;
+  private static final long TAX_DIVISOR = 10_000L;
+
+  private final RateMatrix rates;
+  private int size;
+
+  private final int[] cells;
+  private final long[] areas;
+  private final BigDecimal[] areaValues;
+  private final boolean[] areaFits;
+
+  private final long[] costs;
+  private final long[] laborCosts;
+  private final long[] taxMultipliers;
+
+  private final long[] materialCost;
+  private final long[] laborCost;
+  private final long[] tax;
+  private final long[] total;
+  private final boolean[] fixedPoint;
+  private final BigDecimal[][] exactCosts;
+
+  /**
+   * Constructs an empty {@code QuoteBatch}.
+   *
+   * @param rates    the rate matrix the quotes are priced with
+   * @param capacity the number of rows the batch can hold
+   */
+  public QuoteBatch(RateMatrix rates, int capacity) {
+    this.rates = rates;
+    cells = new int[capacity];
+    areas = new long[capacity];
+    areaValues = new BigDecimal[capacity];
+    areaFits = new boolean[capacity];
+    costs = new long[capacity];
+    laborCosts = new long[capacity];
+    taxMultipliers = new long[capacity];
+    materialCost = new long[capacity];
+    laborCost = new long[capacity];
+    tax = new long[capacity];
+    total = new long[capacity];
+    fixedPoint = new boolean[capacity];
+    exactCosts = new BigDecimal[capacity][];
+  }
+
+  /**
+   * Adds a row for an area of the product and state of a cell. The area is rounded
+   * to hundredths, as the area of an order is.
+   *
+   * @param cell the cell of the product and state, not -1
+   * @param area the area
+   * @return the row
+   */
+  public int add(int cell, BigDecimal area) {
+    BigDecimal areaValue = area.setScale(AREA_SCALE, RoundingMode.HALF_UP);
+    int row = add(cell, 0L);
+    areaValues[row] = areaValue;
+    areaFits[row] = areaValue.unscaledValue().bitLength() < Long.SIZE;
+    areas[row] = areaFits[row] ? areaValue.unscaledValue().longValue() : 0L;
+    return row;
+  }
+
+  /**
+   * Adds a row for an area of the product and state of a cell.
+   *
+   * @param cell      the cell of the product and state, not -1
+   * @param hundredths the area in hundredths of a square foot
+   * @return the row
+   */
+  public int add(int cell, long hundredths) {
+    if (cell < 0) {
+      throw new IllegalArgumentException("No cell for the product and state");
+    }
+    int row = size++;
+    cells[row] = cell;
+    areas[row] = hundredths;
+    areaValues[row] = null;
+    areaFits[row] = true;
+    exactCosts[row] = null;
+    return row;
+  }
+
+  /**
+   * Returns the number of rows of the batch.
+   *
+   * @return the number of rows
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes every row, so the batch can be filled again.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Calculates the material cost, labor cost, tax and total of every row.
+   */
+  public void price() {
+    int n = size;
+    for (int row = 0; row < n; row++) {
+      int cell = cells[row];
+      costs[row] = rates.costPerSquareFoot(cell);
+      laborCosts[row] = rates.laborCostPerSquareFoot(cell);
+      taxMultipliers[row] = rates.taxMultiplier(cell);
+    }
+
+    for (int row = 0; row < n; row++) {
+      long area = areas[row];
+      long material = roundHalfUp(area * costs[row], AREA_DIVISOR);
+      long labor = roundHalfUp(area * laborCosts[row], AREA_DIVISOR);
+      long costsOfRow = material + labor;
+      long taxOfRow = roundHalfUp(costsOfRow * taxMultipliers[row], TAX_DIVISOR);
+      materialCost[row] = material;
+      laborCost[row] = labor;
+      tax[row] = taxOfRow;
+      total[row] = costsOfRow + taxOfRow;
+    }
+
+    for (int row = 0; row < n; row++) {
+      fixedPoint[row] = areaFits[row] & within(areas[row], MAX_AREA) & within(costs[row], MAX_COST)
+              & within(laborCosts[row], MAX_COST) & within(taxMultipliers[row], MAX_TAX_MULTIPLIER);
+    }
+
+    long[] quote = null;
+    for (int row = 0; row < n; row++) {
+      if (!fixedPoint[row]) {
+        if (quote == null) {
+          quote = new long[PricingEngine.QUOTE_SIZE];
+        }
+        priceOutsideBounds(row, quote);
+      }
+    }
+  }
+
+  private void priceOutsideBounds(int row, long[] quote) {
+    if (areaFits[row] && rates.quote(cells[row], areas[row], AREA_SCALE, quote)) {
+      materialCost[row] = quote[PricingEngine.MATERIAL_COST];
+      laborCost[row] = quote[PricingEngine.LABOR_COST];
+      tax[row] = quote[PricingEngine.TAX];
+      total[row] = quote[PricingEngine.TOTAL];
+      fixedPoint[row] = true;
+    } else {
+      exactCosts[row] = PricingEngine.priceExactly(area(row), rates.product(cells[row]), rates.state(cells[row]));
+    }
+  }
+
+  /**
+   * Returns whether a priced row has its costs in cents, which is every row whose
+   * values fit a {@code long}.
+   *
+   * @param row the row
+   * @return false if the costs of the row are only available through {@link #quote(int)}
+   */
+  public boolean isFixedPoint(int row) {
+    return fixedPoint[row];
+  }
+
+  /**
+   * Returns a cost of a priced row in cents.
+   *
+   * @param row   the row, which {@link #isFixedPoint(int)}
+   * @param value {@link PricingEngine#MATERIAL_COST}, {@link PricingEngine#LABOR_COST},
+   *              {@link PricingEngine#TAX} or {@link PricingEngine#TOTAL}
+   * @return the cost in cents
+   */
+  public long cents(int row, int value) {
+    switch (value) {
+      case PricingEngine.MATERIAL_COST:
+        return materialCost[row];
+      case PricingEngine.LABOR_COST:
+        return laborCost[row];
+      case PricingEngine.TAX:
+        return tax[row];
+      case PricingEngine.TOTAL:
+        return total[row];
+      default:
+        throw new IllegalArgumentException("No cost " + value + " in a quote");
+    }
+  }
+
+  /**
+   * Returns the quote of a priced row.
+   *
+   * @param row the row
+   * @return the quote
+   */
+  public Quote quote(int row) {
+    int cell = cells[row];
+    if (exactCosts[row] != null) {
+      return Quote.ofCosts(rates.product(cell), rates.state(cell), area(row), exactCosts[row]);
+    }
+    return Quote.ofCents(rates.product(cell), rates.state(cell), area(row), materialCost[row], laborCost[row],
+            tax[row], total[row]);
+  }
+
+  private BigDecimal area(int row) {
+    if (areaValues[row] == null) {
+      areaValues[row] = BigDecimal.valueOf(areas[row], AREA_SCALE);
+    }
+    return areaValues[row];
+  }
+
+  private static boolean within(long value, long bound) {
+    return value > -bound & value < bound;
+  }
+
+  /**
+   * Divides a value by an even divisor, rounding half away from zero, without a branch.
+   */
+  private static long roundHalfUp(long value, long divisor) {
+    return (value + ((value >> 63) | 1) * (divisor >> 1)) / divisor;
+  }
+}
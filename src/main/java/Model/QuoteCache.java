@@ -0,0 +1,288 @@
+package Model;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.math.RoundingMode;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@code QuoteCache} class remembers the quotes of product, state and area
+ * combinations that come up again and again, such as standard room sizes, so their
+ * costs are worked out once.
+ *
+ * A quote is looked up by the {@link RateMatrix} cell of its product and state and its
+ * area in hundredths of a square foot, the area an {@link Order} keeps. The cache is
+ * split into segments by the hash of that key, each an access-ordered map behind its own
+ * lock that evicts its least recently used quote once it holds its share of the bound,
+ * so threads quoting different combinations rarely wait on each other.
+ *
+ * Every quote is kept with the catalog version of the matrix it was priced with. The
+ * first lookup with a newer matrix, such as after a catalog reload, empties the cache,
+ * and a quote of an older version is never returned. Hits, misses, evictions and
+ * invalidations are counted and reported by {@link #getStats()}.
+ */
+public class QuoteCache {
+  private static final int SEGMENTS = 16;
+  private static final int AREA_SCALE = 2;
+
+  private final int maxQuotes;
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private volatile long version = -1;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+
+  /**
+   * Constructs an empty {@code QuoteCache}.
+   *
+   * @param maxQuotes the number of quotes kept, at least one per segment
+   */
+  public QuoteCache(int maxQuotes) {
+    this.maxQuotes = Math.max(maxQuotes, SEGMENTS);
+    int perSegment = (this.maxQuotes + SEGMENTS - 1) / SEGMENTS;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(perSegment);
+    }
+  }
+
+  /**
+   * Returns the quote of an area of the product and state of a cell, pricing it and
+   * keeping it if it is not in the cache.
+   *
+   * @param rates the current rate matrix
+   * @param cell  the cell of the product and state, not -1
+   * @param area  the area, rounded to hundredths like the area of an order
+   * @return the quote
+   */
+  public Quote quote(RateMatrix rates, int cell, BigDecimal area) {
+    BigDecimal areaValue = area.setScale(AREA_SCALE, RoundingMode.HALF_UP);
+    Quote quote = get(rates, cell, areaValue);
+    if (quote == null) {
+      quote = price(rates, cell, areaValue);
+      put(rates, cell, areaValue, quote);
+    }
+    return quote;
+  }
+
+  /**
+   * Returns the cached quote of an area of the product and state of a cell.
+   *
+   * @param rates the current rate matrix
+   * @param cell  the cell of the product and state
+   * @param area  the area, rounded to hundredths like the area of an order
+   * @return the quote, or null if it has to be priced
+   */
+  public Quote get(RateMatrix rates, int cell, BigDecimal area) {
+    invalidateIfChanged(rates);
+    Key key = Key.of(cell, area);
+    CachedQuote cached = key == null ? null : segment(key).get(key);
+    if (cached == null || cached.version != rates.version()) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return cached.quote;
+  }
+
+  /**
+   * Keeps a quote priced with a rate matrix, unless the catalog changed since.
+   *
+   * @param rates the rate matrix the quote was priced with
+   * @param cell  the cell of the product and state
+   * @param area  the area, rounded to hundredths like the area of an order
+   * @param quote the quote
+   */
+  public void put(RateMatrix rates, int cell, BigDecimal area, Quote quote) {
+    Key key = Key.of(cell, area);
+    if (key != null && rates.version() == version) {
+      segment(key).put(key, new CachedQuote(rates.version(), quote));
+    }
+  }
+
+  /**
+   * Removes every quote.
+   */
+  public void clear() {
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  private void invalidateIfChanged(RateMatrix rates) {
+    if (rates.version() == version) {
+      return;
+    }
+    synchronized (this) {
+      if (rates.version() > version) {
+        version = rates.version();
+        clear();
+        invalidations.increment();
+      }
+    }
+  }
+
+  private Segment segment(Key key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  private static Quote price(RateMatrix rates, int cell, BigDecimal area) {
+    long[] cents = new long[PricingEngine.QUOTE_SIZE];
+    if (rates.quote(cell, area, cents)) {
+      return Quote.ofCents(rates.product(cell), rates.state(cell), area, cents[PricingEngine.MATERIAL_COST],
+              cents[PricingEngine.LABOR_COST], cents[PricingEngine.TAX], cents[PricingEngine.TOTAL]);
+    }
+    return Quote.ofCosts(rates.product(cell), rates.state(cell), area,
+            PricingEngine.priceExactly(area, rates.product(cell), rates.state(cell)));
+  }
+
+  /**
+   * Returns the number of quotes found in the cache.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of quotes that had to be priced.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of quotes evicted to stay within the bound.
+   *
+   * @return the number of evictions
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the number of times the cache was emptied because the catalog changed.
+   *
+   * @return the number of invalidations
+   */
+  public long getInvalidations() {
+    return invalidations.sum();
+  }
+
+  /**
+   * Returns the number of quotes in the cache.
+   *
+   * @return the number of cached quotes
+   */
+  public int getSize() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns the hit rate and eviction figures gathered so far.
+   *
+   * @return a one line summary of the cache's statistics
+   */
+  public String getStats() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    long lookups = hitCount + missCount;
+    return String.format("Quote cache: %d of %d quotes, %d hits, %d misses (%.1f%% hit rate), "
+                    + "%d evictions, %d invalidations", getSize(), maxQuotes, hitCount, missCount,
+            lookups == 0 ? 0 : 100.0 * hitCount / lookups, evictions.sum(), invalidations.sum());
+  }
+
+  /**
+   * The cell and the area in hundredths of a quote.
+   */
+  private static final class Key {
+    private final int cell;
+    private final long hundredths;
+
+    private Key(int cell, long hundredths) {
+      this.cell = cell;
+      this.hundredths = hundredths;
+    }
+
+    /**
+     * Returns the key of an area rounded to hundredths, or null if that does not fit
+     * a {@code long} and is not cached.
+     */
+    static Key of(int cell, BigDecimal area) {
+      BigDecimal hundredths = area.setScale(AREA_SCALE, RoundingMode.HALF_UP);
+      if (cell < 0 || hundredths.unscaledValue().bitLength() >= Long.SIZE) {
+        return null;
+      }
+      return new Key(cell, hundredths.unscaledValue().longValue());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return cell == key.cell && hundredths == key.hundredths;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * cell + Long.hashCode(hundredths);
+    }
+  }
+
+  private static final class CachedQuote {
+    private final long version;
+    private final Quote quote;
+
+    CachedQuote(long version, Quote quote) {
+      this.version = version;
+      this.quote = quote;
+    }
+  }
+
+  /**
+   * A least recently used share of the cache.
+   */
+  private final class Segment {
+    private final LinkedHashMap<Key, CachedQuote> quotes;
+
+    Segment(int capacity) {
+      quotes = new LinkedHashMap<Key, CachedQuote>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedQuote> eldest) {
+          if (size() > capacity) {
+            evictions.increment();
+            return true;
+          }
+          return false;
+        }
+      };
+    }
+
+    synchronized CachedQuote get(Key key) {
+      return quotes.get(key);
+    }
+
+    synchronized void put(Key key, CachedQuote cached) {
+      quotes.put(key, cached);
+    }
+
+    synchronized void clear() {
+      quotes.clear();
+    }
+
+    synchronized int size() {
+      return quotes.size();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package Model;
+
+import java.math.BigDecimal;
+
+/**
+ * The {@code QuoteRequest} class asks what an order of an area of a product in a state
+ * would cost, without placing the order.
+ */
+public class QuoteRequest {
+  private final String productType;
+  private final String state;
+  private final BigDecimal area;
+
+  /**
+   * Constructs a new {@code QuoteRequest} object with the specified details.
+   *
+   * @param productType the type of product to be quoted
+   * @param state       the state the order would be placed in
+   * @param area        the area to be quoted
+   */
+  public QuoteRequest(String productType, String state, BigDecimal area) {
+    this.productType = productType;
+    this.state = state;
+    this.area = area;
+  }
+
+  /**
+   * Returns the type of product to be quoted.
+   *
+   * @return the product type
+   */
+  public String getProductType() {
+    return productType;
+  }
+
+  /**
+   * Returns the state the order would be placed in.
+   *
+   * @return the state abbreviation
+   */
+  public String getState() {
+    return state;
+  }
+
+  /**
+   * Returns the area to be quoted.
+   *
+   * @return the area
+   */
+  public BigDecimal getArea() {
+    return area;
+  }
+}
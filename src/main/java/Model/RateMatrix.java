@@ -0,0 +1,265 @@
+package Model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Model.DAO.ProductsDAO;
+import Model.DAO.TaxesDAO;
+
+/**
+ * The {@code RateMatrix} class is the product and tax libraries compiled for pricing.
+ *
+ * Every product and every state gets a dense code, their names in alphabetical order,
+ * and every pair of them a cell of one flat {@code long} array holding what pricing an
+ * order of that product in that state needs: the cost and labor cost per square foot
+ * in cents, the tax rate in units of its last decimal place with its scale, and the
+ * tax rate in ten-thousandths as a multiplier for batches of quotes. Pricing
+ * an order reads its cell and does the {@link PricingEngine} arithmetic, without any
+ * library lookup. Material and labor costs are rounded separately before they are
+ * taxed, so a cell keeps both rates instead of their sum to give exactly the costs
+ * {@link Order#set()} always gave.
+ *
+ * A matrix never changes. {@link ProductsDAO} and {@link TaxesDAO} report every change
+ * of their libraries through {@link #catalogChanged()}, and the next call to
+ * {@link #current()} compiles a new matrix and publishes it at once, so a reader uses
+ * either the old or the new matrix as a whole.
+ */
+public final class RateMatrix {
+  private static final int COST = 0;
+  private static final int LABOR_COST = 1;
+  private static final int TAX_RATE = 2;
+  private static final int TAX_RATE_SCALE = 3;
+  private static final int TAX_MULTIPLIER = 4;
+  private static final int CELL_SIZE = 5;
+
+  /** The number of decimal places of the tax multiplier of a cell. */
+  static final int TAX_MULTIPLIER_SCALE = 4;
+
+  private static final AtomicLong catalogVersion = new AtomicLong();
+  private static volatile RateMatrix current = new RateMatrix(-1);
+
+  private final long version;
+  private final Map<String, Integer> productCodes = new HashMap<>();
+  private final Map<String, Integer> stateCodes = new HashMap<>();
+  private final Product[] products;
+  private final Tax[] states;
+  private final long[] cells;
+
+  private RateMatrix(long version) {
+    this.version = version;
+
+    List<String> productTypes = new ArrayList<>(ProductsDAO.productLibrary.keySet());
+    List<String> stateAbbreviations = new ArrayList<>(TaxesDAO.taxLibrary.keySet());
+    Collections.sort(productTypes);
+    Collections.sort(stateAbbreviations);
+
+    products = new Product[productTypes.size()];
+    for (int code = 0; code < products.length; code++) {
+      productCodes.put(productTypes.get(code), code);
+      products[code] = PricingEngine.pricedProduct(ProductsDAO.getProduct(productTypes.get(code)));
+    }
+    states = new Tax[stateAbbreviations.size()];
+    for (int code = 0; code < states.length; code++) {
+      stateCodes.put(stateAbbreviations.get(code), code);
+      states[code] = TaxesDAO.getTax(stateAbbreviations.get(code));
+    }
+
+    cells = new long[products.length * states.length * CELL_SIZE];
+    for (int product = 0; product < products.length; product++) {
+      for (int state = 0; state < states.length; state++) {
+        int at = (product * states.length + state) * CELL_SIZE;
+        cells[at + COST] = products[product].costPerSquareFootCents;
+        cells[at + LABOR_COST] = products[product].laborCostPerSquareFootCents;
+        cells[at + TAX_RATE] = states[state].taxRateUnscaled;
+        cells[at + TAX_RATE_SCALE] = states[state].taxRateScale;
+        cells[at + TAX_MULTIPLIER] = taxMultiplier(states[state]);
+      }
+    }
+  }
+
+  /**
+   * Returns the tax rate in ten-thousandths, or {@link PricingEngine#NO_CENTS} if it
+   * has more decimal places or does not fit a {@code long}.
+   */
+  private static long taxMultiplier(Tax tax) {
+    int shift = TAX_MULTIPLIER_SCALE - tax.taxRateScale;
+    if (shift < 0 || shift > TAX_MULTIPLIER_SCALE) {
+      return PricingEngine.NO_CENTS;
+    }
+    try {
+      long multiplier = tax.taxRateUnscaled;
+      for (int i = 0; i < shift; i++) {
+        multiplier = Math.multiplyExact(multiplier, 10);
+      }
+      return multiplier;
+    } catch (ArithmeticException e) {
+      return PricingEngine.NO_CENTS;
+    }
+  }
+
+  /**
+   * Returns the matrix of the current product and tax libraries, compiling it first if
+   * they changed since the last one.
+   *
+   * @return the current rate matrix
+   */
+  public static RateMatrix current() {
+    RateMatrix matrix = current;
+    if (matrix.version == catalogVersion.get()) {
+      return matrix;
+    }
+    synchronized (RateMatrix.class) {
+      matrix = current;
+      long version = catalogVersion.get();
+      if (matrix.version != version) {
+        matrix = new RateMatrix(version);
+        current = matrix;
+      }
+      return matrix;
+    }
+  }
+
+  /**
+   * Records that a product or a tax rate changed, so the matrix is compiled again.
+   */
+  public static void catalogChanged() {
+    catalogVersion.incrementAndGet();
+  }
+
+  /**
+   * Returns the version of the product and tax libraries, which grows with every
+   * change of them.
+   *
+   * @return the catalog version
+   */
+  public static long catalogVersion() {
+    return catalogVersion.get();
+  }
+
+  /**
+   * Returns the catalog version this matrix was compiled from.
+   *
+   * @return the catalog version
+   */
+  public long version() {
+    return version;
+  }
+
+  /**
+   * Returns the code of a product type.
+   *
+   * @param productType the product type
+   * @return the code, or -1 if the product is not in the library
+   */
+  public int productCode(String productType) {
+    Integer code = productCodes.get(productType);
+    return code == null ? -1 : code;
+  }
+
+  /**
+   * Returns the code of a state.
+   *
+   * @param state the state abbreviation
+   * @return the code, or -1 if the state is not in the library
+   */
+  public int stateCode(String state) {
+    Integer code = stateCodes.get(state);
+    return code == null ? -1 : code;
+  }
+
+  /**
+   * Returns the cell of a product and a state.
+   *
+   * @param productCode the code of the product
+   * @param stateCode the code of the state
+   * @return the cell, or -1 if either code is -1
+   */
+  public int cell(int productCode, int stateCode) {
+    return productCode < 0 || stateCode < 0 ? -1 : productCode * states.length + stateCode;
+  }
+
+  /**
+   * Returns the cell of a product and a state.
+   *
+   * @param productType the product type
+   * @param state the state abbreviation
+   * @return the cell, or -1 if the product or the state is not in the libraries
+   */
+  public int cell(String productType, String state) {
+    return cell(productCode(productType), stateCode(state));
+  }
+
+  /**
+   * Returns the shared product entry an order of a cell is priced with.
+   *
+   * @param cell the cell
+   * @return the product entry, or null if the cell is -1
+   */
+  public Product product(int cell) {
+    return cell < 0 ? null : products[cell / states.length];
+  }
+
+  /**
+   * Returns the tax entry of the state of a cell.
+   *
+   * @param cell the cell
+   * @return the tax entry, or null if the cell is -1
+   */
+  public Tax state(int cell) {
+    return cell < 0 ? null : states[cell % states.length];
+  }
+
+  /**
+   * Calculates the costs of an area of the product in the state of a cell into a
+   * quote of cents, without allocating.
+   *
+   * @param cell the cell
+   * @param area the area in units of its last decimal place
+   * @param areaScale the number of decimal places of the area
+   * @param quote receives the material cost, labor cost, tax and total in cents
+   * @return false if the cell is -1 or a value does not fit the fixed-point arithmetic
+   */
+  public boolean quote(int cell, long area, int areaScale, long[] quote) {
+    if (cell < 0) {
+      return false;
+    }
+    int at = cell * CELL_SIZE;
+    return PricingEngine.quote(area, areaScale, cells[at + COST], cells[at + LABOR_COST],
+            cells[at + TAX_RATE], (int) cells[at + TAX_RATE_SCALE], quote);
+  }
+
+  /**
+   * Calculates the costs of an area of the product in the state of a cell into a
+   * quote of cents.
+   *
+   * @param cell the cell
+   * @param area the area
+   * @param quote receives the material cost, labor cost, tax and total in cents
+   * @return false if the cell is -1 or a value does not fit the fixed-point arithmetic
+   */
+  public boolean quote(int cell, BigDecimal area, long[] quote) {
+    if (cell < 0) {
+      return false;
+    }
+    int at = cell * CELL_SIZE;
+    return PricingEngine.quote(area, cells[at + COST], cells[at + LABOR_COST],
+            cells[at + TAX_RATE], (int) cells[at + TAX_RATE_SCALE], quote);
+  }
+
+  long costPerSquareFoot(int cell) {
+    return cells[cell * CELL_SIZE + COST];
+  }
+
+  long laborCostPerSquareFoot(int cell) {
+    return cells[cell * CELL_SIZE + LABOR_COST];
+  }
+
+  long taxMultiplier(int cell) {
+    return cells[cell * CELL_SIZE + TAX_MULTIPLIER];
+  }
+}
@@ -6,11 +6,19 @@ import java.math.BigDecimal;
  * The {@code Tax} class represents tax information associated with a
  * specific state. It includes details such as the state abbreviation,
  * state name, and the applicable tax rate.
+ *
+ * A {@code Tax} is immutable, so one instance is shared by the tax library and every
+ * order taxed at the same rate, and two orders have the same state and tax rate
+ * exactly when they reference the same instance.
  */
 public class Tax {
-  private String stateAbbreviation;
-  private String stateName;
-  private BigDecimal taxRate;
+  private final String stateAbbreviation;
+  private final String stateName;
+  private final BigDecimal taxRate;
+  // The tax rate in units of its last decimal place for the PricingEngine, which
+  // refuses a scale of Integer.MAX_VALUE
+  final long taxRateUnscaled;
+  final int taxRateScale;
 
   /**
    * Constructs a new {@code Tax} object with the specified state
@@ -24,9 +32,16 @@ public class Tax {
     this.stateAbbreviation = stateAbbreviation;
     this.stateName = stateName;
     this.taxRate = taxRate;
+    if (taxRate != null && taxRate.unscaledValue().bitLength() < Long.SIZE) {
+      this.taxRateUnscaled = taxRate.unscaledValue().longValue();
+      this.taxRateScale = taxRate.scale();
+    } else {
+      this.taxRateUnscaled = 0;
+      this.taxRateScale = Integer.MAX_VALUE;
+    }
   }
 
-  // Getter and Setter for stateAbbreviation
+  // Getter for stateAbbreviation
 
   /**
    * Returns the abbreviation of the state.
@@ -37,16 +52,7 @@ public class Tax {
     return stateAbbreviation;
   }
 
-  /**
-   * Sets the abbreviation of the state.
-   *
-   * @param stateAbbreviation the new state abbreviation
-   */
-  public void setStateAbbreviation(String stateAbbreviation) {
-    this.stateAbbreviation = stateAbbreviation;
-  }
-
-  // Getter and Setter for stateName
+  // Getter for stateName
 
   /**
    * Returns the name of the state.
@@ -57,16 +63,7 @@ public class Tax {
     return stateName;
   }
 
-  /**
-   * Sets the name of the state.
-   *
-   * @param stateName the new state name
-   */
-  public void setStateName(String stateName) {
-    this.stateName = stateName;
-  }
-
-  // Getter and Setter for taxRate
+  // Getter for taxRate
 
   /**
    * Returns the tax rate for the state.
@@ -76,13 +73,4 @@ public class Tax {
   public BigDecimal getTaxRate() {
     return taxRate;
   }
-
-  /**
-   * Sets the tax rate for the state.
-   *
-   * @param taxRate the new tax rate
-   */
-  public void setTaxRate(BigDecimal taxRate) {
-    this.taxRate = taxRate;
-  }
 }
\ No newline at end of file
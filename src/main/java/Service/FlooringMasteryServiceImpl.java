@@ -4,15 +4,35 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.json.JSONObject;
 
+import java.util.concurrent.CompletableFuture;
 import java.time.format.DateTimeFormatter;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
 import Exceptions.ModelExceptions;
 import Exceptions.ServiceExceptions;
 import Model.DAO.OrdersDAOImpl;
 import Model.DAO.FileDAOImpl;
+import Model.DAO.ProductsDAO;
+import Model.DAO.TaxesDAO;
 import Model.Order;
+import Model.Product;
+import Model.Quote;
+import Model.QuoteBatch;
+import Model.QuoteCache;
+import Model.QuoteRequest;
+import Model.RateMatrix;
+import Model.Tax;
 
 /**
  * The {@code FlooringMasteryService} class provides services for managing
@@ -21,8 +41,12 @@ import Model.Order;
  */
 @Component
 public class FlooringMasteryServiceImpl implements Service {
+  // The number of orders a customer name search displays at most
+  private static final int SEARCH_RESULTS = 20;
+
   private OrdersDAOImpl ordersDAOImpl;
   private FileDAOImpl auditDAOImpl;
+  private PersistencePipeline persistence;
 
   /**
    * Constructs a new {@code FlooringMasteryService} with the specified
@@ -39,6 +63,20 @@ public class FlooringMasteryServiceImpl implements Service {
     //his.ordersDAO.addOrder(date, "Jane Doe", "IL", "Bamboo",  BigDecimal.valueOf(100));
   }
 
+  /**
+   * Constructs a new {@code FlooringMasteryService} that writes order changes to the
+   * order files asynchronously, through a {@link PersistencePipeline} holding at most
+   * {@code queueCapacity} pending changes.
+   *
+   * @param ordersDAOImpl the data access object for orders
+   * @param auditDAOImpl  the data access object for audit operations
+   * @param queueCapacity the number of changes that may wait before callers block
+   */
+  public FlooringMasteryServiceImpl(OrdersDAOImpl ordersDAOImpl, FileDAOImpl auditDAOImpl, int queueCapacity) {
+    this(ordersDAOImpl, auditDAOImpl);
+    this.persistence = new PersistencePipeline(auditDAOImpl, queueCapacity);
+  }
+
   /**
    * Displays all orders for a specified date.
    *
@@ -54,6 +92,40 @@ public class FlooringMasteryServiceImpl implements Service {
     return ordersDAOImpl.displayOrders(date);
   }
 
+  /**
+   * Displays the orders of every date in a range, such as a week under review.
+   *
+   * @param range a {@code JSONObject} containing the first ("from") and last ("to")
+   *              date of the range
+   * @return the orders of the range under a heading per date, produced as the stream
+   *         is consumed
+   * @throws ServiceExceptions if the first date is after the last one
+   */
+  @Override
+  public Stream<String> displayOrdersBetween(JSONObject range) throws ServiceExceptions {
+    LocalDate from = LocalDate.parse(range.getString("from"), DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+    LocalDate to = LocalDate.parse(range.getString("to"), DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+
+    if (from.isAfter(to)) {
+      throw new ServiceExceptions(new ModelExceptions("The range must not end before it starts."));
+    }
+    return ordersDAOImpl.displayOrdersBetween(from, to);
+  }
+
+  /**
+   * Displays the orders of every date of a month.
+   *
+   * @param month a {@code JSONObject} containing the month ("month") as MM/YYYY
+   * @return the orders of the month under a heading per date, produced as the stream
+   *         is consumed
+   */
+  @Override
+  public Stream<String> displayOrdersInMonth(JSONObject month) {
+    YearMonth yearMonth = YearMonth.parse(month.getString("month"), DateTimeFormatter.ofPattern("MM/yyyy"));
+
+    return ordersDAOImpl.displayOrdersBetween(yearMonth.atDay(1), yearMonth.atEndOfMonth());
+  }
+
   /**
    * Adds a new order based on the provided order information.
    *
@@ -75,7 +147,8 @@ public class FlooringMasteryServiceImpl implements Service {
 
     try {
       Order order = ordersDAOImpl.addOrder(date, name, state, productType, area);
-      auditDAOImpl.addOrder(date, order);
+      // The store never changes an order it published, so the pipeline can write it as is
+      persist(date, fileDAO -> fileDAO.addOrder(date, order));
       return order;
     } catch (ModelExceptions e) {
       // All these catches in this class mainly catch IOExceptions and FileNotFoundExceptions
@@ -83,6 +156,79 @@ public class FlooringMasteryServiceImpl implements Service {
     }
   }
 
+  /**
+   * Adds a new order like {@link #addOrder(JSONObject)} and returns a handle completed
+   * with it once it is in the order files. The order is in memory as soon as this
+   * method returns.
+   *
+   * @param orderInfo a {@code JSONObject} containing the details of the order
+   *                  to be added
+   * @return a handle completed with the new order once it has been written, or
+   *         completed exceptionally with the {@link ModelExceptions} it failed with
+   * @throws ServiceExceptions if the order cannot be added, or cannot be written when
+   *                           order changes are written inline
+   */
+  @Override
+  public CompletableFuture<Order> addOrderAsync(JSONObject orderInfo) throws ServiceExceptions {
+    String stringDate = orderInfo.getString("date");
+    LocalDate date = LocalDate.parse(stringDate, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+
+    String name = orderInfo.getString("name");
+    String state = orderInfo.getString("state");
+    String productType = orderInfo.getString("product type");
+    BigDecimal area = BigDecimal.valueOf(Long.parseLong(orderInfo.getString("area")));
+
+    try {
+      Order order = ordersDAOImpl.addOrder(date, name, state, productType, area);
+      return persist(date, fileDAO -> fileDAO.addOrder(date, order)).thenApply(written -> order);
+    } catch (ModelExceptions e) {
+      throw new ServiceExceptions(e);
+    }
+  }
+
+  /**
+   * Prices a batch of orders without placing them. Quotes found in the
+   * {@link QuoteCache} are taken from it, and the rest are priced together by a
+   * {@link QuoteBatch} over one {@link RateMatrix} and kept in the cache, so a catalog
+   * change during the call applies to all of them or to none.
+   *
+   * @param requests the product, state and area of every order to be quoted
+   * @return the quote of every request, in the order of the requests
+   * @throws ServiceExceptions if a product or a state of a request is not in the
+   *                           product or tax library
+   */
+  @Override
+  public List<Quote> quote(List<QuoteRequest> requests) throws ServiceExceptions {
+    RateMatrix rates = RateMatrix.current();
+    QuoteCache cache = ordersDAOImpl.getQuoteCache();
+    List<Quote> quotes = new ArrayList<>(requests.size());
+    QuoteBatch batch = new QuoteBatch(rates, requests.size());
+    int[] cells = new int[requests.size()];
+    int[] rowOf = new int[requests.size()];
+    for (int i = 0; i < requests.size(); i++) {
+      QuoteRequest request = requests.get(i);
+      int cell = rates.cell(request.getProductType(), request.getState());
+      if (cell < 0) {
+        throw new ServiceExceptions(new ModelExceptions("No product " + request.getProductType()
+                + " in state " + request.getState()));
+      }
+      cells[i] = cell;
+      Quote cached = cache.get(rates, cell, request.getArea());
+      quotes.add(cached);
+      rowOf[i] = cached == null ? batch.add(cell, request.getArea()) : -1;
+    }
+    batch.price();
+
+    for (int i = 0; i < requests.size(); i++) {
+      if (rowOf[i] >= 0) {
+        Quote quote = batch.quote(rowOf[i]);
+        cache.put(rates, cells[i], quote.getArea(), quote);
+        quotes.set(i, quote);
+      }
+    }
+    return quotes;
+  }
+
   /**
    * Edits an existing order based on the provided new order information.
    *
@@ -96,23 +242,82 @@ public class FlooringMasteryServiceImpl implements Service {
     String stringDate = newOrderInfo.getString("date");
     LocalDate date = LocalDate.parse(stringDate, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
     int orderNum = newOrderInfo.getInt("order number");
+    String edits = edits(newOrderInfo);
 
-    String name = newOrderInfo.getString("name");
-    String state = newOrderInfo.getString("state");
-    String productType = newOrderInfo.getString("product type");
-    String area = newOrderInfo.getString("area");
+    try {
+      Order order = ordersDAOImpl.editAnOrder(date, orderNum, edits);
+      persist(date, fileDAO -> fileDAO.editAnOrder(date, order));
+      return order;
+    } catch (ModelExceptions e) {
+      throw new ServiceExceptions(e);
+    }
+  }
 
-    String edits = name + "," + state + "," + productType + "," + area;
+  /**
+   * Edits an existing order like {@link #editAnOrder(JSONObject)} and returns a handle
+   * completed with it once the edit is in the order files. The edit is in memory as
+   * soon as this method returns.
+   *
+   * @param newOrderInfo a {@code JSONObject} containing the updated details
+   *                     of the order
+   * @return a handle completed with the updated order once it has been written, or
+   *         completed exceptionally with the {@link ModelExceptions} it failed with
+   * @throws ServiceExceptions if the order cannot be edited, or cannot be written when
+   *                           order changes are written inline
+   */
+  @Override
+  public CompletableFuture<Order> editAnOrderAsync(JSONObject newOrderInfo) throws ServiceExceptions {
+    String stringDate = newOrderInfo.getString("date");
+    LocalDate date = LocalDate.parse(stringDate, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+    int orderNum = newOrderInfo.getInt("order number");
+    String edits = edits(newOrderInfo);
 
     try {
       Order order = ordersDAOImpl.editAnOrder(date, orderNum, edits);
-      auditDAOImpl.editAnOrder(date, order);
+      return persist(date, fileDAO -> fileDAO.editAnOrder(date, order)).thenApply(written -> order);
+    } catch (ModelExceptions e) {
+      throw new ServiceExceptions(e);
+    }
+  }
+
+  /**
+   * Edits an existing order found by its order number alone, without asking for
+   * its date first.
+   *
+   * @param orderNum     the order number of the order to be edited
+   * @param newOrderInfo a {@code JSONObject} containing the updated details
+   *                     of the order
+   * @return the updated {@code Order} object
+   * @throws ServiceExceptions if the order does not exist or an error occurs while
+   *                           editing it
+   */
+  @Override
+  public Order editOrder(int orderNum, JSONObject newOrderInfo) throws ServiceExceptions {
+    String edits = edits(newOrderInfo);
+
+    try {
+      LocalDate date = ordersDAOImpl.getOrderDate(orderNum);
+      Order order = ordersDAOImpl.editAnOrder(orderNum, edits);
+      persist(date, fileDAO -> fileDAO.editAnOrder(date, order));
       return order;
     } catch (ModelExceptions e) {
       throw new ServiceExceptions(e);
     }
   }
 
+  /**
+   * Builds the comma separated edits string of the orders DAO from the new order
+   * information, where a single space leaves a field unchanged.
+   */
+  private static String edits(JSONObject newOrderInfo) {
+    String name = newOrderInfo.getString("name");
+    String state = newOrderInfo.getString("state");
+    String productType = newOrderInfo.getString("product type");
+    String area = newOrderInfo.getString("area");
+
+    return name + "," + state + "," + productType + "," + area;
+  }
+
   /**
    * Removes an existing order based on the provided order information.
    *
@@ -128,7 +333,33 @@ public class FlooringMasteryServiceImpl implements Service {
 
     try {
       ordersDAOImpl.removeOrder(date, orderNumber);
-      auditDAOImpl.removeOrder(date, orderNumber);
+      persist(date, fileDAO -> fileDAO.removeOrder(date, orderNumber));
+    } catch (ModelExceptions e) {
+      throw new ServiceExceptions(e);
+    }
+  }
+
+  /**
+   * Removes an existing order like {@link #removeOrder(JSONObject)} and returns a
+   * handle completed once the removal is in the order files. The order is gone from
+   * memory as soon as this method returns.
+   *
+   * @param orderInfo a {@code JSONObject} containing the details of the order
+   *                  to be removed
+   * @return a handle completed once the removal has been written, or completed
+   *         exceptionally with the {@link ModelExceptions} it failed with
+   * @throws ServiceExceptions if the order cannot be removed, or cannot be written
+   *                           when order changes are written inline
+   */
+  @Override
+  public CompletableFuture<Void> removeOrderAsync(JSONObject orderInfo) throws ServiceExceptions {
+    String stringDate = orderInfo.getString("date");
+    LocalDate date = LocalDate.parse(stringDate, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+    int orderNumber = orderInfo.getInt("order number");
+
+    try {
+      ordersDAOImpl.removeOrder(date, orderNumber);
+      return persist(date, fileDAO -> fileDAO.removeOrder(date, orderNumber));
     } catch (ModelExceptions e) {
       throw new ServiceExceptions(e);
     }
@@ -150,6 +381,34 @@ public class FlooringMasteryServiceImpl implements Service {
     return ordersDAOImpl.getOrder(date, orderNum);
   }
 
+  /**
+   * Retrieves a specific order by its order number alone, without asking for its
+   * date first.
+   *
+   * @param orderNum the order number of the order to be retrieved
+   * @return the {@code Order} object, or null if no such order exists
+   */
+  @Override
+  public Order getOrder(int orderNum) {
+    return ordersDAOImpl.getOrder(orderNum);
+  }
+
+  /**
+   * Searches the orders of the customers whose names are most like a partial or
+   * misspelled name, such as a name heard over the phone.
+   *
+   * @param nameInfo a {@code JSONObject} containing the name ("name") as far as it
+   *                 is known
+   * @return a string representation of the orders found, those of the most similar
+   *         customer first, or an empty string if no name is similar enough
+   */
+  @Override
+  public String searchCustomerNames(JSONObject nameInfo) {
+    return ordersDAOImpl.searchCustomerNames(nameInfo.getString("name"), SEARCH_RESULTS).stream()
+            .map(Order::toString)
+            .collect(Collectors.joining());
+  }
+
   /**
    * Exports all data to the 'DataExport' file.
    *
@@ -158,9 +417,104 @@ public class FlooringMasteryServiceImpl implements Service {
   @Override
   public void exportAllData() throws ServiceExceptions {
     try {
+      if (persistence != null) {
+        persistence.flush().join(); // the export has to include every pending change
+      }
       auditDAOImpl.export();
     } catch (ModelExceptions e) {
       throw new ServiceExceptions(e);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Loads every order already stored in the order files so that days entered in
+   * earlier runs can be displayed, edited and removed. With a date cache configured
+   * the days are read on first use instead.
+   *
+   * @throws ServiceExceptions if an error occurs while reading the order files
+   */
+  @Override
+  public void loadExistingOrders() throws ServiceExceptions {
+    try {
+      if (ordersDAOImpl.isLoadingLazily()) {
+        ordersDAOImpl.loadOrdersLazily(auditDAOImpl);
+      } else {
+        ordersDAOImpl.loadOrders(auditDAOImpl.readAllOrders());
+      }
+    } catch (ModelExceptions e) {
+      throw new ServiceExceptions(e);
+    }
+  }
+
+  /**
+   * Reads the product and tax files again and reprices, in parallel, every stored
+   * order of a product whose costs or a state whose tax rate differ from before.
+   * The repriced orders are written date by date, through the persistence pipeline
+   * in asynchronous mode.
+   *
+   * @return the orders whose totals changed, with their old and new totals
+   * @throws ServiceExceptions if the files cannot be read or the repriced orders
+   *                           cannot be written to the order files
+   */
+  @Override
+  public RepricingReport reloadCatalog() throws ServiceExceptions {
+    Map<String, Product> oldProducts = new HashMap<>(ProductsDAO.productLibrary);
+    Map<String, Tax> oldTaxes = new HashMap<>(TaxesDAO.taxLibrary);
+
+    try {
+      auditDAOImpl.reloadCatalog();
+
+      Set<String> productTypes = new TreeSet<>();
+      for (Product product : ProductsDAO.productLibrary.values()) {
+        Product old = oldProducts.get(product.getProductType());
+        if (old == null || !Objects.equals(old.getCostPerSquareFoot(), product.getCostPerSquareFoot())
+                || !Objects.equals(old.getLaborCostPerSquareFoot(), product.getLaborCostPerSquareFoot())) {
+          productTypes.add(product.getProductType());
+        }
+      }
+      Set<String> states = new TreeSet<>();
+      for (Tax tax : TaxesDAO.taxLibrary.values()) {
+        Tax old = oldTaxes.get(tax.getStateAbbreviation());
+        if (old == null || !Objects.equals(old.getTaxRate(), tax.getTaxRate())) {
+          states.add(tax.getStateAbbreviation());
+        }
+      }
+
+      return new RepricingJob(ordersDAOImpl, this::persist).run(states, productTypes);
+    } catch (ModelExceptions e) {
+      throw new ServiceExceptions(e);
+    }
+  }
+
+  /**
+   * Writes every order change still waiting in the persistence pipeline and stops it.
+   */
+  @Override
+  public void shutdown() {
+    if (persistence != null) {
+      persistence.close();
+    }
+  }
+
+  /**
+   * Applies an order change to the order files, inline or through the persistence
+   * pipeline, and returns its completion handle. Once the write is done its date may
+   * be evicted from the date cache again, even if it failed, so a date whose change
+   * could not be written is read back as its file has it rather than kept in memory
+   * forever.
+   */
+  private CompletableFuture<Void> persist(LocalDate date, PersistencePipeline.Write write)
+          throws ModelExceptions {
+    if (persistence == null) {
+      try {
+        write.apply(auditDAOImpl);
+      } finally {
+        ordersDAOImpl.markPersisted(date);
+      }
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<Void> written = persistence.submit(write);
+    written.whenComplete((result, failure) -> ordersDAOImpl.markPersisted(date));
+    return written;
+  }
+}
@@ -0,0 +1,190 @@
+package Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import Exceptions.ModelExceptions;
+import Model.DAO.FileDAO;
+
+/**
+ * The {@code PersistencePipeline} class applies order mutations to a {@link FileDAO}
+ * on a dedicated writer thread, so the service can answer the user as soon as the
+ * in-memory orders have changed instead of waiting for the disk.
+ *
+ * Mutations wait in a bounded queue and are applied one at a time in the order they
+ * were submitted. When the queue is full, {@link #submit(Write)} blocks until the
+ * writer catches up. Closing the pipeline, which also happens on JVM shutdown, applies
+ * every mutation still waiting before the writer thread stops.
+ */
+public class PersistencePipeline {
+  private static final Logger LOGGER = Logger.getLogger(PersistencePipeline.class.getName());
+
+  /**
+   * A mutation of the order files.
+   */
+  public interface Write {
+    void apply(FileDAO fileDAO) throws ModelExceptions;
+  }
+
+  private static final PendingWrite CLOSE = new PendingWrite(fileDAO -> { });
+
+  private final FileDAO fileDAO;
+  private final BlockingQueue<PendingWrite> queue;
+  private final Thread writer;
+  private final Thread shutdownHook;
+  private volatile boolean closed;
+  private volatile boolean stopped;
+
+  /**
+   * Constructs a {@code PersistencePipeline} and starts its writer thread.
+   *
+   * @param fileDAO the data access object the mutations are applied to
+   * @param capacity the number of mutations that may wait before callers block
+   */
+  public PersistencePipeline(FileDAO fileDAO, int capacity) {
+    this.fileDAO = fileDAO;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+
+    writer = new Thread(this::writeLoop, "order-persistence");
+    writer.setDaemon(true);
+    writer.start();
+
+    shutdownHook = new Thread(this::close, "order-persistence-drain");
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+  }
+
+  /**
+   * Queues a mutation, blocking while the queue is full.
+   *
+   * @param write the mutation to be applied
+   * @return a handle completed once the mutation has been applied, or completed
+   *         exceptionally with the {@link ModelExceptions} it failed with
+   */
+  public CompletableFuture<Void> submit(Write write) {
+    PendingWrite pending = new PendingWrite(write);
+    if (closed) {
+      pending.done.completeExceptionally(new IllegalStateException("Persistence pipeline is closed"));
+      return pending.done;
+    }
+
+    try {
+      queue.put(pending);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      pending.done.completeExceptionally(e);
+      return pending.done;
+    }
+    if (stopped && queue.remove(pending)) {
+      // Queued after the writer had stopped; if the writer took it, the writer failed it
+      pending.done.completeExceptionally(new IllegalStateException("Persistence pipeline is closed"));
+    }
+    return pending.done;
+  }
+
+  /**
+   * Returns a handle completed once every mutation submitted so far has been applied.
+   *
+   * @return the handle of a no-op mutation queued behind the others
+   */
+  public CompletableFuture<Void> flush() {
+    return submit(fileDAO -> { });
+  }
+
+  /**
+   * Stops accepting mutations and waits until the ones still queued have been applied.
+   */
+  public void close() {
+    synchronized (this) {
+      if (!closed) {
+        closed = true;
+        // The writer is not interrupted, so the mutation it is applying is not cut short
+        putUninterruptibly(CLOSE);
+      }
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (Thread.currentThread() != shutdownHook) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      } catch (IllegalStateException e) {
+        // The JVM is already shutting down and runs the hook itself
+      }
+    }
+  }
+
+  /**
+   * The writer loop: applies queued mutations in order until the close marker is
+   * reached, then applies whatever was queued behind it. Mutations queued after that
+   * are failed, so no caller waits on a handle that is never completed.
+   */
+  private void writeLoop() {
+    boolean draining = false;
+    while (true) {
+      PendingWrite pending;
+      if (draining) {
+        pending = queue.poll();
+        if (pending == null) {
+          break;
+        }
+      } else {
+        try {
+          pending = queue.take();
+        } catch (InterruptedException e) {
+          continue;
+        }
+      }
+
+      if (pending == CLOSE) {
+        draining = true;
+        continue;
+      }
+      try {
+        pending.write.apply(fileDAO);
+        pending.done.complete(null);
+      } catch (ModelExceptions | RuntimeException e) {
+        LOGGER.log(Level.SEVERE, "Order mutation could not be persisted", e);
+        pending.done.completeExceptionally(e);
+      }
+    }
+
+    stopped = true;
+    PendingWrite late;
+    while ((late = queue.poll()) != null) {
+      late.done.completeExceptionally(new IllegalStateException("Persistence pipeline is closed"));
+    }
+  }
+
+  private void putUninterruptibly(PendingWrite pending) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(pending);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * A mutation waiting in the queue with its completion handle.
+   */
+  private static class PendingWrite {
+    private final Write write;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    PendingWrite(Write write) {
+      this.write = write;
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package Service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import Exceptions.ModelExceptions;
+import Model.DAO.OrdersDAO;
+import Model.Order;
+
+/**
+ * The {@code RepricingJob} class prices the stored orders of some states and product
+ * types again after their tax rates or product costs changed, such as when
+ * 'Taxes.txt' or 'Products.txt' was edited.
+ *
+ * The orders concerned are found through the state and product type indexes of the
+ * {@link OrdersDAO}, grouped by the date the indexes hold them under, since order
+ * files written before order numbers were unique may repeat a number on other dates.
+ * The dates are split in half on the common fork-join pool until each task holds at
+ * most {@link #DATES_PER_TASK} dates, and the orders of each date are repriced as one
+ * change of the date and persisted with one {@link Model.DAO.FileDAO#editOrders} call,
+ * leaving out the orders whose values stay the same. Progress and throughput are
+ * logged as the dates are done, and the old and new totals of every changed order are
+ * returned in a {@link RepricingReport}.
+ */
+public class RepricingJob {
+  private static final Logger LOGGER = Logger.getLogger(RepricingJob.class.getName());
+  private static final int DATES_PER_TASK = 4;
+  // The number of progress lines logged over a whole job
+  private static final int PROGRESS_STEPS = 10;
+
+  /**
+   * Writes a change of a date to the order files, such as through the
+   * {@link PersistencePipeline} of the service.
+   */
+  public interface Persister {
+    void persist(LocalDate date, PersistencePipeline.Write write) throws ModelExceptions;
+  }
+
+  private final OrdersDAO ordersDAO;
+  private final Persister persister;
+  private final ConcurrentLinkedQueue<RepricingReport.Change> changes = new ConcurrentLinkedQueue<>();
+  private final AtomicReference<ModelExceptions> failure = new AtomicReference<>();
+  private final LongAdder ordersRepriced = new LongAdder();
+  private final LongAdder datesDone = new LongAdder();
+  private long start;
+  private int dateCount;
+
+  /**
+   * Constructs a {@code RepricingJob} over the orders of the specified data access
+   * object.
+   *
+   * @param ordersDAO the data access object of the orders
+   * @param persister writes the repriced orders of each date to the order files
+   */
+  public RepricingJob(OrdersDAO ordersDAO, Persister persister) {
+    this.ordersDAO = ordersDAO;
+    this.persister = persister;
+  }
+
+  /**
+   * Reprices every order of the specified states or product types in parallel.
+   *
+   * @param states       the states whose tax rate changed
+   * @param productTypes the product types whose costs changed
+   * @return the orders whose values changed with their old and new totals
+   * @throws ModelExceptions if the changes of any date could not be persisted; the
+   *                         other dates are repriced and persisted all the same
+   */
+  public RepricingReport run(Collection<String> states, Collection<String> productTypes) throws ModelExceptions {
+    start = System.nanoTime();
+    Map<LocalDate, Map<Integer, Order>> candidates = new TreeMap<>();
+    for (String state : states) {
+      addCandidates(candidates, ordersDAO.findOrdersByDate(null, state, null));
+    }
+    for (String productType : productTypes) {
+      addCandidates(candidates, ordersDAO.findOrdersByDate(null, null, productType));
+    }
+
+    List<Map.Entry<LocalDate, Map<Integer, Order>>> dates = new ArrayList<>(candidates.entrySet());
+    dateCount = dates.size();
+    ForkJoinPool.commonPool().invoke(new RepriceTask(dates, 0, dates.size()));
+
+    RepricingReport report = new RepricingReport(new ArrayList<>(changes), (int) ordersRepriced.sum(),
+            System.nanoTime() - start);
+    LOGGER.info(String.format("Repriced %d orders of %d dates in %.1f ms - %.0f orders/s, %d changed",
+            report.getOrdersRepriced(), dateCount, report.getNanos() / 1e6, report.ordersPerSecond(),
+            report.getChanges().size()));
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    return report;
+  }
+
+  private static void addCandidates(Map<LocalDate, Map<Integer, Order>> candidates,
+                                    Map<LocalDate, List<Order>> found) {
+    for (Map.Entry<LocalDate, List<Order>> date : found.entrySet()) {
+      Map<Integer, Order> orders = candidates.computeIfAbsent(date.getKey(), key -> new TreeMap<>());
+      for (Order order : date.getValue()) {
+        orders.put(order.getOrderNumber(), order);
+      }
+    }
+  }
+
+  /**
+   * Reprices the orders of a date, persists the ones that changed and records their
+   * totals.
+   */
+  private void repriceDate(LocalDate date, Map<Integer, Order> candidates) {
+    List<Order> changed = new ArrayList<>();
+    for (Order repriced : ordersDAO.repriceOrders(date, candidates.keySet())) {
+      Order old = candidates.get(repriced.getOrderNumber());
+      if (!samePrices(old, repriced)) {
+        changed.add(repriced);
+        changes.add(new RepricingReport.Change(date, old, repriced));
+      }
+    }
+    ordersRepriced.add(candidates.size());
+
+    if (!changed.isEmpty()) {
+      try {
+        persister.persist(date, fileDAO -> fileDAO.editOrders(date, changed));
+      } catch (ModelExceptions e) {
+        failure.compareAndSet(null, e);
+      }
+    }
+
+    datesDone.increment();
+    long done = datesDone.sum();
+    int step = Math.max(1, dateCount / PROGRESS_STEPS);
+    if (done % step == 0 || done == dateCount) {
+      double seconds = (System.nanoTime() - start) / 1e9;
+      LOGGER.info(String.format("Repricing: %d of %d dates, %d orders - %.0f orders/s",
+              done, dateCount, ordersRepriced.sum(), seconds == 0 ? 0 : ordersRepriced.sum() / seconds));
+    }
+  }
+
+  private static boolean samePrices(Order old, Order repriced) {
+    return Objects.equals(old.getTaxRate(), repriced.getTaxRate())
+            && Objects.equals(old.getCostPerSquareFoot(), repriced.getCostPerSquareFoot())
+            && Objects.equals(old.getLaborCostPerSquareFoot(), repriced.getLaborCostPerSquareFoot())
+            && Objects.equals(old.getMaterialCost(), repriced.getMaterialCost())
+            && Objects.equals(old.getLaborCost(), repriced.getLaborCost())
+            && Objects.equals(old.getTax(), repriced.getTax())
+            && Objects.equals(old.getTotal(), repriced.getTotal());
+  }
+
+  /**
+   * Fork-join task that reprices the dates in the range [from, to) of the date list.
+   */
+  private class RepriceTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Map.Entry<LocalDate, Map<Integer, Order>>> dates;
+    private final int from;
+    private final int to;
+
+    RepriceTask(List<Map.Entry<LocalDate, Map<Integer, Order>>> dates, int from, int to) {
+      this.dates = dates;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= DATES_PER_TASK) {
+        for (int i = from; i < to; i++) {
+          repriceDate(dates.get(i).getKey(), dates.get(i).getValue());
+        }
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new RepriceTask(dates, from, middle), new RepriceTask(dates, middle, to));
+    }
+  }
+}
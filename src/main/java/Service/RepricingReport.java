@@ -0,0 +1,183 @@
+package Service;
+
+import java.time.format.DateTimeFormatter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import Model.Order;
+
+/**
+ * The {@code RepricingReport} class is the outcome of a {@link RepricingJob}: every
+ * order whose values changed, with its total before and after, and how long the job
+ * took.
+ */
+public class RepricingReport {
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+  private final List<Change> changes;
+  private final int ordersRepriced;
+  private final long nanos;
+
+  /**
+   * Constructs a {@code RepricingReport}.
+   *
+   * @param changes        the orders whose values changed, in any order
+   * @param ordersRepriced the number of orders that were priced again
+   * @param nanos          the time the job took in nanoseconds
+   */
+  public RepricingReport(List<Change> changes, int ordersRepriced, long nanos) {
+    changes.sort(Comparator.comparing(Change::getDate).thenComparingInt(Change::getOrderNumber));
+    this.changes = Collections.unmodifiableList(changes);
+    this.ordersRepriced = ordersRepriced;
+    this.nanos = nanos;
+  }
+
+  /**
+   * Returns the orders whose values changed.
+   *
+   * @return the changes, by date and then by order number
+   */
+  public List<Change> getChanges() {
+    return changes;
+  }
+
+  /**
+   * Returns the number of orders that were priced again, changed or not.
+   *
+   * @return the number of orders repriced
+   */
+  public int getOrdersRepriced() {
+    return ordersRepriced;
+  }
+
+  /**
+   * Returns the time the job took.
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long getNanos() {
+    return nanos;
+  }
+
+  /**
+   * Returns the number of orders priced again per second.
+   *
+   * @return the throughput of the job
+   */
+  public double ordersPerSecond() {
+    return nanos == 0 ? 0 : ordersRepriced / (nanos / 1e9);
+  }
+
+  /**
+   * Returns the sum of the old totals of the changed orders.
+   *
+   * @return the total before repricing
+   */
+  public BigDecimal getOldTotal() {
+    return changes.stream().map(Change::getOldTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+
+  /**
+   * Returns the sum of the new totals of the changed orders.
+   *
+   * @return the total after repricing
+   */
+  public BigDecimal getNewTotal() {
+    return changes.stream().map(Change::getNewTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+
+  /**
+   * Returns the report as a line per changed order with its old and new total,
+   * followed by the sums and the throughput.
+   *
+   * @return the diff report
+   */
+  @Override
+  public String toString() {
+    StringBuilder report = new StringBuilder();
+    for (Change change : changes) {
+      report.append(String.format("%s  #%d  %s  %s  %s:  %s -> %s  (%s)%n",
+              DATE.format(change.getDate()), change.getOrderNumber(), change.getCustomerName(),
+              change.getState(), change.getProductType(), change.getOldTotal(), change.getNewTotal(),
+              signed(change.getDifference())));
+    }
+    report.append(String.format("%d of %d orders changed:  %s -> %s  (%s)%n", changes.size(), ordersRepriced,
+            getOldTotal(), getNewTotal(), signed(getNewTotal().subtract(getOldTotal()))));
+    report.append(String.format("Repriced in %.1f ms - %.0f orders/s%n", nanos / 1e6, ordersPerSecond()));
+    return report.toString();
+  }
+
+  private static String signed(BigDecimal amount) {
+    return amount.signum() > 0 ? "+" + amount : amount.toString();
+  }
+
+  /**
+   * An order whose values changed when it was priced again.
+   */
+  public static class Change {
+    private final LocalDate date;
+    private final int orderNumber;
+    private final String customerName;
+    private final String state;
+    private final String productType;
+    private final BigDecimal oldTotal;
+    private final BigDecimal newTotal;
+
+    /**
+     * Constructs a {@code Change} from the order before and after repricing.
+     *
+     * @param date     the date of the order
+     * @param old      the order before repricing
+     * @param repriced the order after repricing
+     */
+    public Change(LocalDate date, Order old, Order repriced) {
+      this.date = date;
+      this.orderNumber = repriced.getOrderNumber();
+      this.customerName = repriced.getCustomerName();
+      this.state = repriced.getState();
+      this.productType = repriced.getProductType();
+      this.oldTotal = old.getTotal();
+      this.newTotal = repriced.getTotal();
+    }
+
+    public LocalDate getDate() {
+      return date;
+    }
+
+    public int getOrderNumber() {
+      return orderNumber;
+    }
+
+    public String getCustomerName() {
+      return customerName;
+    }
+
+    public String getState() {
+      return state;
+    }
+
+    public String getProductType() {
+      return productType;
+    }
+
+    public BigDecimal getOldTotal() {
+      return oldTotal;
+    }
+
+    public BigDecimal getNewTotal() {
+      return newTotal;
+    }
+
+    /**
+     * Returns how much the total changed.
+     *
+     * @return the new total minus the old total
+     */
+    public BigDecimal getDifference() {
+      return newTotal.subtract(oldTotal);
+    }
+  }
+}
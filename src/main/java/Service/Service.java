@@ -2,8 +2,14 @@ package Service;
 
 import org.json.JSONObject;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.List;
+
 import Exceptions.ServiceExceptions;
 import Model.Order;
+import Model.Quote;
+import Model.QuoteRequest;
 
 public interface Service {
   /**
@@ -18,6 +24,26 @@ public interface Service {
    */
   public String displayOrders(JSONObject ordersDate) throws ServiceExceptions;
 
+  /**
+   * Displays the orders of every date in a range, such as a week under review.
+   *
+   * @param range a {@code JSONObject} containing the first ("from") and last ("to")
+   *              date of the range
+   * @return the orders of the range under a heading per date, produced as the stream
+   *         is consumed
+   * @throws ServiceExceptions if the first date is after the last one
+   */
+  public Stream<String> displayOrdersBetween(JSONObject range) throws ServiceExceptions;
+
+  /**
+   * Displays the orders of every date of a month.
+   *
+   * @param month a {@code JSONObject} containing the month ("month") as MM/YYYY
+   * @return the orders of the month under a heading per date, produced as the stream
+   *         is consumed
+   */
+  public Stream<String> displayOrdersInMonth(JSONObject month);
+
   /**
    * Adds a new order based on the provided order information.
    *
@@ -29,6 +55,28 @@ public interface Service {
    */
   public Order addOrder(JSONObject orderInfo) throws ServiceExceptions;
 
+  /**
+   * Adds a new order and returns a handle completed with it once it has been written
+   * to the order files.
+   *
+   * @param orderInfo a {@code JSONObject} containing the details of the order
+   *                  to be added
+   * @return a handle completed with the new order once it has been written
+   * @throws ServiceExceptions if an error occurs while adding the order
+   */
+  public CompletableFuture<Order> addOrderAsync(JSONObject orderInfo) throws ServiceExceptions;
+
+  /**
+   * Prices a batch of orders without placing them: no order or order number is
+   * created and nothing is written to the order files.
+   *
+   * @param requests the product, state and area of every order to be quoted
+   * @return the quote of every request, in the order of the requests
+   * @throws ServiceExceptions if a product or a state of a request is not in the
+   *                           product or tax library
+   */
+  public List<Quote> quote(List<QuoteRequest> requests) throws ServiceExceptions;
+
   /**
    * Edits an existing order based on the provided new order information.
    *
@@ -39,6 +87,17 @@ public interface Service {
    */
   public Order editAnOrder(JSONObject newOrderInfo) throws ServiceExceptions;
 
+  /**
+   * Edits an existing order and returns a handle completed with it once the edit has
+   * been written to the order files.
+   *
+   * @param newOrderInfo a {@code JSONObject} containing the updated details
+   *                     of the order
+   * @return a handle completed with the updated order once it has been written
+   * @throws ServiceExceptions if an error occurs while editing the order
+   */
+  public CompletableFuture<Order> editAnOrderAsync(JSONObject newOrderInfo) throws ServiceExceptions;
+
   /**
    * Removes an existing order based on the provided order information.
    *
@@ -48,6 +107,17 @@ public interface Service {
    */
   public void removeOrder(JSONObject orderInfo) throws ServiceExceptions;
 
+  /**
+   * Removes an existing order and returns a handle completed once the removal has been
+   * written to the order files.
+   *
+   * @param orderInfo a {@code JSONObject} containing the details of the order
+   *                  to be removed
+   * @return a handle completed once the removal has been written
+   * @throws ServiceExceptions if an error occurs while removing the order
+   */
+  public CompletableFuture<Void> removeOrderAsync(JSONObject orderInfo) throws ServiceExceptions;
+
   /**
    * Retrieves a specific order based on the provided order information.
    *
@@ -58,10 +128,65 @@ public interface Service {
    */
   public Order getOrder(JSONObject orderInfo);
 
+  /**
+   * Retrieves a specific order by its order number alone, without asking for its
+   * date first.
+   *
+   * @param orderNum the order number of the order to be retrieved
+   * @return the {@code Order} object, or null if no such order exists
+   */
+  public Order getOrder(int orderNum);
+
+  /**
+   * Edits an existing order found by its order number alone.
+   *
+   * @param orderNum     the order number of the order to be edited
+   * @param newOrderInfo a {@code JSONObject} containing the updated details
+   *                     of the order
+   * @return the updated {@code Order} object
+   * @throws ServiceExceptions if the order does not exist or an error occurs while
+   *                           editing it
+   */
+  public Order editOrder(int orderNum, JSONObject newOrderInfo) throws ServiceExceptions;
+
+  /**
+   * Searches the orders of the customers whose names are most like a partial or
+   * misspelled name.
+   *
+   * @param nameInfo a {@code JSONObject} containing the name ("name") as far as it
+   *                 is known
+   * @return a string representation of the orders found, those of the most similar
+   *         customer first, or an empty string if no name is similar enough
+   */
+  public String searchCustomerNames(JSONObject nameInfo);
+
   /**
    * Exports all data to the 'DataExport' file.
    *
    * @throws ServiceExceptions if an error occurs while exporting the data
    */
   public void exportAllData() throws ServiceExceptions;
-}
\ No newline at end of file
+
+  /**
+   * Loads every order already stored in the order files so that days entered in
+   * earlier runs can be displayed, edited and removed.
+   *
+   * @throws ServiceExceptions if an error occurs while reading the order files
+   */
+  public void loadExistingOrders() throws ServiceExceptions;
+
+  /**
+   * Reads the product and tax files again and reprices every stored order of a
+   * product or state whose costs or tax rate changed in them.
+   *
+   * @return the orders whose totals changed, with their old and new totals
+   * @throws ServiceExceptions if the files cannot be read or the repriced orders
+   *                           cannot be written to the order files
+   */
+  public RepricingReport reloadCatalog() throws ServiceExceptions;
+
+  /**
+   * Writes every order change that is still pending and stops writing in the background.
+   */
+  public void shutdown();
+}
@@ -7,7 +7,7 @@ import java.time.format.DateTimeParseException;
 import java.time.format.DateTimeFormatter;
 import java.util.InputMismatchException;
 import java.time.LocalDate;
-import java.util.List;
+import java.time.YearMonth;
 
 import Model.DAO.OrdersDAOImpl;
 import View.UserIO.UserIOImpl;
@@ -55,11 +55,14 @@ public class FlooringMasteryViewImpl implements View {
             "\n* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\n" +
             "* <<Flooring Program>>\n" +
             "* 1. Display Orders\n" +
-            "* 2. Add an Order\n" +
-            "* 3. Edit an Order\n" +
-            "* 4. Remove an Order\n" +
-            "* 5. Export All Data\n" +
-            "* 6. Quit\n" +
+            "* 2. Display Orders Between Two Dates\n" +
+            "* 3. Display Orders of a Month\n" +
+            "* 4. Add an Order\n" +
+            "* 5. Edit an Order\n" +
+            "* 6. Remove an Order\n" +
+            "* 7. Export All Data\n" +
+            "* 8. Search Orders by Customer Name\n" +
+            "* 9. Quit\n" +
             "* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *");
     return choice;
   }
@@ -80,6 +83,42 @@ public class FlooringMasteryViewImpl implements View {
     return orderInfo;
   }
 
+  /**
+   * Prompts the user for the first and last date of a range of orders to view, such
+   * as a week under review, and returns them as a JSONObject.
+   *
+   * @return a JSONObject containing the first ("from") and last ("to") date, either of
+   *         them empty if no valid date was entered
+   */
+  @Override
+  public JSONObject displayOrdersForRange() {
+    userIOImpl.print("\nPlease Enter the First and Last Date of the Orders to be Viewed");
+    userIOImpl.print("---------------------------------------------------------------+");
+    userIOImpl.readString("");
+
+    JSONObject range = new JSONObject();
+    range.put("from", getAnyDate("Enter First Date [MM/DD/YYYY]: "));
+    range.put("to", range.getString("from").isEmpty() ? "" : getAnyDate("Enter Last Date [MM/DD/YYYY]: "));
+    return range;
+  }
+
+  /**
+   * Prompts the user for a month of orders to view and returns it as a JSONObject.
+   *
+   * @return a JSONObject containing the month ("month") as MM/YYYY, empty if no valid
+   *         month was entered
+   */
+  @Override
+  public JSONObject displayOrdersForMonth() {
+    userIOImpl.print("\nPlease Enter the Month of the Orders to be Viewed");
+    userIOImpl.print("-------------------------------------------------+");
+    userIOImpl.readString("");
+
+    JSONObject month = new JSONObject();
+    month.put("month", getMonth());
+    return month;
+  }
+
   /**
    * Collects the necessary information from the user to create a new order
    * and returns it as a JSONObject.
@@ -190,6 +229,23 @@ public class FlooringMasteryViewImpl implements View {
     return orderInfo;
   }
 
+  /**
+   * Prompts the user for a customer name, as much of it as they know, to search the
+   * orders for and returns it as a JSONObject.
+   *
+   * @return a JSONObject containing the name to be searched for
+   */
+  @Override
+  public JSONObject searchOrders() {
+    userIOImpl.print("\nPlease Enter the Customer's Name, Even if Only Partly Known");
+    userIOImpl.print("-----------------------------------------------------------+");
+    userIOImpl.readString("");
+
+    JSONObject nameInfo = new JSONObject();
+    nameInfo.put("name", getValidName("\nEnter Customer's Name: ", false));
+    return nameInfo;
+  }
+
   /**
    * Displays the details of a specific order to the user and asks for confirmation
    * on whether to remove it or not.
@@ -255,7 +311,7 @@ public class FlooringMasteryViewImpl implements View {
       try {
         date = LocalDate.parse(stringDate, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
 
-        if (!OrdersDAOImpl.orderStorage.containsKey(date)) {
+        if (!OrdersDAOImpl.containsDate(date)) {
           userIOImpl.print("    * Date does not exist in database. Please try again. *\n");
           count ++; // Increment attempt counter if the date is not found
           continue; // Continue to the next iteration for another attempt
@@ -271,6 +327,51 @@ public class FlooringMasteryViewImpl implements View {
     return "";  // Return an empty string if no valid date was entered after 3 attempts
   }
 
+  /**
+   * Prompts the user for a date in the past or the future, allowing up to three
+   * attempts to enter it in the correct format.
+   *
+   * @param prompt the prompt shown to the user
+   * @return a string representing a valid date in MM/DD/YYYY format, or an empty
+   *         string if no valid date was entered
+   */
+  private String getAnyDate(String prompt) {
+    for (int count = 0; count < this.TRIES; count++) {
+      String stringDate = userIOImpl.readString(prompt);
+
+      try {
+        LocalDate.parse(stringDate, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+        return stringDate;
+      } catch (DateTimeParseException e) {
+        userIOImpl.print("    * Invalid date format. Please enter the date in MM/DD/YYYY format. *\n");
+      }
+    }
+    userIOImpl.print("    * Infinite loop break *");
+    return "";
+  }
+
+  /**
+   * Prompts the user for a month, allowing up to three attempts to enter it in the
+   * correct format.
+   *
+   * @return a string representing a valid month in MM/YYYY format, or an empty string
+   *         if no valid month was entered
+   */
+  private String getMonth() {
+    for (int count = 0; count < this.TRIES; count++) {
+      String stringMonth = userIOImpl.readString("Enter Month [MM/YYYY]: ");
+
+      try {
+        YearMonth.parse(stringMonth, DateTimeFormatter.ofPattern("MM/yyyy"));
+        return stringMonth;
+      } catch (DateTimeParseException e) {
+        userIOImpl.print("    * Invalid month format. Please enter the month in MM/YYYY format. *\n");
+      }
+    }
+    userIOImpl.print("    * Infinite loop break *");
+    return "";
+  }
+
   /**
    * Prompts the user to enter a future date and validates the input.
    * If the input is not in the correct format or is not a future date,
@@ -327,11 +428,8 @@ public class FlooringMasteryViewImpl implements View {
         continue; // Continue to the next iteration for another attempt
       }
 
-      List<Order> ordersForDate = OrdersDAOImpl.orderStorage.get(existingDate);
-      for (int i = 0; i < ordersForDate.size(); i++) {
-        if (ordersForDate.get(i).getOrderNumber() == orderNum) {
-          return orderNum;
-        }
+      if (OrdersDAOImpl.containsOrder(existingDate, orderNum)) {
+        return orderNum;
       }
       userIOImpl.print("    * That order number does not exist in the database. *\n");
     }
@@ -25,6 +25,21 @@ public interface View {
    */
   public JSONObject displayOrderForDate();
 
+  /**
+   * Prompts the user for the first and last date of a range of orders to view and
+   * returns them as a JSONObject.
+   *
+   * @return a JSONObject containing the first ("from") and last ("to") date
+   */
+  public JSONObject displayOrdersForRange();
+
+  /**
+   * Prompts the user for a month of orders to view and returns it as a JSONObject.
+   *
+   * @return a JSONObject containing the month ("month") as MM/YYYY
+   */
+  public JSONObject displayOrdersForMonth();
+
   /**
    * Collects the necessary information from the user to create a new order
    * and returns it as a JSONObject.
@@ -57,4 +72,12 @@ public interface View {
    * @return true if the order should be removed; false otherwise
    */
   public boolean displayOrder(Order order);
+
+  /**
+   * Prompts the user for a customer name, as much of it as they know, to search the
+   * orders for and returns it as a JSONObject.
+   *
+   * @return a JSONObject containing the name to be searched for
+   */
+  public JSONObject searchOrders();
 }
\ No newline at end of file